@@ -23,11 +23,25 @@ class ApiExceptionHandler {
      *     ApiExceptionHandler.handleException(e, getBasePath());
      *     throw Some_Other_NetworkException(individual_answer);
      * }</code></pre>
+     * If the {@link Deadline} of the current operation is exceeded, a {@link DeadlineExceededException} is thrown.
+     * If the request was not sent because the server is assumed to be unavailable, the {@link CircuitOpenException}
+     * is thrown. If the request was rejected by the local traffic control, the {@link RequestThrottledException} is
+     * thrown.
      * @param exc The exception thrown when calling a REST function.
      * @param basePath The url of the REST server.
      * @throws NetworkException
      */
     static void handleException(Exception exc, String basePath) throws NetworkException {
+        // Failures after the time budget is exhausted (e.g., a timeout of the last request) are caused by the deadline
+        Deadline.check(basePath);
+        CircuitOpenException circuitOpen = findCause(exc, CircuitOpenException.class);
+        if (null != circuitOpen) {
+            throw circuitOpen;
+        }
+        RequestThrottledException throttled = findCause(exc, RequestThrottledException.class);
+        if (null != throttled) {
+            throw throttled;
+        }
         if (exc instanceof IllegalArgumentException) {
             throw new ServerNotFoundException(exc.getMessage(), basePath);
         }
@@ -62,4 +76,19 @@ class ApiExceptionHandler {
             }
         }
     }
+
+    /**
+     * Searches the cause chain of an exception (as wrapped by the generated APIs) for a cause of the specified type.
+     * @param <E> The type of the searched cause.
+     * @param exc The exception to search.
+     * @param type The type of the searched cause.
+     * @return The first cause of the specified type, or <tt>null</tt> if the exception was not caused by it.
+     */
+    static <E extends Throwable> E findCause(Throwable exc, Class<E> type) {
+        Throwable cause = exc;
+        while (null != cause && !type.isInstance(cause)) {
+            cause = cause.getCause();
+        }
+        return type.cast(cause);
+    }
 }
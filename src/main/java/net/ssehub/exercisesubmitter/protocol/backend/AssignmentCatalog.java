@@ -0,0 +1,167 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
+
+/**
+ * Stores the complete list of {@link Assignment}s of a course. The list is downloaded and converted only once per
+ * time to live, all state filters are answered locally.
+ * Instances must not be shared between different users, since the visible assignments depend on the rights of the
+ * user.
+ *
+ * @author agent
+ *
+ */
+public class AssignmentCatalog {
+
+    /**
+     * Default time to live (in seconds) of the downloaded assignments.
+     */
+    public static final long DEFAULT_TTL_SECONDS = 60;
+
+    private static final Logger LOGGER = LogManager.getLogger(AssignmentCatalog.class);
+
+    /**
+     * A converted assignment and the server-side state, which is needed for filtering.
+     * {@link Assignment.State} cannot be used, since it combines multiple server states.
+     */
+    private static class CatalogEntry {
+        private final StateEnum state;
+        private final Assignment assignment;
+
+        /**
+         * Creates a new entry.
+         * @param state The state as retrieved from the server.
+         * @param assignment The converted assignment.
+         */
+        private CatalogEntry(StateEnum state, Assignment assignment) {
+            this.state = state;
+            this.assignment = assignment;
+        }
+    }
+
+    /**
+     * The assignments in form of (courseID, all assignments of the course).
+     */
+    private ProtocolCache<String, List<CatalogEntry>> catalog;
+
+    /**
+     * Creates a new and empty catalog.
+     */
+    AssignmentCatalog() {
+        catalog = new ProtocolCache<>(DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the assignments of the course that match one of the specified states.
+     * @param courseId The ID of the course.
+     * @param loader Downloads all assignments of the course, will only be used if the assignments are not cached.
+     * @param states Optional filters for assignments that match the specified states, will return all
+     *     assignments if states are <tt>null</tt> or empty.
+     * @return The matching assignments (will never be <tt>null</tt>).
+     * @throws NetworkException If the assignments need to be downloaded and network problems occur.
+     */
+    List<Assignment> getAssignments(String courseId, Loader<List<AssignmentDto>> loader, StateEnum... states)
+        throws NetworkException {
+
+        List<CatalogEntry> entries = catalog.get(courseId, () -> toEntries(loader.load()));
+        List<Assignment> assignments = new ArrayList<>();
+        entries.stream()
+            // Arrays as stream based on https://stackoverflow.com/a/1128728
+            .filter(e -> null == states || states.length == 0 || Arrays.stream(states).anyMatch(e.state::equals))
+            .map(e -> e.assignment)
+            .forEach(assignments::add);
+
+        return assignments;
+    }
+
+    /**
+     * Restores previously downloaded assignments, e.g., from a {@link SnapshotStore}.
+     * @param courseId The ID of the course.
+     * @param dtos All assignments of the course as retrieved by the REST server.
+     * @param timestamp The time the assignments were downloaded (in milliseconds), the time to live is applied
+     *     relative to this time.
+     */
+    void seed(String courseId, List<AssignmentDto> dtos, long timestamp) {
+        catalog.put(courseId, toEntries(dtos), timestamp);
+    }
+
+    /**
+     * Converts the downloaded assignments, assignments which cannot be handled by the tools are discarded.
+     * @param dtos The assignments as retrieved by the REST server.
+     * @return The converted assignments.
+     */
+    private static List<CatalogEntry> toEntries(List<AssignmentDto> dtos) {
+        List<CatalogEntry> entries = new ArrayList<>();
+        if (null != dtos) {
+            for (AssignmentDto dto : dtos) {
+                Assignment assignment = toAssignment(dto);
+                if (null != assignment) {
+                    entries.add(new CatalogEntry(dto.getState(), assignment));
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Part of {@link #toEntries(List)} to handle exception in cases of data, which cannot be handled by the tools.
+     * @param dto The {@link AssignmentDto} retrieved by the REST server.
+     * @return The equivalence to be handled by the reviewer / submitters
+     */
+    private static Assignment toAssignment(AssignmentDto dto) {
+        Assignment assignment = null;
+        try {
+            assignment = new Assignment(dto);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Error occured while handling {}, discared it because of {}", dto, e.getMessage());
+        }
+        return assignment;
+    }
+
+    /**
+     * Removes all downloaded assignments, they will be downloaded again at the next access.
+     */
+    public void invalidate() {
+        catalog.invalidateAll();
+    }
+
+    /**
+     * Changes the time to live of the downloaded assignments.
+     * @param ttl The time after which the assignments will be downloaded again.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    public void setTimeToLive(long ttl, TimeUnit unit) {
+        catalog.setTimeToLive(ttl, unit);
+    }
+
+    /**
+     * Limits the number of courses, for which the assignments are stored.
+     * @param maxSize The maximum number of courses.
+     * @param policy Selects the courses to remove, if the maximum size is exceeded.
+     */
+    public void setMaximumSize(int maxSize, ProtocolCache.EvictionPolicy policy) {
+        catalog.setEvictionPolicy(policy);
+        catalog.setMaximumSize(maxSize);
+    }
+
+    /**
+     * Returns the statistics about the usage of the downloaded assignments.
+     * @return The current statistics.
+     */
+    public CacheStatistics getStatistics() {
+        return catalog.getStatistics();
+    }
+}
@@ -0,0 +1,51 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.Arrays;
+
+/**
+ * Composed key for a {@link ProtocolCache}, e.g., (basePath, courseName, semester).
+ * Parts may be <tt>null</tt>.
+ *
+ * @author agent
+ *
+ */
+public final class CacheKey {
+
+    private final Object[] parts;
+
+    /**
+     * Sole constructor, use {@link #of(Object...)}.
+     * @param parts The parts of the key.
+     */
+    private CacheKey(Object[] parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Creates a new key composed of the specified parts.
+     * @param parts The parts of the key, order matters.
+     * @return The composed key.
+     */
+    public static CacheKey of(Object... parts) {
+        return new CacheKey(parts.clone());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(parts);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        boolean isEqual = this == obj;
+        if (!isEqual && obj instanceof CacheKey) {
+            isEqual = Arrays.equals(parts, ((CacheKey) obj).parts);
+        }
+        return isEqual;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(parts);
+    }
+}
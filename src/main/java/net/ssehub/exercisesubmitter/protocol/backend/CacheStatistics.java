@@ -0,0 +1,128 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable statistics of a {@link ProtocolCache} at a certain time, allows to check if a cache actually reduces the
+ * load of the <b>student management system</b> and to tune its size and time to live.
+ *
+ * @author agent
+ *
+ */
+public class CacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long loadFailureCount;
+    private final long totalLoadTimeNanos;
+    private final long evictionCount;
+    private final int size;
+
+    /**
+     * Creates a new statistics record.
+     * @param hitCount The number of lookups, which returned a cached value.
+     * @param missCount The number of lookups, which did not find a (valid) cached value.
+     * @param loadCount The number of successful loads (from the server).
+     * @param loadFailureCount The number of loads, which failed with an exception.
+     * @param totalLoadTimeNanos The time spent for all loads (in nanoseconds).
+     * @param evictionCount The number of entries, which were removed because the maximum size was exceeded.
+     * @param size The current number of stored entries.
+     */
+    //checkstyle: stop parameter number check
+    CacheStatistics(long hitCount, long missCount, long loadCount, long loadFailureCount, long totalLoadTimeNanos,
+        long evictionCount, int size) {
+    //checkstyle: resume parameter number check
+
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of lookups, which returned a cached value.
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups, which did not find a (valid) cached value.
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of lookups, which returned a cached value.
+     * @return The hit rate between <tt>0</tt> and <tt>1</tt>, <tt>1</tt> if the cache was not used yet.
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the number of successful loads, i.e., requests sent to the server.
+     * @return The number of successful loads.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Returns the number of loads, which failed with an exception.
+     * @return The number of failed loads.
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Returns the time spent for all (successful and failed) loads.
+     * @param unit The unit in which the result shall be returned.
+     * @return The total load time.
+     */
+    public long getTotalLoadTime(TimeUnit unit) {
+        return unit.convert(totalLoadTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the average time of a (successful or failed) load.
+     * @param unit The unit in which the result shall be returned.
+     * @return The average load time, <tt>0</tt> if nothing was loaded.
+     */
+    public long getAverageLoadTime(TimeUnit unit) {
+        long loads = loadCount + loadFailureCount;
+        return loads == 0 ? 0 : unit.convert(totalLoadTimeNanos / loads, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of entries, which were removed because the maximum size was exceeded.
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of stored entries, may contain expired entries, which were not accessed since they expired.
+     * @return The number of stored entries.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRate=%.2f, loads=%d, loadFailures=%d, avgLoadTime=%dms, "
+            + "evictions=%d, size=%d", hitCount, missCount, getHitRate(), loadCount, loadFailureCount,
+            getAverageLoadTime(TimeUnit.MILLISECONDS), evictionCount, size);
+    }
+}
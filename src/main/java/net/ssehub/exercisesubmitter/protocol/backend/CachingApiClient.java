@@ -0,0 +1,99 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.squareup.okhttp.Response;
+
+import net.ssehub.studentmgmt.backend_api.ApiClient;
+import net.ssehub.studentmgmt.backend_api.ApiException;
+
+/**
+ * {@link ApiClient} for the <b>student management system</b>, which uses the shared connections of the
+ * {@link HttpClientFactory} and revalidates GET responses via a {@link ConditionalRequestCache}.
+ * Slow reads may be hedged, see {@link HedgingInterceptor}.
+ * For {@link #shareObjectGraphs(Type...) selected types}, the already deserialized object graph is returned if the
+ * server confirms that the response was not modified.
+ *
+ * @author agent
+ *
+ */
+class CachingApiClient extends ApiClient {
+
+    private final ConditionalRequestCache cache;
+
+    /**
+     * Hedges slow reads, disabled until a policy is set.
+     */
+    private final HedgingInterceptor hedging;
+
+    /**
+     * Types, for which the deserialized object graphs are shared between requests.
+     */
+    private final Set<Type> sharedTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a new client, which uses the {@link ConditionalRequestCache#getDefault() default cache}.
+     */
+    CachingApiClient() {
+        this(ConditionalRequestCache.getDefault());
+    }
+
+    /**
+     * Creates a new client, which uses the specified cache.
+     * @param cache The cache to use, may be shared by multiple clients.
+     */
+    CachingApiClient(ConditionalRequestCache cache) {
+        this(HttpClientFactory.getDefault(), cache);
+    }
+
+    /**
+     * Creates a new client, which uses the specified factory and cache.
+     * @param factory The factory to create the HTTP client, determines the used connections and transport.
+     * @param cache The cache to use, may be shared by multiple clients.
+     */
+    CachingApiClient(HttpClientFactory factory, ConditionalRequestCache cache) {
+        this.cache = cache;
+        hedging = new HedgingInterceptor(factory.getTransport());
+        // Hedge only requests, which are not answered by the cache
+        setHttpClient(factory.newClient(cache, hedging));
+    }
+
+    /**
+     * Returns the interceptor, which hedges slow reads of this client.
+     * @return The hedging interceptor, disabled until a {@link HedgingPolicy} is set.
+     */
+    HedgingInterceptor getHedging() {
+        return hedging;
+    }
+
+    /**
+     * Enables sharing of deserialized object graphs of the specified types: If the server confirms that a response
+     * was not modified, the previously deserialized objects are returned instead of deserializing the response again.
+     * This must only be used for types, whose instances are treated as <b>read-only</b> by all callers.
+     * @param types The types as passed to {@link #deserialize(Response, Type)} by the generated APIs, e.g.,
+     *     <tt>new TypeToken&lt;List&lt;AssignmentDto&gt;&gt;(){}.getType()</tt>.
+     */
+    void shareObjectGraphs(Type... types) {
+        sharedTypes.addAll(Arrays.asList(types));
+    }
+
+    @Override
+    public <T> T deserialize(Response response, Type returnType) throws ApiException {
+        T result = null;
+        boolean shared = null != response && sharedTypes.contains(returnType);
+        if (shared) {
+            result = cache.getObjectGraph(response, returnType);
+        }
+        if (null == result) {
+            result = super.deserialize(response, returnType);
+            if (shared) {
+                cache.putObjectGraph(response, returnType, result);
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,215 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for one server: After a number of consecutive failures, the circuit is <b>opened</b> and requests
+ * fail fast without contacting the server. After a cool down period, one probe request is let through
+ * (<b>half open</b>); its result decides whether the circuit is closed again or stays open.
+ * State transitions can be observed via {@link StateListener}s.
+ *
+ * @author agent
+ *
+ */
+public class CircuitBreaker {
+
+    /**
+     * Default number of consecutive failures, which open the circuit.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Default time (in seconds) the circuit stays open before a probe request is let through.
+     */
+    public static final long DEFAULT_OPEN_SECONDS = 30;
+
+    /**
+     * The states of a circuit breaker.
+     *
+     * @author agent
+     *
+     */
+    public static enum State {
+        /**
+         * Requests are sent, failures are counted.
+         */
+        CLOSED,
+
+        /**
+         * Requests fail fast without contacting the server.
+         */
+        OPEN,
+
+        /**
+         * One probe request is sent to check if the server is available again.
+         */
+        HALF_OPEN;
+    }
+
+    /**
+     * Observes state transitions of circuit breakers.
+     *
+     * @author agent
+     *
+     */
+    @FunctionalInterface
+    public static interface StateListener {
+
+        /**
+         * Called after the state of a circuit breaker changed.
+         * @param breaker The circuit breaker, which changed its state.
+         * @param from The previous state.
+         * @param to The new state.
+         */
+        public void stateChanged(CircuitBreaker breaker, State from, State to);
+    }
+
+    private final String server;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private final List<StateListener> listeners;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeRunning;
+
+    /**
+     * Creates a new circuit breaker, which is initially closed.
+     * @param server The server (e.g., <tt>https://example.com:443</tt>), which is protected by this breaker.
+     * @param failureThreshold The number of consecutive failures, which open the circuit.
+     * @param openMillis The time (in milliseconds) the circuit stays open before a probe request is let through.
+     * @param listeners The listeners to inform about state transitions, may be shared by multiple breakers.
+     */
+    CircuitBreaker(String server, int failureThreshold, long openMillis, List<StateListener> listeners) {
+        this(server, failureThreshold, openMillis, listeners, System::nanoTime);
+    }
+
+    /**
+     * Creates a new circuit breaker, which is initially closed.
+     * Intended for testing.
+     * @param server The server (e.g., <tt>https://example.com:443</tt>), which is protected by this breaker.
+     * @param failureThreshold The number of consecutive failures, which open the circuit.
+     * @param openMillis The time (in milliseconds) the circuit stays open before a probe request is let through.
+     * @param listeners The listeners to inform about state transitions, may be shared by multiple breakers.
+     * @param clock Returns the current time in nanoseconds (compatible to {@link System#nanoTime()}).
+     */
+    CircuitBreaker(String server, int failureThreshold, long openMillis, List<StateListener> listeners,
+        LongSupplier clock) {
+
+        this.server = server;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.listeners = null != listeners ? listeners : new CopyOnWriteArrayList<>();
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the server, which is protected by this breaker.
+     * @return The server in form of <tt>scheme://host:port</tt>.
+     */
+    public String getServer() {
+        return server;
+    }
+
+    /**
+     * Returns the current state of this breaker.
+     * @return The current state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Checks if a request may be sent to the server. If this returns <tt>true</tt>, the result of the request must be
+     * reported via {@link #onSuccess()}, {@link #onFailure()}, or {@link #onAbandoned()}.
+     * @return <tt>true</tt> if the request may be sent, <tt>false</tt> if it should fail fast.
+     */
+    boolean tryAcquire() {
+        State from = null;
+        boolean allowed;
+        synchronized (this) {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+                from = state;
+                state = State.HALF_OPEN;
+                probeRunning = false;
+            }
+            allowed = state == State.CLOSED || (state == State.HALF_OPEN && !probeRunning);
+            if (allowed && state == State.HALF_OPEN) {
+                probeRunning = true;
+            }
+        }
+        if (null != from) {
+            notifyListeners(from, State.HALF_OPEN);
+        }
+
+        return allowed;
+    }
+
+    /**
+     * Reports a successful request, closes the circuit.
+     */
+    void onSuccess() {
+        State from;
+        synchronized (this) {
+            from = state;
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            probeRunning = false;
+        }
+        if (from != State.CLOSED) {
+            notifyListeners(from, State.CLOSED);
+        }
+    }
+
+    /**
+     * Reports a failed request (i.e., the server was not reachable or not available), opens the circuit if the
+     * threshold is reached or the probe request failed.
+     */
+    void onFailure() {
+        State from = null;
+        synchronized (this) {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                from = state;
+                state = State.OPEN;
+                openedAt = clock.getAsLong();
+                probeRunning = false;
+            }
+        }
+        if (null != from) {
+            notifyListeners(from, State.OPEN);
+        }
+    }
+
+    /**
+     * Reports a request without a result, which tells something about the server (e.g., it was cancelled by the
+     * client or its {@link Deadline} was exceeded). Releases the probe slot, so that the next request is let through
+     * as new probe; otherwise a half open circuit would never be closed again.
+     */
+    void onAbandoned() {
+        synchronized (this) {
+            probeRunning = false;
+        }
+    }
+
+    /**
+     * Informs all listeners about a state transition (outside of the lock).
+     * @param from The previous state.
+     * @param to The new state.
+     */
+    private void notifyListeners(State from, State to) {
+        for (StateListener listener : listeners) {
+            listener.stateChanged(this, from, to);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker [server=" + server + ", state=" + getState() + "]";
+    }
+}
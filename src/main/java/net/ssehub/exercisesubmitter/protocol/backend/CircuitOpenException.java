@@ -0,0 +1,25 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+/**
+ * Declares an exception for the case, that a request was not sent, because the {@link CircuitBreaker} of the server
+ * is open, i.e., the server failed repeatedly and is assumed to be unavailable.
+ *
+ * @author agent
+ *
+ */
+public class CircuitOpenException extends ServerNotFoundException {
+
+    /**
+     * Generated id.
+     */
+    private static final long serialVersionUID = 2846375014528127393L;
+
+    /**
+     * An exception that occurs if requests to the server fail fast.
+     * @param message the error message that occurred.
+     * @param url the url of the REST server, which should have been contacted.
+     */
+    public CircuitOpenException(String message, String url) {
+        super(message, url);
+    }
+}
@@ -0,0 +1,204 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSource;
+import okio.GzipSink;
+import okio.GzipSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Negotiates gzip compression of request and response bodies and records the saved traffic.
+ * <ul>
+ *   <li>Responses are requested with <tt>Accept-Encoding: gzip</tt> and decompressed while they are read, i.e.,
+ *   large responses are still streamed.</li>
+ *   <li>Request bodies (e.g., assessments with many markers) above a threshold are sent with
+ *   <tt>Content-Encoding: gzip</tt>. If the server rejects them with <tt>415 Unsupported Media Type</tt>, the request
+ *   is repeated uncompressed and further requests to this host are no longer compressed.</li>
+ * </ul>
+ * Installed by the {@link HttpClientFactory} directly before the transport, so that other interceptors (like the
+ * {@link ConditionalRequestCache}) see the uncompressed bodies.
+ *
+ * @author agent
+ *
+ */
+public class CompressionInterceptor implements Interceptor {
+
+    /**
+     * Default minimum size (in bytes) of request bodies, which are compressed.
+     */
+    public static final int DEFAULT_REQUEST_THRESHOLD_BYTES = 16 * 1024;
+
+    private static final String GZIP = "gzip";
+
+    /**
+     * Counts the bytes read from a source.
+     */
+    private static class CountingSource extends ForwardingSource {
+        private final AtomicLong counter;
+
+        /**
+         * Creates a counting source.
+         * @param delegate The source to read from.
+         * @param counter Is increased by the number of read bytes.
+         */
+        private CountingSource(Source delegate, AtomicLong counter) {
+            super(delegate);
+            this.counter = counter;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read > 0) {
+                counter.addAndGet(read);
+            }
+            return read;
+        }
+    }
+
+    private volatile int requestThreshold;
+
+    /**
+     * Hosts, which do not accept compressed request bodies.
+     */
+    private final Set<String> uncompressedHosts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong responseWireBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong compressedRequests = new AtomicLong();
+    private final AtomicLong requestWireBytes = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    /**
+     * Creates a new interceptor.
+     * @param requestThreshold The minimum size (in bytes) of request bodies, which are compressed, a negative value
+     *     disables the compression of requests.
+     */
+    public CompressionInterceptor(int requestThreshold) {
+        this.requestThreshold = requestThreshold;
+    }
+
+    /**
+     * Sets the minimum size of request bodies, which are compressed.
+     * @param requestThreshold The minimum size (in bytes), a negative value disables the compression of requests.
+     */
+    public void setRequestThreshold(int requestThreshold) {
+        this.requestThreshold = requestThreshold;
+    }
+
+    /**
+     * Returns the statistics of all requests and responses, which were compressed so far.
+     * @return The current statistics.
+     */
+    public CompressionStatistics getStatistics() {
+        return new CompressionStatistics(compressedResponses.get(), responseWireBytes.get(), responseBytes.get(),
+            compressedRequests.get(), requestWireBytes.get(), requestBytes.get());
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        // Only decompress if the caller did not negotiate an encoding on its own
+        boolean negotiate = null == request.header("Accept-Encoding");
+        Request.Builder builder = request.newBuilder();
+        if (negotiate) {
+            builder.header("Accept-Encoding", GZIP);
+        }
+        long uncompressedLength = compress(request, builder);
+
+        Request sent = builder.build();
+        Response response = chain.proceed(sent);
+        if (uncompressedLength >= 0 && response.code() == 415) {
+            // Server does not support compressed requests
+            uncompressedHosts.add(request.url().getHost());
+            response.body().close();
+            Request.Builder retry = request.newBuilder();
+            if (negotiate) {
+                retry.header("Accept-Encoding", GZIP);
+            }
+            response = chain.proceed(retry.build());
+        } else if (uncompressedLength >= 0) {
+            compressedRequests.incrementAndGet();
+            requestBytes.addAndGet(uncompressedLength);
+            requestWireBytes.addAndGet(sent.body().contentLength());
+        }
+        if (negotiate && GZIP.equalsIgnoreCase(response.header("Content-Encoding"))) {
+            response = decompress(request, response);
+        }
+
+        return response;
+    }
+
+    /**
+     * Compresses the request body if it exceeds the threshold.
+     * @param request The original request.
+     * @param builder The builder of the request to send, will be changed if the body is compressed.
+     * @return The uncompressed size of the body, or <tt>-1</tt> if the body was not compressed.
+     * @throws IOException If the body cannot be written.
+     */
+    private long compress(Request request, Request.Builder builder) throws IOException {
+        RequestBody body = request.body();
+        long length = -1;
+        if (isCompressible(request) && null == request.header("Content-Encoding")
+            && !uncompressedHosts.contains(request.url().getHost())) {
+
+            Buffer compressed = new Buffer();
+            try (BufferedSink sink = Okio.buffer(new GzipSink(compressed))) {
+                body.writeTo(sink);
+            }
+            length = body.contentLength();
+            builder.header("Content-Encoding", GZIP)
+                .method(request.method(), RequestBody.create(body.contentType(), compressed.readByteString()));
+        }
+
+        return length;
+    }
+
+    /**
+     * Checks if the request has a body, which exceeds the threshold for compression.
+     * @param request The request to check.
+     * @return <tt>true</tt> if the body is large enough to be compressed.
+     * @throws IOException If the size of the body cannot be determined.
+     */
+    private boolean isCompressible(Request request) throws IOException {
+        int threshold = requestThreshold;
+        return threshold >= 0 && null != request.body() && request.body().contentLength() >= threshold;
+    }
+
+    /**
+     * Replaces the compressed body of the response by a body, which is decompressed while it is read.
+     * @param request The sent request.
+     * @param response The compressed response.
+     * @return The response with decompressed body.
+     * @throws IOException If the body cannot be accessed.
+     */
+    private Response decompress(Request request, Response response) throws IOException {
+        Response.Builder builder = response.newBuilder()
+            .removeHeader("Content-Encoding")
+            .removeHeader("Content-Length");
+        // Responses to HEAD requests, 204, and 304 do not have a body
+        if (!"HEAD".equals(request.method()) && response.code() != 204 && response.code() != 304) {
+            compressedResponses.incrementAndGet();
+            ResponseBody body = response.body();
+            Source wire = new CountingSource(body.source(), responseWireBytes);
+            Source decompressed = new CountingSource(new GzipSource(wire), responseBytes);
+            builder.body(ResponseBody.create(body.contentType(), -1, Okio.buffer(decompressed)));
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,112 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+/**
+ * Immutable statistics of a {@link CompressionInterceptor} at a certain time, allows to check how much traffic is
+ * saved by gzip compression of request and response bodies.
+ *
+ * @author agent
+ *
+ */
+public class CompressionStatistics {
+
+    private final long compressedResponseCount;
+    private final long responseWireBytes;
+    private final long responseBytes;
+    private final long compressedRequestCount;
+    private final long requestWireBytes;
+    private final long requestBytes;
+
+    /**
+     * Creates a new statistics record.
+     * @param compressedResponseCount The number of responses, which were sent compressed by the server.
+     * @param responseWireBytes The number of compressed bytes received for these responses (so far read).
+     * @param responseBytes The number of decompressed bytes of these responses (so far read).
+     * @param compressedRequestCount The number of requests, which were sent compressed to the server.
+     * @param requestWireBytes The number of compressed bytes sent for these requests.
+     * @param requestBytes The number of uncompressed bytes of these requests.
+     */
+    //checkstyle: stop parameter number check
+    CompressionStatistics(long compressedResponseCount, long responseWireBytes, long responseBytes,
+        long compressedRequestCount, long requestWireBytes, long requestBytes) {
+    //checkstyle: resume parameter number check
+
+        this.compressedResponseCount = compressedResponseCount;
+        this.responseWireBytes = responseWireBytes;
+        this.responseBytes = responseBytes;
+        this.compressedRequestCount = compressedRequestCount;
+        this.requestWireBytes = requestWireBytes;
+        this.requestBytes = requestBytes;
+    }
+
+    /**
+     * Returns the number of responses, which were sent compressed by the server.
+     * @return The number of compressed responses.
+     */
+    public long getCompressedResponseCount() {
+        return compressedResponseCount;
+    }
+
+    /**
+     * Returns the number of compressed bytes received for compressed responses.
+     * @return The number of received bytes of compressed responses.
+     */
+    public long getResponseWireBytes() {
+        return responseWireBytes;
+    }
+
+    /**
+     * Returns the number of bytes of compressed responses after decompression.
+     * @return The number of decompressed bytes.
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * Returns the number of requests, which were sent compressed to the server.
+     * @return The number of compressed requests.
+     */
+    public long getCompressedRequestCount() {
+        return compressedRequestCount;
+    }
+
+    /**
+     * Returns the number of compressed bytes sent for compressed requests.
+     * @return The number of sent bytes of compressed requests.
+     */
+    public long getRequestWireBytes() {
+        return requestWireBytes;
+    }
+
+    /**
+     * Returns the number of bytes of compressed requests before compression.
+     * @return The number of uncompressed bytes.
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Returns the compression ratio of all compressed requests and responses.
+     * @return The ratio of transferred bytes to uncompressed bytes, <tt>1</tt> if nothing was compressed yet.
+     */
+    public double getCompressionRatio() {
+        long uncompressed = responseBytes + requestBytes;
+        return uncompressed == 0 ? 1.0 : (double) (responseWireBytes + requestWireBytes) / uncompressed;
+    }
+
+    /**
+     * Returns the number of bytes, which were not transferred because of compression.
+     * @return The number of saved bytes, may be negative if data was not compressible.
+     */
+    public long getBytesSaved() {
+        return (responseBytes - responseWireBytes) + (requestBytes - requestWireBytes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("compressedResponses=%d (%d -> %d bytes), compressedRequests=%d (%d -> %d bytes), "
+            + "ratio=%.2f, saved=%d bytes", compressedResponseCount, responseBytes, responseWireBytes,
+            compressedRequestCount, requestBytes, requestWireBytes, getCompressionRatio(), getBytesSaved());
+    }
+}
@@ -0,0 +1,334 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+/**
+ * HTTP-level cache for GET responses of the <b>student management system</b>, which revalidates stored responses with
+ * <tt>If-None-Match</tt> / <tt>If-Modified-Since</tt>. Each request is still sent to the server, but unchanged data
+ * is answered with <tt>304 Not Modified</tt> and the stored body is used instead.
+ * Responses are stored per URL and user, since the result depends on the rights of the user. The user is the subject
+ * of the bearer token (JSON Web Token), so that proactively refreshed tokens of the same user still use the stored
+ * responses; the server authorizes each request with the actual token anyway. For other tokens, the whole
+ * <tt>Authorization</tt> header identifies the user.
+ * Only responses providing an <tt>ETag</tt> or <tt>Last-Modified</tt> header are stored. The cache is limited by the
+ * total size of the stored bodies.<br/>
+ * Further, deserialized object graphs of revalidated responses may be shared, see
+ * {@link CachingApiClient#shareObjectGraphs(Type...)}.
+ *
+ * @author agent
+ *
+ */
+public class ConditionalRequestCache implements Interceptor {
+
+    /**
+     * Default maximum size (in bytes) of all stored response bodies together.
+     */
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Default maximum size (in bytes) of a stored response body, larger bodies are not stored.
+     */
+    public static final int DEFAULT_MAX_BODY_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Header added to responses, which belong to a stored response. The value identifies the stored response.
+     */
+    static final String ENTRY_HEADER = "X-Protocol-Cache-Entry";
+
+    private static final ConditionalRequestCache DEFAULT_CACHE
+        = new ConditionalRequestCache(DEFAULT_MAX_TOTAL_BYTES, DEFAULT_MAX_BODY_BYTES);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final AtomicLong ENTRY_IDS = new AtomicLong();
+
+    /**
+     * A stored response and its validators.
+     */
+    private static class StoredResponse {
+        private final long id = ENTRY_IDS.incrementAndGet();
+        private final String etag;
+        private final String lastModified;
+        private final MediaType contentType;
+        private final byte[] body;
+        private final Map<Type, Object> graphs = new ConcurrentHashMap<>();
+
+        /**
+         * Creates a new entry.
+         * @param etag The <tt>ETag</tt> header of the response, may be <tt>null</tt>.
+         * @param lastModified The <tt>Last-Modified</tt> header of the response, may be <tt>null</tt>.
+         * @param contentType The content type of the body.
+         * @param body The body of the response.
+         */
+        private StoredResponse(String etag, String lastModified, MediaType contentType, byte[] body) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+
+    /**
+     * The stored responses in form of (URL + user, response), least recently used first. Guards also
+     * <tt>totalBytes</tt>.
+     */
+    private final Map<String, StoredResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxTotalBytes;
+    private final int maxBodyBytes;
+    private long totalBytes;
+    private final AtomicLong revalidations = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param maxTotalBytes The maximum size of all stored response bodies together (in bytes), least recently used
+     *     responses are removed first.
+     * @param maxBodyBytes The maximum size of a stored response body (in bytes), larger bodies are not stored.
+     */
+    public ConditionalRequestCache(long maxTotalBytes, int maxBodyBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxBodyBytes = (int) Math.min(maxBodyBytes, maxTotalBytes);
+    }
+
+    /**
+     * Returns the process-wide cache, which is used by all {@link CachingApiClient}s by default.
+     * @return The default cache.
+     */
+    public static ConditionalRequestCache getDefault() {
+        return DEFAULT_CACHE;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response;
+        if ("GET".equals(request.method())) {
+            response = revalidate(chain, request);
+        } else {
+            response = chain.proceed(request);
+        }
+
+        return response;
+    }
+
+    /**
+     * Sends the GET request, conditionally if a response is stored, and replaces <tt>304</tt> answers by the stored
+     * response.
+     * @param chain The interceptor chain.
+     * @param request The original request.
+     * @return The response to be used by the client.
+     * @throws IOException If network problems occur.
+     */
+    private Response revalidate(Chain chain, Request request) throws IOException {
+        String key = keyOf(request);
+        StoredResponse entry = lookup(key);
+        Request.Builder conditional = request.newBuilder();
+        if (null != entry && null == request.header("If-None-Match") && null == request.header("If-Modified-Since")) {
+            if (null != entry.etag) {
+                conditional.header("If-None-Match", entry.etag);
+            }
+            if (null != entry.lastModified) {
+                conditional.header("If-Modified-Since", entry.lastModified);
+            }
+        }
+
+        Response networkResponse = chain.proceed(conditional.build());
+        Response response;
+        if (networkResponse.code() == 304 && null != entry) {
+            networkResponse.body().close();
+            revalidations.incrementAndGet();
+            response = networkResponse.newBuilder()
+                .code(200)
+                .message("OK")
+                .header(ENTRY_HEADER, String.valueOf(entry.id))
+                .body(ResponseBody.create(entry.contentType, entry.body))
+                .build();
+        } else if (networkResponse.isSuccessful()) {
+            response = store(key, networkResponse);
+        } else {
+            response = networkResponse;
+        }
+
+        return response;
+    }
+
+    /**
+     * Stores a successful response if it provides validators.
+     * @param key The key of the request.
+     * @param networkResponse The response of the server.
+     * @return The response to be used by the client (the body of the network response is consumed if it is stored).
+     *     Larger bodies are not read completely, so that they can still be streamed by the client.
+     * @throws IOException If the body cannot be read.
+     */
+    private Response store(String key, Response networkResponse) throws IOException {
+        String etag = networkResponse.header("ETag");
+        String lastModified = networkResponse.header("Last-Modified");
+        ResponseBody body = networkResponse.body();
+        Response response = networkResponse;
+        synchronized (entries) {
+            remove(key);
+        }
+        // Content length may be unknown (-1) -> buffer at most one byte more than allowed to check the size
+        if ((null != etag || null != lastModified) && body.contentLength() <= maxBodyBytes
+            && !body.source().request(maxBodyBytes + 1L)) {
+            
+            byte[] content = body.bytes();
+            StoredResponse entry = new StoredResponse(etag, lastModified, body.contentType(), content);
+            synchronized (entries) {
+                remove(key);
+                entries.put(key, entry);
+                totalBytes += content.length;
+                evict();
+            }
+            response = networkResponse.newBuilder()
+                .body(ResponseBody.create(body.contentType(), content))
+                .header(ENTRY_HEADER, String.valueOf(entry.id))
+                .build();
+        }
+        // Otherwise, the (partially buffered) body is streamed to the client
+
+        return response;
+    }
+
+    /**
+     * Removes a stored response. Must be called while holding the lock of <tt>entries</tt>.
+     * @param key The key of the request.
+     */
+    private void remove(String key) {
+        StoredResponse removed = entries.remove(key);
+        if (null != removed) {
+            totalBytes -= removed.body.length;
+        }
+    }
+
+    /**
+     * Removes the least recently used responses until the stored bodies fit into the maximum total size. Must be
+     * called while holding the lock of <tt>entries</tt>.
+     */
+    private void evict() {
+        Iterator<StoredResponse> eldest = entries.values().iterator();
+        while (totalBytes > maxTotalBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().body.length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Returns the stored response for the given key.
+     * @param key The key of the request.
+     * @return The stored response or <tt>null</tt>.
+     */
+    private StoredResponse lookup(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    /**
+     * Returns the stored response to which the given response belongs.
+     * @param response A response returned by this cache.
+     * @return The stored response or <tt>null</tt> if the response was not stored or was replaced in the meantime.
+     */
+    private StoredResponse entryOf(Response response) {
+        StoredResponse entry = null;
+        String id = response.header(ENTRY_HEADER);
+        if (null != id) {
+            entry = lookup(keyOf(response.request()));
+            if (null != entry && !id.equals(String.valueOf(entry.id))) {
+                entry = null;
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Returns an object graph, which was deserialized from the same stored response before.
+     * @param <T> The type of the object graph.
+     * @param response A response returned by this cache.
+     * @param type The type to deserialize.
+     * @return The previously deserialized object graph or <tt>null</tt> if it is not available.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getObjectGraph(Response response, Type type) {
+        StoredResponse entry = entryOf(response);
+        return null != entry ? (T) entry.graphs.get(type) : null;
+    }
+
+    /**
+     * Stores a deserialized object graph of a stored response, to be returned again as long as the server confirms
+     * that the response was not modified.
+     * @param response A response returned by this cache.
+     * @param type The deserialized type.
+     * @param graph The deserialized object graph, <tt>null</tt> won't be stored.
+     */
+    void putObjectGraph(Response response, Type type, Object graph) {
+        StoredResponse entry = entryOf(response);
+        if (null != entry && null != graph) {
+            entry.graphs.put(type, graph);
+        }
+    }
+
+    /**
+     * Computes the key of a request.
+     * @param request The request.
+     * @return The URL and the user of the request: The subject of a bearer token or, if it is not available, the
+     *     <tt>Authorization</tt> header.
+     */
+    private static String keyOf(Request request) {
+        String authorization = request.header("Authorization");
+        String subject = null != authorization && authorization.startsWith(BEARER_PREFIX)
+            ? TokenUtils.getSubject(authorization.substring(BEARER_PREFIX.length())) : null;
+        return request.urlString() + " " + (null != subject ? "sub=" + subject : authorization);
+    }
+
+    /**
+     * Returns the number of responses, which were answered with <tt>304 Not Modified</tt> and replaced by a stored
+     * response.
+     * @return The number of successful revalidations.
+     */
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * Returns the number of stored responses.
+     * @return The number of stored responses.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the total size of the stored response bodies.
+     * @return The size in bytes.
+     */
+    public long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    /**
+     * Removes all stored responses.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time budget of a complete operation, which consists of multiple requests (e.g., a run of the submission hook with
+ * login, course ID, assignments, groups, and assessment upload). The deadline is activated for the current thread
+ * and honored by all protocol calls of this thread:
+ * <ul>
+ *   <li>The timeout of each request is limited to the remaining time.</li>
+ *   <li>Calls fail fast with a {@link DeadlineExceededException} if no time remains.</li>
+ *   <li>Asynchronous requests inherit the deadline of the thread, which started them.</li>
+ * </ul>
+ * Usage:
+ * <pre><code> try (Deadline.Scope scope = Deadline.after(30, TimeUnit.SECONDS).activate()) {
+ *     protocol.login(user, password);
+ *     ...
+ * }</code></pre>
+ *
+ * @author agent
+ *
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the previous deadline of the thread when it is closed.
+     *
+     * @author agent
+     *
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        /**
+         * Creates a new scope.
+         * @param previous The deadline, which was active before, may be <tt>null</tt>.
+         */
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (null != previous) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private final long expiresAtNanos;
+
+    /**
+     * Creates a new deadline.
+     * @param expiresAtNanos The point in time (compatible to {@link System#nanoTime()}) when the deadline expires.
+     */
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Creates a deadline, which expires after the specified time from now on.
+     * @param duration The time budget.
+     * @param unit The unit of <tt>duration</tt>.
+     * @return The new (not activated) deadline.
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * Returns the deadline of the current thread.
+     * @return The active deadline or <tt>null</tt> if the current operation has no time limit.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Activates this deadline for the current thread until the returned scope is closed. If a shorter deadline is
+     * already active, the shorter deadline stays active, i.e., nested operations cannot extend the time budget.
+     * @return The scope to be closed at the end of the operation.
+     */
+    public Scope activate() {
+        Deadline previous = CURRENT.get();
+        if (null == previous || expiresAtNanos - previous.expiresAtNanos < 0) {
+            CURRENT.set(this);
+        }
+
+        return new Scope(previous);
+    }
+
+    /**
+     * Returns the remaining time of this deadline.
+     * @param unit The unit in which the result shall be returned.
+     * @return The remaining time, <tt>0</tt> if the deadline is exceeded.
+     */
+    public long getRemaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, expiresAtNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks if this deadline is exceeded.
+     * @return <tt>true</tt> if no time remains.
+     */
+    public boolean isExceeded() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Checks if the deadline of the current thread is exceeded.
+     * @return <tt>true</tt> if a deadline is active and exceeded, <tt>false</tt> otherwise.
+     */
+    static boolean isCurrentExceeded() {
+        Deadline deadline = CURRENT.get();
+        return null != deadline && deadline.isExceeded();
+    }
+
+    /**
+     * Fails fast if the deadline of the current thread is exceeded.
+     * @param url The URL of the server, which should have been contacted.
+     * @throws DeadlineExceededException If a deadline is active and exceeded.
+     */
+    public static void check(String url) throws DeadlineExceededException {
+        if (isCurrentExceeded()) {
+            throw new DeadlineExceededException("Deadline of the operation exceeded", url);
+        }
+    }
+
+    /**
+     * Returns the timeout for the next request, derived from the deadline of the current thread.
+     * @return The remaining time in milliseconds (at least <tt>1</tt>), or <tt>0</tt> if no deadline is active.
+     * @throws SocketTimeoutException If the deadline is exceeded, so the request should not be sent.
+     */
+    static long requestTimeoutMillis() throws SocketTimeoutException {
+        Deadline deadline = CURRENT.get();
+        long timeout = 0;
+        if (null != deadline) {
+            if (deadline.isExceeded()) {
+                throw new SocketTimeoutException("Deadline of the operation exceeded");
+            }
+            timeout = Math.max(1, deadline.getRemaining(TimeUnit.MILLISECONDS));
+        }
+
+        return timeout;
+    }
+}
@@ -0,0 +1,25 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+/**
+ * Declares an exception for the case, that the time budget of an operation is exhausted, see {@link Deadline}.
+ * This is a {@link ServerNotFoundException}, since the server could not answer in time.
+ *
+ * @author agent
+ *
+ */
+public class DeadlineExceededException extends ServerNotFoundException {
+
+    /**
+     * Generated id.
+     */
+    private static final long serialVersionUID = -3101664807046212711L;
+
+    /**
+     * An exception that occurs if the deadline of an operation is exceeded.
+     * @param message the error message that occurred.
+     * @param url the url of the REST server, which should have been contacted.
+     */
+    public DeadlineExceededException(String message, String url) {
+        super(message, url);
+    }
+}
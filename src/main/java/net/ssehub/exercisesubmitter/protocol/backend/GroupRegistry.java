@@ -0,0 +1,192 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+import net.ssehub.studentmgmt.backend_api.model.GroupDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
+
+/**
+ * Stores the registered groups of assignments, indexed by group name and by the user names of their members.
+ * The groups of an assignment are downloaded with one request per time to live, lookups are answered locally.
+ * If a group or member is not known, the groups of the assignment are refreshed, but at most once per
+ * {@link #setMissRefreshInterval(long, TimeUnit) miss refresh interval}.
+ * Instances must not be shared between different users, since the visible groups depend on the rights of the user.
+ *
+ * @author agent
+ *
+ */
+public class GroupRegistry {
+
+    /**
+     * Default time to live (in seconds) of the downloaded groups.
+     */
+    public static final long DEFAULT_TTL_SECONDS = 120;
+
+    /**
+     * Default minimum age (in seconds) of the downloaded groups, before an unknown group triggers a refresh.
+     */
+    public static final long DEFAULT_MISS_REFRESH_SECONDS = 10;
+
+    /**
+     * Immutable index of all groups of an assignment at a certain time.
+     */
+    private static class Snapshot extends IndexedSnapshotCache.Snapshot {
+        private final List<GroupDto> groups;
+        private final Map<String, GroupDto> byName = new HashMap<>();
+        private final Map<String, GroupDto> byMember = new HashMap<>();
+
+        /**
+         * Indexes the specified groups.
+         * @param groups The groups as downloaded from the server, may be <tt>null</tt>.
+         * @param timestamp The time the groups were downloaded (in milliseconds).
+         */
+        private Snapshot(List<GroupDto> groups, long timestamp) {
+            super(timestamp);
+            List<GroupDto> all = new ArrayList<>();
+            if (null != groups) {
+                for (GroupDto group : groups) {
+                    all.add(group);
+                    byName.put(group.getName(), group);
+                    if (null != group.getMembers()) {
+                        for (ParticipantDto member : group.getMembers()) {
+                            byMember.put(member.getUsername(), group);
+                        }
+                    }
+                }
+            }
+            this.groups = Collections.unmodifiableList(all);
+        }
+    }
+
+    /**
+     * The groups in form of ((courseID, assignmentID), indexed groups of the assignment).
+     */
+    private final IndexedSnapshotCache<CacheKey, GroupDto, Snapshot> registry;
+
+    /**
+     * Creates a new and empty registry.
+     */
+    GroupRegistry() {
+        registry = new IndexedSnapshotCache<>(DEFAULT_TTL_SECONDS, DEFAULT_MISS_REFRESH_SECONDS, Snapshot::new);
+    }
+
+    /**
+     * Returns all registered groups of the assignment.
+     * @param courseId The ID of the course.
+     * @param assignmentId The ID of the assignment.
+     * @param loader Downloads all groups of the assignment, will only be used if they are not cached.
+     * @return The groups in the order of the server (will never be <tt>null</tt>).
+     * @throws NetworkException If the groups need to be downloaded and network problems occur.
+     */
+    List<GroupDto> getGroups(String courseId, String assignmentId, Loader<List<GroupDto>> loader)
+        throws NetworkException {
+
+        CacheKey key = CacheKey.of(courseId, assignmentId);
+        return new ArrayList<>(registry.get(key, loader).groups);
+    }
+
+    /**
+     * Returns the group with the specified name.
+     * @param courseId The ID of the course.
+     * @param assignmentId The ID of the assignment.
+     * @param groupName The name of the group.
+     * @param loader Downloads all groups of the assignment, will only be used if they are not cached or the group
+     *     is unknown.
+     * @return The group or <tt>null</tt> if no group with the specified name is registered for the assignment.
+     * @throws NetworkException If the groups need to be downloaded and network problems occur.
+     */
+    GroupDto getGroupByName(String courseId, String assignmentId, String groupName, Loader<List<GroupDto>> loader)
+        throws NetworkException {
+
+        return registry.lookup(CacheKey.of(courseId, assignmentId), loader, s -> s.byName.get(groupName));
+    }
+
+    /**
+     * Returns the group of the specified member.
+     * @param courseId The ID of the course.
+     * @param assignmentId The ID of the assignment.
+     * @param userName The user name (RZ name) of the member.
+     * @param loader Downloads all groups of the assignment, will only be used if they are not cached or the member
+     *     is unknown.
+     * @return The group or <tt>null</tt> if the user is not member of a group registered for the assignment.
+     * @throws NetworkException If the groups need to be downloaded and network problems occur.
+     */
+    GroupDto getGroupOfMember(String courseId, String assignmentId, String userName, Loader<List<GroupDto>> loader)
+        throws NetworkException {
+
+        return registry.lookup(CacheKey.of(courseId, assignmentId), loader, s -> s.byMember.get(userName));
+    }
+
+    /**
+     * Restores previously downloaded groups, e.g., from a {@link SnapshotStore}.
+     * @param courseId The ID of the course.
+     * @param assignmentId The ID of the assignment.
+     * @param groups The groups as retrieved by the REST server.
+     * @param timestamp The time the groups were downloaded (in milliseconds), the time to live is applied relative
+     *     to this time.
+     */
+    void seed(String courseId, String assignmentId, List<GroupDto> groups, long timestamp) {
+        registry.seed(CacheKey.of(courseId, assignmentId), groups, timestamp);
+    }
+
+    /**
+     * Removes the downloaded groups of all assignments, they will be downloaded again at the next access.
+     */
+    public void invalidate() {
+        registry.invalidate();
+    }
+
+    /**
+     * Returns the current generation of the groups of an assignment, which changes each time the groups of this
+     * assignment are downloaded again or invalidated. Allows callers to detect that results derived from the groups
+     * (e.g., unsuccessful lookups) may be outdated.
+     * @param courseId The ID of the course.
+     * @param assignmentId The ID of the assignment.
+     * @return The current generation.
+     */
+    public long getGeneration(String courseId, String assignmentId) {
+        return registry.getGeneration(CacheKey.of(courseId, assignmentId));
+    }
+
+    /**
+     * Changes the time to live of the downloaded groups.
+     * @param ttl The time after which the groups will be downloaded again.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    public void setTimeToLive(long ttl, TimeUnit unit) {
+        registry.setTimeToLive(ttl, unit);
+    }
+
+    /**
+     * Limits the number of assignments, for which the groups are stored.
+     * @param maxSize The maximum number of assignments.
+     * @param policy Selects the assignments to remove, if the maximum size is exceeded.
+     */
+    public void setMaximumSize(int maxSize, ProtocolCache.EvictionPolicy policy) {
+        registry.setMaximumSize(maxSize, policy);
+    }
+
+    /**
+     * Returns the statistics about the usage of the downloaded groups.
+     * @return The current statistics.
+     */
+    public CacheStatistics getStatistics() {
+        return registry.getStatistics();
+    }
+
+    /**
+     * Changes the minimum age of the downloaded groups, before a lookup of an unknown group or member triggers a
+     * refresh.
+     * @param interval The minimum age, <tt>0</tt> refreshes the groups at each unsuccessful lookup.
+     * @param unit The unit of <tt>interval</tt>.
+     */
+    public void setMissRefreshInterval(long interval, TimeUnit unit) {
+        registry.setMissRefreshInterval(interval, unit);
+    }
+}
@@ -0,0 +1,323 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Cuts the tail latency of idempotent reads (<tt>GET</tt> and <tt>HEAD</tt>) caused by occasionally slow replicas
+ * of the server: If a request is not answered within a percentile of the recently observed latencies, a second
+ * identical request is sent. The first response wins, the other request is cancelled (or its response is discarded
+ * if the {@link Transport} does not support cancellation). The number of hedged requests is limited by the budget of
+ * the {@link HedgingPolicy}.<br/>
+ * Hedging is opt-in and disabled as long as no policy is set. Both requests inherit the {@link Deadline} and the
+ * {@link TrafficClass} of the calling thread.
+ *
+ * @author agent
+ *
+ */
+public class HedgingInterceptor implements Interceptor {
+
+    /**
+     * Minimum number of observed latencies before the percentile is used instead of the initial delay.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * Number of recent latencies, which are considered.
+     */
+    private static final int WINDOW_SIZE = 128;
+
+    /**
+     * Maximum number of unused hedges, which may be saved for a burst of slow requests.
+     */
+    private static final double MAX_CREDITS = 10;
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD");
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Executes the requests, while the calling thread waits for the first response.
+     */
+    private static final ExecutorService HEDGE_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "protocol-hedge-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Tags the requests of a hedged call, so that the loser can be cancelled.
+     */
+    private static class HedgeTag {
+        private volatile boolean cancelled;
+    }
+
+    private final Transport transport;
+    private volatile HedgingPolicy policy;
+
+    /**
+     * The recent latencies (in nanoseconds) as ring buffer.
+     */
+    private final long[] latencies = new long[WINDOW_SIZE];
+    private int samples;
+    private int nextSample;
+    private double credits;
+
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * Creates a new (disabled) interceptor.
+     * @param transport The transport, which sends the requests, used to cancel the loser.
+     */
+    public HedgingInterceptor(Transport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Enables or disables hedging.
+     * @param policy The policy to use, <tt>null</tt> disables hedging.
+     */
+    public void setPolicy(HedgingPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Returns the used policy.
+     * @return The policy or <tt>null</tt> if hedging is disabled.
+     */
+    public HedgingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the number of requests, for which a second request was sent.
+     * @return The number of hedged requests.
+     */
+    public long getNumberOfHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    /**
+     * Returns the number of hedged requests, which were answered first by the second request.
+     * @return The number of requests, which were accelerated by hedging.
+     */
+    public long getNumberOfHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * Checks if the request was cancelled, because the other request of a hedged call won.
+     * Failures of cancelled requests must neither be retried nor counted as failures of the server.
+     * @param request A request, which is currently executed.
+     * @return <tt>true</tt> if the request is the cancelled loser of a hedged call.
+     */
+    static boolean isCancelled(Request request) {
+        return request.tag() instanceof HedgeTag && ((HedgeTag) request.tag()).cancelled;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        HedgingPolicy currentPolicy = policy;
+        Response response;
+        if (null != currentPolicy && IDEMPOTENT_METHODS.contains(request.method())) {
+            response = hedge(chain, request, currentPolicy);
+        } else {
+            response = chain.proceed(request);
+        }
+
+        return response;
+    }
+
+    /**
+     * Sends the request and a second identical request if the first one is not answered in time.
+     * @param chain The chain to proceed.
+     * @param request The request to send.
+     * @param currentPolicy The hedging policy.
+     * @return The first response.
+     * @throws IOException If both requests failed.
+     */
+    private Response hedge(Chain chain, Request request, HedgingPolicy currentPolicy) throws IOException {
+        long start = System.nanoTime();
+        long delay = earnCredit(currentPolicy);
+        Request primary = request.newBuilder().tag(new HedgeTag()).build();
+        CompletableFuture<Response> primaryCall = send(chain, primary);
+        Response response;
+        try {
+            response = await(primaryCall, delay);
+            if (null == response && spendCredit()) {
+                hedgedRequests.incrementAndGet();
+                Request secondary = request.newBuilder().tag(new HedgeTag()).build();
+                CompletableFuture<Response> secondaryCall = send(chain, secondary);
+                CompletableFuture<Response> winner = new CompletableFuture<>();
+                AtomicInteger failures = new AtomicInteger();
+                primaryCall.whenComplete((r, e) -> settle(winner, r, e, failures, secondary));
+                secondaryCall.whenComplete((r, e) -> settle(winner, r, e, failures, primary));
+                response = await(winner, 0);
+                if (response == secondaryCall.getNow(null)) {
+                    hedgeWins.incrementAndGet();
+                }
+            } else if (null == response) {
+                response = await(primaryCall, 0);
+            }
+        } finally {
+            // Failed calls (e.g., timeouts of a slow server) are sampled as well, otherwise they would lower the delay
+            recordLatency(System.nanoTime() - start);
+        }
+
+        return response;
+    }
+
+    /**
+     * Completes the hedged call with the first response and cancels the other request.
+     * @param winner The result of the hedged call.
+     * @param response The response of one request, <tt>null</tt> if it failed.
+     * @param exc The failure of the request, <tt>null</tt> if it was answered.
+     * @param failures Counts the failed requests, the call fails if both requests failed.
+     * @param other The other request of the hedged call.
+     */
+    private void settle(CompletableFuture<Response> winner, Response response, Throwable exc,
+        AtomicInteger failures, Request other) {
+
+        if (null != exc) {
+            if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(exc);
+            }
+        } else if (winner.complete(response)) {
+            ((HedgeTag) other.tag()).cancelled = true;
+            transport.cancel(other);
+        } else {
+            // Loser was answered anyway (transport does not support cancellation)
+            closeQuietly(response);
+        }
+    }
+
+    /**
+     * Sends the request in a separate thread, which inherits the {@link Deadline} and {@link TrafficClass} of the
+     * calling thread.
+     * @param chain The chain to proceed.
+     * @param request The request to send.
+     * @return The future response.
+     */
+    private static CompletableFuture<Response> send(Chain chain, Request request) {
+        Deadline deadline = Deadline.current();
+        TrafficClass trafficClass = TrafficClass.current();
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        //checkstyle: stop exception type check: Exceptions must be passed to the waiting thread
+        HEDGE_EXECUTOR.execute(() -> {
+            try (Deadline.Scope scope = null != deadline ? deadline.activate() : null;
+                TrafficClass.Scope classScope = trafficClass.activate()) {
+                result.complete(chain.proceed(request));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        //checkstyle: resume exception type check
+
+        return result;
+    }
+
+    /**
+     * Waits for a response.
+     * @param call The future response.
+     * @param timeoutMillis The maximum time to wait, <tt>0</tt> to wait until the request is completed (the request
+     *     itself is limited by its timeout).
+     * @return The response or <tt>null</tt> if the request was not answered within the timeout.
+     * @throws IOException If the request failed or the thread was interrupted.
+     */
+    private static Response await(CompletableFuture<Response> call, long timeoutMillis) throws IOException {
+        Response response = null;
+        try {
+            response = timeoutMillis > 0 ? call.get(timeoutMillis, TimeUnit.MILLISECONDS) : call.get();
+        } catch (TimeoutException e) {
+            // Not answered in time -> hedge
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+
+        return response;
+    }
+
+    /**
+     * Adds the budget of one request to the credits and computes the delay, after which the request is hedged.
+     * @param currentPolicy The hedging policy.
+     * @return The delay in milliseconds (at least <tt>1</tt>).
+     */
+    private synchronized long earnCredit(HedgingPolicy currentPolicy) {
+        credits = Math.min(MAX_CREDITS, credits + currentPolicy.getBudget());
+        long delay;
+        if (samples < MIN_SAMPLES) {
+            delay = currentPolicy.getInitialDelayMillis();
+        } else {
+            long[] sorted = Arrays.copyOf(latencies, Math.min(samples, WINDOW_SIZE));
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(currentPolicy.getPercentile() * sorted.length) - 1;
+            delay = TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+        }
+
+        return Math.max(1, delay);
+    }
+
+    /**
+     * Uses a credit for a second request.
+     * @return <tt>true</tt> if the budget allows a second request.
+     */
+    private synchronized boolean spendCredit() {
+        boolean allowed = credits >= 1;
+        if (allowed) {
+            credits -= 1;
+        }
+        return allowed;
+    }
+
+    /**
+     * Records the latency of a (hedged) call.
+     * @param latencyNanos The time until the first response was received or the call failed.
+     */
+    private synchronized void recordLatency(long latencyNanos) {
+        latencies[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+        samples++;
+    }
+
+    /**
+     * Returns the number of observed latencies, including those of failed calls.
+     * @return The number of recorded latencies since creation.
+     */
+    synchronized int getNumberOfSamples() {
+        return samples;
+    }
+
+    /**
+     * Closes the body of a discarded response.
+     * @param response The response to discard.
+     */
+    private static void closeQuietly(Response response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // Discarded anyway
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration of hedged requests, see {@link HedgingInterceptor}: If an idempotent read is not answered within the
+ * specified percentile of the recently observed latencies, a second identical request is sent. The budget limits the
+ * additional requests relative to all requests, so that hedging cannot double the load of the server.
+ *
+ * @author agent
+ *
+ */
+public final class HedgingPolicy {
+
+    /**
+     * Default percentile of the recent latencies, after which a request is hedged.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.95;
+
+    /**
+     * Default fraction of hedged requests.
+     */
+    public static final double DEFAULT_BUDGET = 0.1;
+
+    /**
+     * Default delay (in milliseconds) before a request is hedged as long as too few latencies were observed.
+     */
+    public static final long DEFAULT_INITIAL_DELAY_MILLIS = 500;
+
+    private final double percentile;
+    private final double budget;
+    private final long initialDelayMillis;
+
+    /**
+     * Creates a new policy.
+     * @param percentile The percentile (between <tt>0</tt> and <tt>1</tt>) of the recently observed latencies, after
+     *     which a second request is sent, e.g., <tt>0.95</tt> to hedge the slowest 5% of the requests.
+     * @param budget The maximum fraction (between <tt>0</tt> and <tt>1</tt>) of requests, which may be hedged, e.g.,
+     *     <tt>0.1</tt> to cause at most 10% additional requests.
+     * @param initialDelay The delay before a request is hedged as long as too few latencies were observed.
+     * @param unit The unit of <tt>initialDelay</tt>.
+     */
+    public HedgingPolicy(double percentile, double budget, long initialDelay, TimeUnit unit) {
+        if (percentile <= 0 || percentile > 1 || budget < 0 || budget > 1) {
+            throw new IllegalArgumentException("Percentile and budget must be between 0 and 1");
+        }
+        this.percentile = percentile;
+        this.budget = budget;
+        this.initialDelayMillis = unit.toMillis(initialDelay);
+    }
+
+    /**
+     * Returns the default policy, which hedges the slowest 5% of the requests with a budget of 10%.
+     * @return A policy with default settings.
+     */
+    public static HedgingPolicy defaultPolicy() {
+        return new HedgingPolicy(DEFAULT_PERCENTILE, DEFAULT_BUDGET, DEFAULT_INITIAL_DELAY_MILLIS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the percentile of the recent latencies, after which a request is hedged.
+     * @return A value between <tt>0</tt> (exclusive) and <tt>1</tt>.
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Returns the maximum fraction of requests, which may be hedged.
+     * @return A value between <tt>0</tt> and <tt>1</tt>.
+     */
+    public double getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the delay before a request is hedged as long as too few latencies were observed.
+     * @return The delay in milliseconds.
+     */
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy [percentile=" + percentile + ", budget=" + budget + ", initialDelayMillis="
+            + initialDelayMillis + "]";
+    }
+}
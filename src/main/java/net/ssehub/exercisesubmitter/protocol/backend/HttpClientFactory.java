@@ -0,0 +1,317 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Dispatcher;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Creates the HTTP clients for all generated APIs (authentication and student management system). All created
+ * clients share one connection pool and one dispatcher, so that connections to the same host are reused by all
+ * components, e.g., a complete login and submission runs over one (kept alive) connection.
+ * Each client has its own interceptors, so components may still add client-specific behavior.<br/>
+ * By default, requests are sent by OkHttp (HTTP/1.1). Alternatively, a {@link Transport} may be selected at
+ * construction, e.g., the {@link JdkHttpTransport} to multiplex concurrent requests over HTTP/2.
+ * The timeout of each request is limited by the {@link Deadline} of the calling thread.
+ * All clients negotiate gzip compression via a shared {@link CompressionInterceptor} and retry transient failures
+ * via a shared {@link RetryInterceptor}, which also maintains the circuit breakers of all contacted servers.
+ * The load per server is limited for each {@link TrafficClass} by a shared {@link TrafficControlInterceptor}.
+ * Connections may be {@link #warmUp(String...) opened in advance}, while the caller still prepares its requests.
+ *
+ * @author agent
+ *
+ */
+public class HttpClientFactory {
+
+    /**
+     * Default maximum number of idle connections kept in the pool.
+     */
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+
+    /**
+     * Default time (in minutes) an idle connection is kept in the pool.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MINUTES = 5;
+
+    /**
+     * Default maximum number of concurrent requests per host.
+     */
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+    /**
+     * Timeout (in seconds) of the requests, which open connections in advance.
+     */
+    public static final long WARM_UP_TIMEOUT_SECONDS = 10;
+
+    private static final Logger LOGGER = LogManager.getLogger(HttpClientFactory.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Opens connections in advance, daemon threads do not delay the termination of short running processes (hooks).
+     */
+    private static final ExecutorService WARM_UP_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "protocol-warm-up-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static volatile HttpClientFactory defaultFactory = new HttpClientFactory(DEFAULT_MAX_IDLE_CONNECTIONS,
+        DEFAULT_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES, DEFAULT_MAX_REQUESTS_PER_HOST);
+
+    private final OkHttpClient template;
+
+    /**
+     * The transport to send the requests.
+     */
+    private final Transport transport;
+
+    /**
+     * Compresses the bodies of all created clients and collects the compression statistics.
+     */
+    private final CompressionInterceptor compression
+        = new CompressionInterceptor(CompressionInterceptor.DEFAULT_REQUEST_THRESHOLD_BYTES);
+
+    /**
+     * Retries transient failures of all created clients and maintains the circuit breakers.
+     */
+    private final RetryInterceptor retry = new RetryInterceptor();
+
+    /**
+     * Limits the rate and concurrency of the requests of all created clients.
+     */
+    private final TrafficControlInterceptor trafficControl = new TrafficControlInterceptor();
+
+    /**
+     * Executes the asynchronous requests of all protocols, which use this factory.
+     */
+    private final ExecutorService asyncExecutor;
+
+    /**
+     * Creates a new factory with its own connection pool and dispatcher, which sends requests via OkHttp.
+     * @param maxIdleConnections The maximum number of idle connections kept in the pool.
+     * @param keepAlive The time an idle connection is kept in the pool.
+     * @param unit The unit of <tt>keepAlive</tt>.
+     * @param maxRequestsPerHost The maximum number of concurrent (asynchronous) requests per host.
+     */
+    public HttpClientFactory(int maxIdleConnections, long keepAlive, TimeUnit unit, int maxRequestsPerHost) {
+        this(maxIdleConnections, keepAlive, unit, maxRequestsPerHost, null);
+    }
+
+    /**
+     * Creates a new factory with its own connection pool and dispatcher, which sends requests via the specified
+     * transport.
+     * @param maxIdleConnections The maximum number of idle connections kept in the pool (only used by OkHttp).
+     * @param keepAlive The time an idle connection is kept in the pool (only used by OkHttp).
+     * @param unit The unit of <tt>keepAlive</tt>.
+     * @param maxRequestsPerHost The maximum number of concurrent (asynchronous) requests per host.
+     * @param transport The transport to send the requests, <tt>null</tt> to send them by OkHttp (via an
+     *     {@link OkHttpTransport} sharing the connection pool of this factory).
+     */
+    public HttpClientFactory(int maxIdleConnections, long keepAlive, TimeUnit unit, int maxRequestsPerHost,
+        Transport transport) {
+        
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        template = new OkHttpClient();
+        template.setConnectionPool(new ConnectionPool(maxIdleConnections, unit.toMillis(keepAlive)));
+        template.setDispatcher(dispatcher);
+        this.transport = null != transport ? transport : new OkHttpTransport(template);
+        asyncExecutor = createAsyncExecutor(dispatcher.getMaxRequestsPerHost(), "protocol-async");
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads for asynchronous (blocking) requests. Further requests are queued,
+     * i.e., the number of threads does not grow with the number of pending requests. Idle threads are terminated,
+     * so that unused pools do not keep threads alive.
+     * @param nThreads The maximum number of threads.
+     * @param name The prefix of the names of the threads.
+     * @return The thread pool.
+     */
+    static ExecutorService createAsyncExecutor(int nThreads, String name) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(nThreads, nThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, name + "-" + THREAD_COUNTER.incrementAndGet());
+                // Pending requests must not prevent the termination of the submitter / reviewer
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the factory, which is used by all protocol components.
+     * @return The default factory.
+     */
+    public static HttpClientFactory getDefault() {
+        return defaultFactory;
+    }
+
+    /**
+     * Replaces the factory, which is used by all protocol components. Affects only components, which are created
+     * afterwards.
+     * @param factory The new default factory.
+     */
+    public static void setDefault(HttpClientFactory factory) {
+        defaultFactory = factory;
+    }
+
+    /**
+     * Creates a new HTTP client, which shares the connection pool and dispatcher of this factory.
+     * @return A new client, which may be passed to <tt>ApiClient.setHttpClient(OkHttpClient)</tt>.
+     */
+    public OkHttpClient newClient() {
+        return newClient(new Interceptor[0]);
+    }
+
+    /**
+     * Creates a new HTTP client, which shares the connection pool and dispatcher of this factory, and which uses the
+     * specified interceptors. The {@link CompressionInterceptor}, the {@link RetryInterceptor}, the
+     * {@link TrafficControlInterceptor}, and the {@link Transport} are added as last interceptors, so further
+     * interceptors must not be added to the returned client.
+     * @param interceptors The interceptors of the new client in the order of their execution.
+     * @return A new client, which may be passed to <tt>ApiClient.setHttpClient(OkHttpClient)</tt>.
+     */
+    public OkHttpClient newClient(Interceptor... interceptors) {
+        OkHttpClient client = template.clone();
+        for (Interceptor interceptor : interceptors) {
+            client.interceptors().add(interceptor);
+        }
+        client.interceptors().add(compression);
+        client.interceptors().add(retry);
+        client.interceptors().add(trafficControl);
+        // Application interceptors may answer without proceeding, this replaces the network stack of the client
+        client.interceptors().add(chain -> transport.execute(chain.request(), Deadline.requestTimeoutMillis()));
+
+        return client;
+    }
+
+    /**
+     * Opens connections to the specified servers in the background (DNS resolution, TCP connect, and TLS handshake),
+     * so that the first requests of the caller use already established connections of the {@link Transport}.
+     * Sends one <tt>HEAD</tt> request per server in parallel, its result is ignored. URLs of the same server are only
+     * contacted once.
+     * @param urls The URLs of the servers to connect, e.g., of the authentication and the student management system.
+     *     Invalid URLs and <tt>null</tt> are ignored.
+     * @return A future, which completes (never exceptionally) after all connection attempts are finished.
+     */
+    public CompletableFuture<Void> warmUp(String... urls) {
+        CompletableFuture<?>[] connections = Arrays.stream(urls)
+            .filter(Objects::nonNull)
+            .map(HttpUrl::parse)
+            .filter(Objects::nonNull)
+            .filter(distinctServers())
+            .map(url -> CompletableFuture.runAsync(() -> connect(url), WARM_UP_EXECUTOR))
+            .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(connections);
+    }
+
+    /**
+     * Creates a filter, which accepts only the first URL of each server.
+     * @return A stateful filter for a single stream.
+     */
+    private static Predicate<HttpUrl> distinctServers() {
+        Set<String> servers = new HashSet<>();
+        return url -> servers.add(serverOf(url));
+    }
+
+    /**
+     * Opens a connection to the server of the URL via the transport, the connection is kept in the pool of the
+     * transport.
+     * @param url The URL to request.
+     */
+    private void connect(HttpUrl url) {
+        Request head = new Request.Builder().url(url).head().build();
+        try {
+            Response response = transport.execute(head, TimeUnit.SECONDS.toMillis(WARM_UP_TIMEOUT_SECONDS));
+            response.body().close();
+        } catch (IOException e) {
+            // The following requests will report the problem
+            LOGGER.debug("Could not open connection to {}: {}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the interceptor, which compresses the bodies of all created clients, e.g., to configure the threshold
+     * for requests or to query the statistics.
+     * @return The shared compression interceptor.
+     */
+    public CompressionInterceptor getCompression() {
+        return compression;
+    }
+
+    /**
+     * Returns the interceptor, which retries transient failures of all created clients, e.g., to configure the
+     * backoff or to observe the circuit breakers.
+     * @return The shared retry interceptor.
+     */
+    public RetryInterceptor getRetry() {
+        return retry;
+    }
+
+    /**
+     * Returns the interceptor, which limits the rate and concurrency of the requests of all created clients, e.g.,
+     * to configure the limits of the {@link TrafficClass}es.
+     * @return The shared traffic control interceptor.
+     */
+    public TrafficControlInterceptor getTrafficControl() {
+        return trafficControl;
+    }
+
+    /**
+     * Returns the executor for asynchronous requests of all protocols, which use this factory. Its number of threads
+     * is the maximum number of concurrent requests per host of the dispatcher, since each asynchronous request
+     * blocks one thread for the whole HTTP call and more threads would only wait for the limit of the server.
+     * @return The shared executor for asynchronous requests.
+     */
+    public ExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Returns the transport, which is used by all created clients.
+     * @return The selected transport.
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Returns the connection pool, which is shared by all created clients.
+     * @return The shared connection pool.
+     */
+    public ConnectionPool getConnectionPool() {
+        return template.getConnectionPool();
+    }
+
+    /**
+     * Identifies the server of an URL, e.g., for per server circuit breakers and limits.
+     * @param url The URL of a request.
+     * @return The server in form of <tt>scheme://host:port</tt>.
+     */
+    static String serverOf(HttpUrl url) {
+        return url.scheme() + "://" + url.host() + ":" + url.port();
+    }
+}
@@ -0,0 +1,203 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+
+/**
+ * Stores lists downloaded from the <b>student management system</b> as indexed snapshots, e.g., the participants of
+ * a course ({@link ParticipantDirectory}) or the groups of an assignment ({@link GroupRegistry}).
+ * Each list is downloaded with one request per time to live and indexed once, lookups are answered by the index.
+ * If a lookup is not successful, the list is downloaded again, but at most once per
+ * {@link #setMissRefreshInterval(long, TimeUnit) miss refresh interval}, to pick up newly added elements.
+ *
+ * @param <K> The type of the keys, which identify the downloaded lists.
+ * @param <T> The type of the elements of the lists.
+ * @param <S> The type of the indexed snapshots.
+ * @author agent
+ *
+ */
+class IndexedSnapshotCache<K, T, S extends IndexedSnapshotCache.Snapshot> {
+
+    /**
+     * Immutable index of a downloaded list at a certain time.
+     */
+    abstract static class Snapshot {
+        private final long timestamp;
+
+        /**
+         * Creates a new snapshot.
+         * @param timestamp The time the list was downloaded (in milliseconds).
+         */
+        protected Snapshot(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * Returns the time the list was downloaded.
+         * @return The time in milliseconds.
+         */
+        long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    /**
+     * Indexes a downloaded list.
+     * @param <T> The type of the elements of the list.
+     * @param <S> The type of the indexed snapshot.
+     * @author agent
+     *
+     */
+    @FunctionalInterface
+    static interface Indexer<T, S> {
+
+        /**
+         * Indexes the specified list.
+         * @param elements The list as downloaded from the server, may be <tt>null</tt>.
+         * @param timestamp The time the list was downloaded (in milliseconds).
+         * @return The indexed snapshot.
+         */
+        S index(List<T> elements, long timestamp);
+    }
+
+    private final ProtocolCache<K, S> snapshots;
+    private final Indexer<T, S> indexer;
+    private volatile long missRefreshMillis;
+    private final AtomicLong lastGeneration = new AtomicLong();
+
+    /**
+     * The generations in form of (key, generation of the last download or restore of the list). Generations are
+     * unique across all lists, so that a list, which is invalidated and downloaded again, never repeats a generation.
+     */
+    private final Map<K, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new and empty cache.
+     * @param ttlSeconds The time to live (in seconds) of the downloaded lists.
+     * @param missRefreshSeconds The minimum age (in seconds) of a downloaded list, before an unsuccessful lookup
+     *     triggers a refresh.
+     * @param indexer Indexes the downloaded lists.
+     */
+    IndexedSnapshotCache(long ttlSeconds, long missRefreshSeconds, Indexer<T, S> indexer) {
+        snapshots = new ProtocolCache<>(ttlSeconds, TimeUnit.SECONDS);
+        missRefreshMillis = TimeUnit.SECONDS.toMillis(missRefreshSeconds);
+        this.indexer = indexer;
+    }
+
+    /**
+     * Returns the snapshot of the specified list.
+     * @param key The key of the list.
+     * @param loader Downloads the list, will only be used if it is not cached.
+     * @return The snapshot.
+     * @throws NetworkException If the list needs to be downloaded and network problems occur.
+     */
+    S get(K key, Loader<List<T>> loader) throws NetworkException {
+        return snapshots.get(key, () -> load(key, loader));
+    }
+
+    /**
+     * Looks up an element in the snapshot of the specified list. If the lookup is not successful and the snapshot is
+     * older than the miss refresh interval, the list is downloaded again and the lookup is repeated.
+     * @param <R> The type of the result.
+     * @param key The key of the list.
+     * @param loader Downloads the list, will only be used if it is not cached or the lookup is not successful.
+     * @param lookup Looks up the element in a snapshot, returns <tt>null</tt> if it is not found.
+     * @return The element or <tt>null</tt> if it is not part of the list.
+     * @throws NetworkException If the list needs to be downloaded and network problems occur.
+     */
+    <R> R lookup(K key, Loader<List<T>> loader, Function<S, R> lookup) throws NetworkException {
+        S snapshot = get(key, loader);
+        R result = lookup.apply(snapshot);
+        if (null == result && System.currentTimeMillis() - snapshot.getTimestamp() >= missRefreshMillis) {
+            result = lookup.apply(snapshots.reload(key, () -> load(key, loader)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Restores a previously downloaded list, e.g., from a {@link SnapshotStore}.
+     * @param key The key of the list.
+     * @param elements The list as retrieved by the REST server.
+     * @param timestamp The time the list was downloaded (in milliseconds), the time to live is applied relative to
+     *     this time.
+     */
+    void seed(K key, List<T> elements, long timestamp) {
+        snapshots.put(key, indexer.index(elements, timestamp), timestamp);
+        generations.put(key, lastGeneration.incrementAndGet());
+    }
+
+    /**
+     * Downloads and indexes a list, each download starts a new {@link #getGeneration(Object) generation} of the
+     * list.
+     * @param key The key of the list.
+     * @param loader Downloads the list.
+     * @return The new snapshot.
+     * @throws NetworkException If network problems occur.
+     */
+    private S load(K key, Loader<List<T>> loader) throws NetworkException {
+        S snapshot = indexer.index(loader.load(), System.currentTimeMillis());
+        generations.put(key, lastGeneration.incrementAndGet());
+        return snapshot;
+    }
+
+    /**
+     * Removes all downloaded lists, they will be downloaded again at the next access.
+     */
+    void invalidate() {
+        snapshots.invalidateAll();
+        generations.clear();
+    }
+
+    /**
+     * Returns the current generation of the specified list, which changes each time this list is downloaded again or
+     * invalidated. Downloads of other lists do not change the generation.
+     * @param key The key of the list.
+     * @return The current generation, <tt>0</tt> if the list was not downloaded since the last invalidation.
+     */
+    long getGeneration(K key) {
+        return generations.getOrDefault(key, 0L);
+    }
+
+    /**
+     * Changes the time to live of the downloaded lists.
+     * @param ttl The time after which the lists will be downloaded again.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    void setTimeToLive(long ttl, TimeUnit unit) {
+        snapshots.setTimeToLive(ttl, unit);
+    }
+
+    /**
+     * Limits the number of stored lists.
+     * @param maxSize The maximum number of lists.
+     * @param policy Selects the lists to remove, if the maximum size is exceeded.
+     */
+    void setMaximumSize(int maxSize, ProtocolCache.EvictionPolicy policy) {
+        snapshots.setEvictionPolicy(policy);
+        snapshots.setMaximumSize(maxSize);
+    }
+
+    /**
+     * Returns the statistics about the usage of the downloaded lists, including refreshes.
+     * @return The current statistics.
+     */
+    CacheStatistics getStatistics() {
+        return snapshots.getStatistics();
+    }
+
+    /**
+     * Changes the minimum age of the downloaded lists, before an unsuccessful lookup triggers a refresh.
+     * @param interval The minimum age, <tt>0</tt> refreshes the list at each unsuccessful lookup.
+     * @param unit The unit of <tt>interval</tt>.
+     */
+    void setMissRefreshInterval(long interval, TimeUnit unit) {
+        missRefreshMillis = unit.toMillis(interval);
+    }
+}
@@ -0,0 +1,142 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.squareup.okhttp.Headers;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import okio.Buffer;
+import okio.Okio;
+
+/**
+ * {@link Transport} based on the {@link HttpClient} of the JDK, which prefers HTTP/2. If the server supports HTTP/2,
+ * concurrent requests are multiplexed over one connection, otherwise HTTP/1.1 is used.
+ *
+ * @author agent
+ *
+ */
+public class JdkHttpTransport implements Transport {
+
+    /**
+     * Default timeout (in seconds) of a request, if no timeout is specified by the caller.
+     */
+    public static final long DEFAULT_TIMEOUT_SECONDS = 60;
+
+    /**
+     * Headers, which are managed by the {@link HttpClient} and must not be set by the caller.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList("connection", "content-length",
+        "date", "expect", "from", "host", "origin", "referer", "upgrade", "via", "warning"));
+
+    private final HttpClient client;
+
+    /**
+     * Creates a transport with a new {@link HttpClient}, which prefers HTTP/2.
+     */
+    public JdkHttpTransport() {
+        this(HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS))
+            .build());
+    }
+
+    /**
+     * Creates a transport, which uses the specified client.
+     * @param client The client to send the requests.
+     */
+    public JdkHttpTransport(HttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Response execute(Request request, long timeoutMillis) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.urlString()))
+            .timeout(timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS))
+            .method(request.method(), toBodyPublisher(request.body()));
+        Headers headers = request.headers();
+        for (int i = 0; i < headers.size(); i++) {
+            if (!RESTRICTED_HEADERS.contains(headers.name(i).toLowerCase())) {
+                builder.header(headers.name(i), headers.value(i));
+            }
+        }
+        if (null != request.body() && null != request.body().contentType() && null == request.header("Content-Type")) {
+            builder.header("Content-Type", request.body().contentType().toString());
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(builder.build(), BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request was interrupted: " + request.urlString());
+        }
+
+        return toResponse(request, response);
+    }
+
+    /**
+     * Converts the body of the request.
+     * @param body The body as created by the generated APIs, may be <tt>null</tt>.
+     * @return The body for the {@link HttpClient}.
+     * @throws IOException If the body cannot be written.
+     */
+    private static BodyPublisher toBodyPublisher(RequestBody body) throws IOException {
+        BodyPublisher publisher = BodyPublishers.noBody();
+        if (null != body) {
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            publisher = BodyPublishers.ofByteArray(buffer.readByteArray());
+        }
+
+        return publisher;
+    }
+
+    /**
+     * Converts the response of the {@link HttpClient}.
+     * @param request The sent request.
+     * @param response The response of the server.
+     * @return The response for the generated APIs, the body is streamed from the connection.
+     */
+    private static Response toResponse(Request request, HttpResponse<InputStream> response) {
+        Response.Builder builder = new Response.Builder()
+            .request(request)
+            .protocol(response.version() == HttpClient.Version.HTTP_2 ? Protocol.HTTP_2 : Protocol.HTTP_1_1)
+            .code(response.statusCode())
+            // The reason phrase is not provided by the HttpClient (and does not exist in HTTP/2)
+            .message("HTTP " + response.statusCode());
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            // Skip pseudo headers of HTTP/2
+            if (!header.getKey().startsWith(":")) {
+                for (String value : header.getValue()) {
+                    builder.addHeader(header.getKey(), value);
+                }
+            }
+        }
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        MediaType mediaType = null != contentType ? MediaType.parse(contentType) : null;
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+
+        return builder.body(ResponseBody.create(mediaType, contentLength, Okio.buffer(Okio.source(response.body()))))
+            .build();
+    }
+}
@@ -1,6 +1,16 @@
 package net.ssehub.exercisesubmitter.protocol.backend;
 
-import java.net.ConnectException;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import org.identityconnectors.common.security.GuardedString;
 import org.identityconnectors.common.security.GuardedString.Accessor;
@@ -20,6 +30,40 @@ import net.ssehub.studentmgmt.sparkyservice_api.model.CredentialsDto;
  */
 public class LoginComponent {
     
+    /**
+     * Default time (in seconds) before the expiration of the token, when the token is refreshed.
+     */
+    public static final long DEFAULT_REFRESH_MARGIN_SECONDS = 60;
+    
+    /**
+     * Default time (in minutes) after which the identity of the user is queried again from the
+     * <b>student management system</b> at the next re-login or reuse of a stored token.
+     */
+    public static final long DEFAULT_IDENTITY_RECHECK_MINUTES = 60;
+    
+    /**
+     * Minimum delay (in milliseconds) before a failed refresh is tried again. If less than twice this time remains
+     * until the token expires, no further refresh is tried and the next rejected request triggers a re-login.
+     */
+    private static final long MIN_REFRESH_RETRY_MILLIS = 1000;
+    
+    private static final Logger LOGGER = LogManager.getLogger(LoginComponent.class);
+    
+    /**
+     * Refreshes the tokens of all logged in users in the background, daemon thread does not delay the termination.
+     * Scheduled refreshes reference their component only weakly and cancelled refreshes are removed at once, so
+     * that components, which are no longer used, can be garbage collected.
+     */
+    private static final ScheduledThreadPoolExecutor REFRESH_EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "protocol-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    static {
+        REFRESH_EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+    
     /**
      * ApiClinet for the <b>Authentication system </b> (aka. SparyService).
      * The ApiClient enables to set a BasePath for the other API`s.
@@ -36,129 +80,391 @@ public class LoginComponent {
     private AuthenticationApi mgmtAuthApi;
     private String stdMgmtURL;
     
-    // User Data
-    private String userName;
-    private String managementToken;
-    private UserDto user;
+    /**
+     * The factory, which created the HTTP clients of both services.
+     */
+    private HttpClientFactory factory;
+    
+    // User Data, replaced only after a successful login, so that the current session remains usable meanwhile
+    private volatile String userName;
+    private volatile String managementToken;
+    private volatile UserDto user;
+    private long identityCheckedAt;
+    private long identityRecheckMillis = TimeUnit.MINUTES.toMillis(DEFAULT_IDENTITY_RECHECK_MINUTES);
     
     // Credentials to allow re-login after time out
     private String loginUser;
     private GuardedString loginPasswort;
     
+    // Proactive refresh of the token before it expires
+    private Consumer<String> refreshListener;
+    private long refreshMarginMillis = TimeUnit.SECONDS.toMillis(DEFAULT_REFRESH_MARGIN_SECONDS);
+    private ScheduledFuture<?> refreshTask;
+    
+    // Optional on-disk store of the token, shared by subsequent processes
+    private TokenStore tokenStore;
+    
     /**
      * Instantiates the {@link LoginComponent} by specifying the authentication and student management service to use.
      * @param authenticationURL The URL of the authentication server (aka Sparky service)
      * @param stdMgmtURL The URL of the student management service
      */
     public LoginComponent(String authenticationURL, String stdMgmtURL) {
+        this(authenticationURL, stdMgmtURL, HttpClientFactory.getDefault());
+    }
+    
+    /**
+     * Instantiates the {@link LoginComponent} by specifying the authentication and student management service to use
+     * and the factory, which determines the connections and transport of both services.
+     * @param authenticationURL The URL of the authentication server (aka Sparky service)
+     * @param stdMgmtURL The URL of the student management service
+     * @param factory The factory to create the HTTP clients, e.g., with a {@link JdkHttpTransport} to use HTTP/2.
+     */
+    public LoginComponent(String authenticationURL, String stdMgmtURL, HttpClientFactory factory) {
         // Sparky Service to retrieve token
         sparkyClient = new net.ssehub.studentmgmt.sparkyservice_api.ApiClient();
+        sparkyClient.setHttpClient(factory.newClient());
         sparkyClient.setBasePath(authenticationURL);
         authApi = new AuthControllerApi(sparkyClient);
         this.authenticationURL = authenticationURL;
         
         // Student Management system to query for management data
-        stdMgmtClient = new ApiClient();
+        stdMgmtClient = new CachingApiClient(factory, ConditionalRequestCache.getDefault());
         stdMgmtClient.setBasePath(stdMgmtURL);
         mgmtAuthApi = new AuthenticationApi(stdMgmtClient);
         this.stdMgmtURL = stdMgmtURL;
+        this.factory = factory;
+    }
+    
+    /**
+     * Allows to stub the generated APIs of both services for <b>testing</b>.
+     * @param authApi The API of the authentication service to use during tests.
+     * @param mgmtAuthApi The authentication API of the student management system to use during tests.
+     */
+    void setApis(AuthControllerApi authApi, AuthenticationApi mgmtAuthApi) {
+        this.authApi = authApi;
+        this.mgmtAuthApi = mgmtAuthApi;
+    }
+    
+    /**
+     * Opens the connections to the authentication and the student management system in parallel in the background,
+     * so that the {@link #login(String, String)} starts on established connections. Intended to be called directly
+     * after construction, while the caller still prepares the credentials.
+     * @return A future, which completes (never exceptionally) after both connection attempts are finished.
+     */
+    public CompletableFuture<Void> warmUp() {
+        return factory.warmUp(authenticationURL, stdMgmtURL);
+    }
+    
+    /**
+     * Enables the proactive refresh of the token: The expiration time is read from the token (JSON Web Token) and the
+     * user is logged in again in the background shortly before the token expires, so that requests never fail
+     * because of an expired token. Tokens without expiration time are not refreshed. The refresh is stopped by
+     * {@link #logout()}.
+     * @param listener Receives the new token after each refresh (e.g., to pass it to
+     *     {@link NetworkProtocol#setAccessToken(String)}), <tt>null</tt> disables the refresh.
+     */
+    public synchronized void setTokenRefreshListener(Consumer<String> listener) {
+        refreshListener = listener;
+        scheduleRefresh();
+    }
+    
+    /**
+     * Sets the time before the expiration of the token, when the token is refreshed.
+     * Affects the next scheduled refresh.
+     * @param margin The time before the expiration.
+     * @param unit The unit of <tt>margin</tt>.
+     */
+    public synchronized void setRefreshMargin(long margin, TimeUnit unit) {
+        refreshMarginMillis = unit.toMillis(margin);
+    }
+    
+    /**
+     * Enables an on-disk store of the token: A {@link #login(String, String) login} reuses the token and the user of
+     * a previous login (e.g., of a previous process) with the same credentials as long as the token is valid for
+     * more than the {@link #setRefreshMargin(long, TimeUnit) refresh margin}, without contacting any server.
+     * The user is logged in again, if the stored token is rejected by the server (see {@link #reLogin()}).
+     * @param tokenStore The store to use, <tt>null</tt> disables the store.
+     */
+    public synchronized void setTokenStore(TokenStore tokenStore) {
+        this.tokenStore = tokenStore;
+    }
+    
+    /**
+     * Sets the time after which the identity of the user is queried again (<tt>whoAmI</tt>) from the
+     * <b>student management system</b>. Within this time, a {@link #reLogin() re-login} of the same user and the
+     * reuse of a {@link #setTokenStore(TokenStore) stored token} rely on the known user and only contact the
+     * authentication service (respectively no server at all).
+     * @param interval The time after which the identity is queried again, <tt>0</tt> to query it at every login.
+     * @param unit The unit of <tt>interval</tt>.
+     */
+    public synchronized void setIdentityRecheckInterval(long interval, TimeUnit unit) {
+        identityRecheckMillis = unit.toMillis(interval);
     }
     
     /**
      * Logs the user in into the <b>student management system</b> via the <b>authentication service</b>.
+     * If a {@link #setTokenStore(TokenStore) token store} is used, a still valid token of a previous login with the
+     * same credentials is reused without contacting the servers.
      * @param userName The user name of the user to login.
      * @param password The password of the user to login.
      * @return <tt>true</tt> if the login was successful, <tt>false</tt> otherwise.
      * 
      * @throws UnknownCredentialsException If the credentials are wrong or the user is unknown by the system.
-     * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs.
+     * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs, or a
+     *     {@link DeadlineExceededException} if the {@link Deadline} of the current operation is exceeded.
+     * @see #setTokenRefreshListener(Consumer)
+     */
+    public synchronized boolean login(String userName, String password) throws UnknownCredentialsException,
+        ServerNotFoundException {
+        
+        return login(userName, password, null);
+    }
+    
+    /**
+     * Logs the user in into the <b>student management system</b> like {@link #login(String, String)}, but passes the
+     * token to the listener as soon as it is available, i.e., before the identity of the user is queried from the
+     * <b>student management system</b>. This allows to start requests, which need only the token (e.g., the
+     * resolution of the course), in parallel to the remaining login.
+     * @param userName The user name of the user to login.
+     * @param password The password of the user to login.
+     * @param tokenListener Receives the token in the calling thread and must not block, may be <tt>null</tt>.
+     *     The login may still fail afterwards.
+     * @return <tt>true</tt> if the login was successful, <tt>false</tt> otherwise.
+     * 
+     * @throws UnknownCredentialsException If the credentials are wrong or the user is unknown by the system.
+     * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs, or a
+     *     {@link DeadlineExceededException} if the {@link Deadline} of the current operation is exceeded.
+     */
+    public synchronized boolean login(String userName, String password, Consumer<String> tokenListener)
+        throws UnknownCredentialsException, ServerNotFoundException {
+        
+        boolean success = restore(userName, password, tokenListener);
+        if (!success) {
+            success = authenticate(userName, password, tokenListener);
+        }
+        
+        return success;
+    }
+    
+    /**
+     * Reuses the token of a previous login, if a {@link #setTokenStore(TokenStore) token store} is used and contains
+     * a token of the same credentials, which is valid for more than the refresh margin. The stored user is reused,
+     * unless the {@link #setIdentityRecheckInterval(long, TimeUnit) identity recheck interval} elapsed.
+     * @param userName The user name of the user to login.
+     * @param password The password of the user to login.
+     * @param tokenListener Receives the stored token before the identity is queried, may be <tt>null</tt>.
+     * @return <tt>true</tt> if a stored token is used, <tt>false</tt> if the user must be logged in.
+     */
+    private boolean restore(String userName, String password, Consumer<String> tokenListener) {
+        TokenStore.Entry entry = null != tokenStore
+            ? tokenStore.load(authenticationURL, stdMgmtURL, userName, password) : null;
+        boolean restored = null != entry && null != entry.getUser()
+            && TokenUtils.getExpirationMillis(entry.getToken()) - refreshMarginMillis > System.currentTimeMillis();
+        if (restored) {
+            stdMgmtClient.setAccessToken(entry.getToken());
+            if (null != tokenListener) {
+                tokenListener.accept(entry.getToken());
+            }
+            UserDto restoredUser = entry.getUser();
+            long checkedAt = entry.getIdentityCheckedAt();
+            if (System.currentTimeMillis() - checkedAt >= identityRecheckMillis) {
+                restoredUser = recheckIdentity();
+                checkedAt = System.currentTimeMillis();
+                if (null != restoredUser) {
+                    tokenStore.save(authenticationURL, stdMgmtURL, userName, password,
+                        new TokenStore.Entry(entry.getUserName(), entry.getToken(), restoredUser, checkedAt));
+                }
+            }
+            restored = null != restoredUser;
+            if (restored) {
+                // Save credentials for re-login
+                loginUser = userName;
+                loginPasswort = new GuardedString(password.toCharArray());
+                this.userName = entry.getUserName();
+                user = restoredUser;
+                identityCheckedAt = checkedAt;
+                managementToken = entry.getToken();
+                scheduleRefresh();
+            } else {
+                stdMgmtClient.setAccessToken(managementToken);
+            }
+        }
+        
+        return restored;
+    }
+    
+    /**
+     * Queries the identity of a stored token from the <b>student management system</b>.
+     * @return The user or <tt>null</tt> if the token was rejected or the server could not be reached, i.e., the user
+     *     must be logged in.
+     */
+    private UserDto recheckIdentity() {
+        UserDto checkedUser = null;
+        try {
+            checkedUser = mgmtAuthApi.whoAmI();
+        } catch (IllegalArgumentException | net.ssehub.studentmgmt.backend_api.ApiException e) {
+            LOGGER.debug("Stored token of {} not accepted, user will be logged in: {}", loginUser, e.getMessage());
+        }
+        
+        return checkedUser;
+    }
+    
+    /**
+     * Logs the user in via the <b>authentication service</b> and queries the user from the <b>student management
+     * system</b>. The query is skipped if the same user was logged in before and the
+     * {@link #setIdentityRecheckInterval(long, TimeUnit) identity recheck interval} did not elapse. The new token is
+     * saved in the {@link #setTokenStore(TokenStore) token store}.
+     * The user, the token, and the credentials of the current session are only replaced if the login is successful,
+     * i.e., they remain usable during the login and after a failed login.
+     * @param userName The user name of the user to login.
+     * @param password The password of the user to login.
+     * @param tokenListener Receives the new token before the identity is queried, may be <tt>null</tt>.
+     * @return <tt>true</tt> if the login was successful, <tt>false</tt> otherwise.
+     * 
+     * @throws UnknownCredentialsException If the credentials are wrong or the user is unknown by the system.
+     * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs, or a
+     *     {@link DeadlineExceededException} if the {@link Deadline} of the current operation is exceeded.
      */
-    public boolean login(String userName, String password) throws UnknownCredentialsException, ServerNotFoundException {
+    private boolean authenticate(String userName, String password, Consumer<String> tokenListener)
+        throws UnknownCredentialsException, ServerNotFoundException {
+
         CredentialsDto credentials = new CredentialsDto();
         credentials.setUsername(userName);
         credentials.setPassword(password);
-        user = null;
+        UserDto knownUser = null != user && Objects.equals(userName, loginUser)
+            && System.currentTimeMillis() - identityCheckedAt < identityRecheckMillis ? user : null;
         
-        // Save credentials for re-login
-        loginUser = userName;
-        if (null != password) {
-            loginPasswort = new GuardedString(password.toCharArray());
-        }
+        // Fail fast if the time budget of the operation (e.g., a re-login) is already exhausted
+        Deadline.check(authenticationURL);
         
         // Login into SparkyService to retrieve usable token
         AuthenticationInfoDto authInfo = null;
         String tmpToken = null;
         try {
             authInfo = authApi.authenticate(credentials);
-            this.userName = authInfo.getUser().getUsername();
             tmpToken = authInfo.getToken().getToken();
         } catch (IllegalArgumentException e) {
             throw new ServerNotFoundException(e.getMessage(), authenticationURL);
         } catch (ApiException e) {
-            if (e.getCause() instanceof ConnectException) {
-                throw new ServerNotFoundException(e.getMessage(), authenticationURL);
-            }
+            checkServerFailure(e, e.getCode(), authenticationURL);
             throw new UnknownCredentialsException("Could not login \"" + userName
                 + "\", credentials are unknown. Please check that user exist.");
         }
         
+        boolean success = false;
         if (null != tmpToken && null != authInfo) {
+            stdMgmtClient.setAccessToken(tmpToken);
+            if (null != tokenListener) {
+                tokenListener.accept(tmpToken);
+            }
+            UserDto newUser = knownUser;
+            long checkedAt = identityCheckedAt;
             try {
-                mgmtAuthApi.getApiClient().setAccessToken(tmpToken);
-                user = mgmtAuthApi.whoAmI();
-                
-                if (null != user) {
-                    managementToken = tmpToken;
+                if (null == newUser) {
+                    newUser = queryIdentity(userName);
+                    checkedAt = System.currentTimeMillis();
+                }
+            } finally {
+                if (null == newUser) {
+                    // Keep the current session
+                    stdMgmtClient.setAccessToken(managementToken);
+                }
+            }
+            
+            success = null != newUser;
+            if (success) {
+                // Save credentials for re-login
+                loginUser = userName;
+                if (null != password) {
+                    loginPasswort = new GuardedString(password.toCharArray());
+                }
+                this.userName = authInfo.getUser().getUsername();
+                user = newUser;
+                identityCheckedAt = checkedAt;
+                managementToken = tmpToken;
+                scheduleRefresh();
+                if (null != tokenStore) {
+                    tokenStore.save(authenticationURL, stdMgmtURL, userName, password,
+                        new TokenStore.Entry(this.userName, managementToken, user, identityCheckedAt));
                 }
-            } catch (IllegalArgumentException e) {
-                throw new ServerNotFoundException(e.getMessage(), stdMgmtURL);
-            } catch (net.ssehub.studentmgmt.backend_api.ApiException e) {
-                throw new UnknownCredentialsException("Could not login \"" + userName
-                    + "\", credentials are unknown. Please check that user exist.");
             }
         }
         
-        return user != null;
+        return success;
+    }
+    
+    /**
+     * Queries the identity of the new token from the <b>student management system</b>.
+     * @param userName The user name of the user to login (for error messages).
+     * @return The logged in user.
+     * @throws UnknownCredentialsException If the token is rejected or the user is unknown by the system.
+     * @throws ServerNotFoundException If the server is unreachable by the specified URL.
+     */
+    private UserDto queryIdentity(String userName) throws UnknownCredentialsException, ServerNotFoundException {
+        UserDto queriedUser;
+        try {
+            queriedUser = mgmtAuthApi.whoAmI();
+        } catch (IllegalArgumentException e) {
+            throw new ServerNotFoundException(e.getMessage(), stdMgmtURL);
+        } catch (net.ssehub.studentmgmt.backend_api.ApiException e) {
+            checkServerFailure(e, e.getCode(), stdMgmtURL);
+            throw new UnknownCredentialsException("Could not login \"" + userName
+                + "\", credentials are unknown. Please check that user exist.");
+        }
+        
+        return queriedUser;
+    }
+    
+    /**
+     * Throws a {@link ServerNotFoundException} if a request of the login failed, because the server could not be
+     * reached, like {@link ApiExceptionHandler#handleException(Exception, String)}: The {@link Deadline} was
+     * exceeded, the {@link CircuitBreaker} of the server is open, the connection failed, or the server was still
+     * unavailable after all retries. Otherwise, the request was rejected because of the credentials.
+     * @param exc The exception thrown by the generated API.
+     * @param code The status code of the response, <tt>0</tt> if no response was received.
+     * @param url The URL of the contacted server.
+     * @throws ServerNotFoundException If the server could not be reached, a {@link DeadlineExceededException} or
+     *     {@link CircuitOpenException} for the respective cases.
+     */
+    private static void checkServerFailure(Exception exc, int code, String url) throws ServerNotFoundException {
+        Deadline.check(url);
+        CircuitOpenException circuitOpen = ApiExceptionHandler.findCause(exc, CircuitOpenException.class);
+        if (null != circuitOpen) {
+            throw circuitOpen;
+        }
+        if (null != ApiExceptionHandler.findCause(exc, IOException.class) || RetryInterceptor.isTransientStatus(code)) {
+            throw new ServerNotFoundException(exc.getMessage(), url);
+        }
     }
     
     /**
      * Provides an automatic re-login after the session has been expired and only if the user was successfully logged
-     * in before.
+     * in before. Always contacts the authentication service, i.e., a token of the
+     * {@link #setTokenStore(TokenStore) token store} is replaced. The user is only queried again from the
+     * <b>student management system</b> if the {@link #setIdentityRecheckInterval(long, TimeUnit) identity recheck
+     * interval} elapsed.
      * @return The new token for the student management server or <tt>null</tt> if this action was not successful.
      *     In this case, no second re-login will be possible.
      * @throws UnknownCredentialsException If the credentials are wrong or the user is unknown by the system.
      * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs.
      */
-    public String reLogin() throws ServerNotFoundException, UnknownCredentialsException {
+    public synchronized String reLogin() throws ServerNotFoundException, UnknownCredentialsException {
         String newToken = null;
         
         // Apply re-login only if user was already successfully logged in
-        if (null != user.getId()) {
-            String usedPW = null;    
-            if (null != loginPasswort) {
-                final StringBuffer pw = new StringBuffer();
-                loginPasswort.access(new Accessor() {
-                    
-                    @Override
-                    public void access(char[] clearChars) {
-                        pw.append(clearChars);
-                        
-                    }
-                });
-                usedPW = pw.toString();
-            }
-            
-            boolean success;
+        if (null != user && null != user.getId()) {
             try {
-                success = login(loginUser, usedPW);
+                newToken = renew();
             } catch (UnknownCredentialsException e) {
                 // Avoid automatic re-login before re-throwing the exception
                 user = null;
+                if (null != tokenStore) {
+                    tokenStore.remove(authenticationURL, stdMgmtURL, loginUser);
+                }
                 throw e;
             }
-            if (success) {
-                newToken = managementToken;
-            } else {
+            if (null == newToken) {
                 // Avoid automatic re-login
                 user = null;
             }
@@ -166,7 +472,129 @@ public class LoginComponent {
         
         return newToken;
     }
+    
+    /**
+     * Logs the current user in again with the saved credentials. The current session is kept if this fails.
+     * @return The new token for the student management server or <tt>null</tt> if this action was not successful.
+     * @throws UnknownCredentialsException If the credentials are wrong or the user is unknown by the system.
+     * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs.
+     */
+    private String renew() throws ServerNotFoundException, UnknownCredentialsException {
+        String usedPW = null;    
+        if (null != loginPasswort) {
+            final StringBuffer pw = new StringBuffer();
+            loginPasswort.access(new Accessor() {
+                
+                @Override
+                public void access(char[] clearChars) {
+                    pw.append(clearChars);
+                    
+                }
+            });
+            usedPW = pw.toString();
+        }
+        
+        return authenticate(loginUser, usedPW, null) ? managementToken : null;
+    }
 
+    /**
+     * Logs the user out: Stops the proactive refresh of the token and forgets the token, the user, and the
+     * credentials, so that no (automatic) re-login is possible afterwards. A token in the
+     * {@link #setTokenStore(TokenStore) token store} is kept for subsequent logins.
+     * Should be called if the component is no longer used, otherwise the token is refreshed until the component is
+     * garbage collected.
+     */
+    public synchronized void logout() {
+        cancelRefresh();
+        user = null;
+        managementToken = null;
+        loginUser = null;
+        if (null != loginPasswort) {
+            loginPasswort.dispose();
+            loginPasswort = null;
+        }
+        identityCheckedAt = 0;
+    }
+    
+    /**
+     * Cancels a scheduled refresh of the token.
+     */
+    private synchronized void cancelRefresh() {
+        if (null != refreshTask) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+    
+    /**
+     * Schedules the refresh of the current token (and cancels a previously scheduled refresh).
+     */
+    private synchronized void scheduleRefresh() {
+        scheduleRefresh(0);
+    }
+    
+    /**
+     * Schedules the refresh of the current token (and cancels a previously scheduled refresh), unless the refresh
+     * would be due earlier than the specified minimum delay.
+     * @param minDelayMillis The minimum delay (in milliseconds) until the refresh.
+     */
+    private synchronized void scheduleRefresh(long minDelayMillis) {
+        cancelRefresh();
+        long delay = TokenUtils.getRefreshDelayMillis(managementToken, refreshMarginMillis,
+            System.currentTimeMillis());
+        if (null != refreshListener && null != user && delay >= minDelayMillis) {
+            WeakReference<LoginComponent> component = new WeakReference<>(this);
+            refreshTask = REFRESH_EXECUTOR.schedule(() -> refresh(component), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Refreshes the token of the component, unless it was garbage collected.
+     * @param component The component, whose token shall be refreshed.
+     */
+    private static void refresh(WeakReference<LoginComponent> component) {
+        LoginComponent login = component.get();
+        if (null != login) {
+            login.refresh();
+        }
+    }
+    
+    /**
+     * Logs the user in again (in the background) and passes the new token to the listener.
+     * If this fails, the current token and user are kept: If the server could not be reached, the refresh is tried
+     * again after half of the remaining lifetime of the token. Otherwise, or if the token expires meanwhile, the next
+     * request will fail with an {@link UnauthorizedException} and trigger a re-login.
+     */
+    private void refresh() {
+        String newToken = null;
+        Consumer<String> listener;
+        synchronized (this) {
+            listener = refreshListener;
+            if (null != user && null != listener) {
+                try {
+                    newToken = renew();
+                } catch (ServerNotFoundException e) {
+                    LOGGER.warn("Could not refresh the token of {}: {}", loginUser, e.getMessage());
+                    scheduleRefresh(MIN_REFRESH_RETRY_MILLIS);
+                } catch (UnknownCredentialsException e) {
+                    LOGGER.warn("Could not refresh the token of {}: {}", loginUser, e.getMessage());
+                }
+            }
+        }
+        if (null != newToken) {
+            // Outside of the lock, the listener may synchronize on its own
+            listener.accept(newToken);
+        }
+    }
+    
+    /**
+     * Returns the URL of the authentication server, which is contacted first by a {@link #reLogin() re-login}.
+     * @return The URL of the authentication server (aka Sparky service).
+     */
+    public String getAuthenticationURL() {
+        return authenticationURL;
+    }
+    
     /**
      * Returns the user name of the user.
      * @return The user name.
@@ -1,15 +1,34 @@
 package net.ssehub.exercisesubmitter.protocol.backend;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
 
 import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+import net.ssehub.exercisesubmitter.protocol.backend.SnapshotStore.Document;
+import net.ssehub.exercisesubmitter.protocol.backend.SnapshotStore.Timestamped;
 import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
 import net.ssehub.studentmgmt.backend_api.ApiClient;
+import net.ssehub.studentmgmt.backend_api.ApiException;
+import net.ssehub.studentmgmt.backend_api.JSON;
 import net.ssehub.studentmgmt.backend_api.api.AssignmentApi;
 import net.ssehub.studentmgmt.backend_api.api.AssignmentRegistrationApi;
 import net.ssehub.studentmgmt.backend_api.api.CourseApi;
@@ -21,6 +40,7 @@ import net.ssehub.studentmgmt.backend_api.model.AssessmentDto;
 import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
 import net.ssehub.studentmgmt.backend_api.model.CourseDto;
 import net.ssehub.studentmgmt.backend_api.model.GroupDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
 
 /**
  * Manages the network protocol communication with the API for the exercise submitter.
@@ -31,7 +51,23 @@ import net.ssehub.studentmgmt.backend_api.model.GroupDto;
  */
 //checkstyle: stop exception type check: Multiple exceptions handles by ApiExceptionHandler
 public class NetworkProtocol {
-    private static final Logger LOGGER = LogManager.getLogger(NetworkProtocol.class); 
+    /**
+     * Default time to live (in minutes) of resolved course IDs.
+     */
+    public static final long DEFAULT_COURSE_ID_TTL_MINUTES = 60;
+    
+    /**
+     * Process-wide cache of resolved course IDs in form of ((basePath, courseName, semester), courseID).
+     * Course IDs are independent of the logged in user and, thus, may be shared by all protocol instances.
+     */
+    private static final ProtocolCache<CacheKey, String> SHARED_COURSE_IDS
+        = new ProtocolCache<>(DEFAULT_COURSE_ID_TTL_MINUTES, TimeUnit.MINUTES);
+    
+    /**
+     * Process-wide coalescing of identical read requests, which are executed concurrently by different threads or
+     * protocol instances.
+     */
+    private static final SingleFlight IN_FLIGHT_READS = new SingleFlight();
     
     /**
      * The ApiClient enables to set a BasePath for the other API`s.
@@ -82,9 +118,35 @@ public class NetworkProtocol {
     private String basePath;
     
     /**
-     * The ID of a course.
+     * Resolved course IDs, this is {@link #SHARED_COURSE_IDS} except for tests.
+     */
+    private ProtocolCache<CacheKey, String> courseIds;
+    
+    /**
+     * All assignments of the course, downloaded once per time to live.
+     */
+    private AssignmentCatalog assignmentCatalog = new AssignmentCatalog();
+    
+    /**
+     * The registered groups of the assignments, downloaded once per time to live.
+     */
+    private GroupRegistry groupRegistry = new GroupRegistry();
+    
+    /**
+     * Executes the asynchronous requests, this is the {@link HttpClientFactory#getAsyncExecutor() executor of the
+     * factory} if not configured differently.
+     */
+    private Executor asyncExecutor = HttpClientFactory.getDefault().getAsyncExecutor();
+    
+    /**
+     * Optional store to persist downloaded data between processes, may be <tt>null</tt>.
+     */
+    private SnapshotStore snapshots;
+    
+    /**
+     * The user, whose data is stored in the {@link #snapshots}.
      */
-    private String courseId;
+    private String snapshotUser;
     
     /**
      * The default constructor of the class to be used by the submitters / reviewer.
@@ -92,7 +154,21 @@ public class NetworkProtocol {
      * @param courseName The course that is associated with the exercise submitter.
      */
     public NetworkProtocol(String basePath, String courseName) {
-        apiClient = new ApiClient();
+        this(basePath, courseName, HttpClientFactory.getDefault());
+    }
+    
+    /**
+     * Constructor to select the connections and transport used by the submitters / reviewer.
+     * @param basePath The REST URL of the student management server.
+     * @param courseName The course that is associated with the exercise submitter.
+     * @param factory The factory to create the HTTP client, e.g., with a {@link JdkHttpTransport} to use HTTP/2.
+     */
+    public NetworkProtocol(String basePath, String courseName, HttpClientFactory factory) {
+        CachingApiClient client = new CachingApiClient(factory, ConditionalRequestCache.getDefault());
+        // Lists are only consumed by the read-only assignment catalog, group registry, and participant directory
+        client.shareObjectGraphs(new TypeToken<List<AssignmentDto>>() { }.getType(),
+            new TypeToken<List<GroupDto>>() { }.getType(), new TypeToken<List<ParticipantDto>>() { }.getType());
+        apiClient = client;
         apiClient.setBasePath(basePath);
         apiUser = new UserApi(apiClient);
         apiCourse = new CourseApi(apiClient);
@@ -102,6 +178,8 @@ public class NetworkProtocol {
         semester = SemesterUtils.getSemester();
         this.courseName = courseName;
         this.basePath = basePath;
+        courseIds = SHARED_COURSE_IDS;
+        asyncExecutor = factory.getAsyncExecutor();
     }
     
     /**
@@ -126,13 +204,16 @@ public class NetworkProtocol {
         
         // API client not needed during tests
         apiClient = null;
+        // Avoid that mocks of different tests share their results
+        courseIds = new ProtocolCache<>(DEFAULT_COURSE_ID_TTL_MINUTES, TimeUnit.MINUTES);
     }
     
     /**
-     * Sets the access token after the user has successfully logged in / out.
+     * Sets the access token after the user has successfully logged in / out, or after the token was refreshed.
+     * The token is replaced at once, concurrent requests use either the old or the new token.
      * @param accessToken The access token retrieved from the student management system, <tt>null</tt> to log out.
      */
-    public void setAccessToken(String accessToken) {
+    public synchronized void setAccessToken(String accessToken) {
         apiClient.setAccessToken(accessToken);
     }
     
@@ -153,6 +234,133 @@ public class NetworkProtocol {
         return null != usedAuth ? usedAuth.getAccessToken() : null;
     }
     
+    /**
+     * Executes a read request or, if an identical request is currently executed by another thread, waits for and
+     * shares its result. Requests are only identical if they are sent to the same server with the same access token,
+     * since the result depends on the rights of the user, and in the same {@link TrafficClass}, since a waiting
+     * thread inherits the rate and concurrency limits of the executing thread.
+     * Exceptions are expected to be handled by the {@link ApiExceptionHandler} inside of the request, the resulting
+     * {@link NetworkException} is thrown in all waiting threads.
+     * @param <T> The type of the result.
+     * @param request Executes the (GET) request, must not have side effects.
+     * @param operation The name of the REST operation, e.g., <tt>getAssignmentsOfCourse</tt>.
+     * @param parameters All parameters of the request.
+     * @return The result of the request, must not be modified since it may be shared with other threads.
+     * @throws NetworkException If network problems occur.
+     */
+    protected <T> T readShared(Loader<T> request, String operation, Object... parameters) throws NetworkException {
+        Deadline.check(basePath);
+        // API client not available during tests
+        String accessToken = null != apiClient ? getAccessToken() : null;
+        return IN_FLIGHT_READS.execute(CacheKey.of(basePath, accessToken, TrafficClass.current(), operation,
+            CacheKey.of(parameters)), request);
+    }
+    
+    /**
+     * Executes a (blocking) request by the {@link #setAsyncExecutor(Executor) executor for asynchronous requests}.
+     * Exceptions are expected to be handled by the {@link ApiExceptionHandler} inside of the request, the future
+     * completes exceptionally with the resulting {@link NetworkException}. The request inherits the {@link Deadline}
+     * and the {@link TrafficClass} of the calling thread. Requests, which are cancelled before a thread of the
+     * executor is available, are not sent.<br/>
+     * Each request blocks one thread of the executor for the whole HTTP call. Callers must not block (e.g., via
+     * <tt>join()</tt> or <tt>get()</tt>) on further asynchronous requests inside of stages, which run in the
+     * executor; such stages should be composed via <tt>thenCompose</tt> instead, otherwise the executor may starve.
+     * @param <T> The type of the result.
+     * @param request Executes the request, usually by calling the synchronous counterpart of the asynchronous method.
+     * @return The future result of the request.
+     */
+    protected <T> CompletableFuture<T> executeAsync(Loader<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Deadline deadline = Deadline.current();
+        TrafficClass trafficClass = TrafficClass.current();
+        try {
+            asyncExecutor.execute(() -> {
+                // Skip requests, which were cancelled while waiting for a thread
+                if (!result.isCancelled()) {
+                    try (Deadline.Scope scope = null != deadline ? deadline.activate() : null;
+                        TrafficClass.Scope classScope = trafficClass.activate()) {
+                        result.complete(request.load());
+                    } catch (NetworkException | RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Sets the executor, which executes the asynchronous requests of this protocol (e.g., to use more threads or to
+     * execute requests in the thread of a UI framework). By default, the bounded
+     * {@link HttpClientFactory#getAsyncExecutor() pool of the factory} is shared by all protocol instances, which
+     * use the same factory.
+     * @param executor The executor for asynchronous requests.
+     */
+    public void setAsyncExecutor(Executor executor) {
+        this.asyncExecutor = executor;
+    }
+    
+    /**
+     * Executes the asynchronous requests of this protocol by an own bounded pool of daemon threads, e.g., so that
+     * slow requests of this protocol do not delay the asynchronous requests of other protocols.
+     * @param nThreads The maximum number of threads.
+     */
+    public void setAsyncThreads(int nThreads) {
+        setAsyncExecutor(HttpClientFactory.createAsyncExecutor(nThreads, "protocol-async-" + courseName));
+    }
+    
+    /**
+     * Enables hedging of idempotent reads (e.g., <tt>getAssignmentsOfCourse</tt> or <tt>getUserById</tt>): If the
+     * server does not answer within a percentile of the recent latencies, a second identical request is sent and the
+     * first response is used. Affects all requests of this protocol (and of protocols sharing its {@link ApiClient}).
+     * @param policy The hedging policy, <tt>null</tt> disables hedging (default).
+     * @return <tt>true</tt> if the policy was applied, <tt>false</tt> if the used {@link ApiClient} does not support
+     *     hedging (e.g., during tests).
+     */
+    public boolean setHedgingPolicy(HedgingPolicy policy) {
+        boolean supported = apiClient instanceof CachingApiClient;
+        if (supported) {
+            ((CachingApiClient) apiClient).getHedging().setPolicy(policy);
+        }
+        return supported;
+    }
+    
+    /**
+     * Executes a request, which returns a JSON array, and decodes the elements incrementally while the response is
+     * read. In contrast to the generated APIs, the complete list is never materialized, i.e., only one element is
+     * held in memory at a time (unless the consumer keeps them).
+     * @param <T> The type of the elements.
+     * @param call The request as created by the <tt>...Call</tt> methods of the generated APIs.
+     * @param elementType The type of the elements, e.g., <tt>AssessmentDto.class</tt>.
+     * @param consumer Processes the decoded elements in the order of the response.
+     * @throws ApiException If the request fails, the server answers with an error code, or the response is
+     *     malformed; to be handled by the {@link ApiExceptionHandler}.
+     */
+    protected <T> void streamList(Call call, Type elementType, Consumer<T> consumer) throws ApiException {
+        // API client not available during tests
+        Gson gson = (null != apiClient ? apiClient.getJSON() : new JSON()).getGson();
+        try {
+            Response response = call.execute();
+            try (ResponseBody body = response.body()) {
+                if (!response.isSuccessful()) {
+                    throw new ApiException(response.message(), response.code(), response.headers().toMultimap(),
+                        body.string());
+                }
+                JsonReader reader = new JsonReader(body.charStream());
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    consumer.accept(gson.fromJson(reader, elementType));
+                }
+                reader.endArray();
+            }
+        } catch (IOException | JsonParseException e) {
+            throw new ApiException(e);
+        }
+    }
+    
     /**
      * The URL to the student management REST server.
      * @return The URL to the student management REST server.
@@ -199,31 +407,119 @@ public class NetworkProtocol {
      */
     public void setSemester(String semester) {
         this.semester = semester;
-        courseId = null;
+    }
+    
+    /**
+     * Returns the process-wide cache of resolved course IDs, which is shared by all protocol instances.
+     * May be used to configure the time to live or to invalidate IDs of all courses.
+     * @return The cache in form of ((basePath, courseName, semester), courseID).
+     * @see #invalidateCourseID()
+     */
+    public static ProtocolCache<CacheKey, String> getCourseIdCache() {
+        return SHARED_COURSE_IDS;
     }
     
     /**
      * Getter for the ID of the course.
+     * The ID is resolved only once (per time to live) for all protocol instances of the same server, course, and
+     * semester.
      * @return the id of the course.
      * @throws NetworkException when network problems occur.
      */
     public String getCourseID() throws NetworkException {
-        if (courseId == null || courseId.isEmpty()) {
-            
+        String currentSemester = semester;
+        return courseIds.get(CacheKey.of(basePath, courseName, currentSemester), () -> readShared(() -> {
+            String courseId;
             try {
-                CourseDto course = apiCourse.getCourses(null, null, courseName, semester, null).stream()
+                CourseDto course = apiCourse.getCourses(null, null, courseName, currentSemester, null).stream()
                     .filter(c -> c.getShortname().equals(courseName))
                     .findAny()
                     .orElseThrow(() -> new DataNotFoundException("Course not found", courseName,
                         DataType.COURSE_NOT_FOUND));
                 courseId = course.getId();
+                recordSnapshot(d -> d.setCourseId(course.getId()));
             } catch (Exception e) {
                 ApiExceptionHandler.handleException(e, getBasePath());
                 throw new DataNotFoundException("Course not found", courseName, DataType.COURSE_NOT_FOUND);
             }
+            
+            return courseId;
+        }, "getCourses", courseName, currentSemester));
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #getCourseID()}.
+     * @return The future ID of the course, completes exceptionally with a {@link NetworkException} if network
+     *     problems occur.
+     */
+    public CompletableFuture<String> getCourseIDAsync() {
+        return executeAsync(this::getCourseID);
+    }
+    
+    /**
+     * Removes the ID of the currently used course (server, course name, and semester) from the cache, it will be
+     * resolved again at the next access.
+     */
+    public void invalidateCourseID() {
+        courseIds.invalidate(CacheKey.of(basePath, courseName, semester));
+    }
+    
+    /**
+     * Enables an on-disk snapshot of the downloaded data (course ID, assignments, groups, and participants) and
+     * restores the data, which was stored by previous processes of the same user. Restored data expires according to
+     * the time to live of the caches, relative to the time it was downloaded.
+     * @param store The store to use, <tt>null</tt> disables the snapshot.
+     * @param userName The logged in user, since the visible data depends on the rights of the user.
+     */
+    public void setSnapshotStore(SnapshotStore store, String userName) {
+        snapshots = store;
+        snapshotUser = userName;
+        if (null != store) {
+            Document document = store.read(getSnapshotScope());
+            Timestamped<String> courseId = document.getCourseId();
+            if (null != courseId && null != courseId.getData()) {
+                courseIds.put(CacheKey.of(basePath, courseName, semester), courseId.getData(),
+                    courseId.getTimestamp());
+                restoreSnapshot(document, courseId.getData());
+            }
         }
-                
-        return courseId;
+    }
+    
+    /**
+     * Restores downloaded data from a snapshot into the caches, subclasses may restore additional data.
+     * @param document The data of the snapshot.
+     * @param courseId The ID of the course, to which the data belongs.
+     */
+    void restoreSnapshot(Document document, String courseId) {
+        Timestamped<List<AssignmentDto>> assignments = document.getAssignments();
+        if (null != assignments && null != assignments.getData()) {
+            assignmentCatalog.seed(courseId, assignments.getData(), assignments.getTimestamp());
+        }
+        for (Map.Entry<String, Timestamped<List<GroupDto>>> groups : document.getGroups().entrySet()) {
+            if (null != groups.getValue().getData()) {
+                groupRegistry.seed(courseId, groups.getKey(), groups.getValue().getData(),
+                    groups.getValue().getTimestamp());
+            }
+        }
+    }
+    
+    /**
+     * Stores downloaded data in the snapshot, if a {@link #setSnapshotStore(SnapshotStore, String) snapshot store}
+     * is used.
+     * @param change Stores the downloaded data into the snapshot.
+     */
+    void recordSnapshot(Consumer<Document> change) {
+        if (null != snapshots) {
+            snapshots.update(getSnapshotScope(), change);
+        }
+    }
+    
+    /**
+     * Identifies the snapshot of the current server, course, semester, and user.
+     * @return The scope of the snapshot.
+     */
+    private String getSnapshotScope() {
+        return basePath + "|" + courseName + "|" + semester + "|" + snapshotUser;
     }
     
     /**
@@ -233,60 +529,77 @@ public class NetworkProtocol {
      * @throws NetworkException when network problems occur.
      */
     public List<CourseDto> getCourses(String userID) throws NetworkException {
-        List<CourseDto> courses = null;
-        try {
-            courses = apiUser.getCoursesOfUser(userID);
-        } catch (Exception e) {
-            ApiExceptionHandler.handleException(e, getBasePath());
-            throw new DataNotFoundException("User not found", userID, DataType.USER_NOT_FOUND);
-        }
-        
-        if (null == courses) {
-            courses = new ArrayList<>();
-        }
+        List<CourseDto> courses = readShared(() -> {
+            List<CourseDto> result;
+            try {
+                result = apiUser.getCoursesOfUser(userID);
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("User not found", userID, DataType.USER_NOT_FOUND);
+            }
+            return result;
+        }, "getCoursesOfUser", userID);
         
-        return courses;
+        // Copy, since the result may be shared with other threads
+        return null != courses ? new ArrayList<>(courses) : new ArrayList<>();
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #getCourses(String)}.
+     * @param userID The id of the user whose course is requested.
+     * @return The future list of all courses from the user, completes exceptionally with a {@link NetworkException}
+     *     if network problems occur.
+     */
+    public CompletableFuture<List<CourseDto>> getCoursesAsync(String userID) {
+        return executeAsync(() -> getCourses(userID));
     }
     
     /**
      * Getter for all assignments of a course.
+     * The assignments are downloaded only once per time to live, see {@link #getAssignmentCatalog()}.
      * @param states Optional filters for {@link AssignmentDto} that matches the specified states, will return all
      *     assignments if states are <tt>null</tt> or empty.
      * @return the assignments of a course (will never be <tt>null</tt>).
      * @throws NetworkException when network problems occur.
      */
     public List<Assignment> getAssignments(AssignmentDto.StateEnum... states) throws NetworkException {
-        final List<Assignment> assignments = new ArrayList<>();
-        try {
-            apiAssignments.getAssignmentsOfCourse(getCourseID()).stream()
-                // Arrays as stream based on https://stackoverflow.com/a/1128728
-                .filter(a -> null == states || states.length == 0
-                    || Arrays.stream(states).anyMatch(a.getState()::equals))
-                .map(a -> toAssignment(a))
-                .filter(a -> null != a)
-                .forEach(assignments::add);
-        } catch (Exception e) {
-            ApiExceptionHandler.handleException(e, getBasePath());
-            throw new DataNotFoundException("Assignment not found", getCourseID(), DataType.ASSIGNMENTS_NOT_FOUND);
-        }
-        
-        return assignments;
+        String courseId = getCourseID();
+        return assignmentCatalog.getAssignments(courseId, () -> readShared(() -> {
+            List<AssignmentDto> assignments;
+            try {
+                assignments = apiAssignments.getAssignmentsOfCourse(courseId);
+                if (null != assignments) {
+                    List<AssignmentDto> downloaded = assignments;
+                    recordSnapshot(d -> d.setAssignments(downloaded));
+                }
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("Assignment not found", courseId, DataType.ASSIGNMENTS_NOT_FOUND);
+            }
+            
+            return assignments;
+        }, "getAssignmentsOfCourse", courseId), states);
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #getAssignments(AssignmentDto.StateEnum...)}.
+     * @param states Optional filters for {@link AssignmentDto} that matches the specified states, will return all
+     *     assignments if states are <tt>null</tt> or empty.
+     * @return The future assignments of the course, completes exceptionally with a {@link NetworkException} if
+     *     network problems occur.
+     */
+    public CompletableFuture<List<Assignment>> getAssignmentsAsync(AssignmentDto.StateEnum... states) {
+        return executeAsync(() -> getAssignments(states));
     }
     
     /**
-     * Part of {@link #getAssignments(net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum) to handle
-     * exception in cases of data, which cannot be handled by the tools.
-     * @param dto The {@link AssignmentDto} retrieved by the REST server.
-     * @return The equivalence to be handled by the reviewer / submitters
+     * Returns the catalog of all assignments of the course, which is used by {@link #getAssignments(
+     * net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum...)}.
+     * May be used to configure the time to live or to invalidate the assignments after they were changed.
+     * @return The assignment catalog of this protocol.
      */
-    private static Assignment toAssignment(AssignmentDto dto) {
-        Assignment assignment = null;
-        try {
-            assignment = new Assignment(dto);
-        } catch (IllegalArgumentException e) {
-            LOGGER.warn("Error occured while handling {}, discared it because of {}", dto, e.getMessage());
-        }
-        return assignment;
+    public AssignmentCatalog getAssignmentCatalog() {
+        return assignmentCatalog;
     }
     
     /**
@@ -311,6 +624,16 @@ public class NetworkProtocol {
         return assessments;
     }
     
+    /**
+     * Asynchronous counterpart of {@link #getAssessmentsWithGroups(String)}.
+     * @param userId The user whose assessments are requested.
+     * @return The future assessments of the user, completes exceptionally with a {@link NetworkException} if network
+     *     problems occur.
+     */
+    public CompletableFuture<List<AssessmentDto>> getAssessmentsWithGroupsAsync(String userId) {
+        return executeAsync(() -> getAssessmentsWithGroups(userId));
+    }
+    
     /**
      * Returns the destination path of an <b>Assessment</b> for a <b>Student</b> inside the repository, considering
      * its <b>Group</b> assignment for that specific assessment.
@@ -336,26 +659,129 @@ public class NetworkProtocol {
     
     /**
      * Getter for the groups of an assignment at submission end.
+     * The groups are downloaded only once per time to live, see {@link #getGroupRegistry()}.
      * @param assignmentId The ID of the assignment for that the groups are requested.
      * @return A list of groups at the end of submission. List will be empty if no results are found.
      * @throws NetworkException If network problems occur.
      */
     public List<GroupDto> getGroupsAtAssignmentEnd(String assignmentId) throws NetworkException {
-        List<GroupDto> groups = null;
+        String courseId = getCourseID();
+        return groupRegistry.getGroups(courseId, assignmentId, () -> loadGroups(courseId, assignmentId));
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #getGroupsAtAssignmentEnd(String)}.
+     * @param assignmentId The ID of the assignment for that the groups are requested.
+     * @return The future list of groups at the end of submission, completes exceptionally with a
+     *     {@link NetworkException} if network problems occur.
+     */
+    public CompletableFuture<List<GroupDto>> getGroupsAtAssignmentEndAsync(String assignmentId) {
+        return executeAsync(() -> getGroupsAtAssignmentEnd(assignmentId));
+    }
+    
+    /**
+     * Paged variant of {@link #getGroupsAtAssignmentEnd(String)}: Downloads the groups page by page and prefetches
+     * the next page while the current page is consumed. Does not use (or fill) the {@link #getGroupRegistry()}.
+     * @param assignmentId The ID of the assignment for that the groups are requested.
+     * @param pageSize The number of groups per page, e.g., {@link PagedIterator#DEFAULT_PAGE_SIZE}.
+     * @return An iterator over the groups at the end of submission.
+     * @throws NetworkException If network problems occur.
+     */
+    public PagedIterator<GroupDto> iterateGroupsAtAssignmentEnd(String assignmentId, int pageSize)
+        throws NetworkException {
         
-        try {
-            groups = apiAssignmentRegistrations.getRegisteredGroups(getCourseID(), assignmentId, null, null, null);
-        } catch (Exception e) {
-            ApiExceptionHandler.handleException(e, getBasePath());
-            throw new DataNotFoundException("No Groups for the assignment found", assignmentId, 
+        String courseId = getCourseID();
+        return new PagedIterator<>((skip, take) -> executeAsync(() -> {
+            List<GroupDto> groups = null;
+            try {
+                groups = apiAssignmentRegistrations.getRegisteredGroups(courseId, assignmentId, new BigDecimal(skip),
+                    new BigDecimal(take), null);
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("No Groups for the assignment found", assignmentId,
                     DataType.GROUP_NOT_FOUND);
-        }
-        
-        if (null == groups) {
-            groups = new ArrayList<>();
-        }
+            }
+            
+            return groups;
+        }), pageSize);
+    }
+    
+    /**
+     * Returns the group with the specified name that is registered for an assignment at submission end.
+     * @param assignmentId The ID of the assignment for that the group is requested.
+     * @param groupName The name of the group.
+     * @return The group or <tt>null</tt> if no such group is registered for the assignment.
+     * @throws NetworkException If network problems occur.
+     */
+    public GroupDto getGroupAtAssignmentEnd(String assignmentId, String groupName) throws NetworkException {
+        String courseId = getCourseID();
+        return groupRegistry.getGroupByName(courseId, assignmentId, groupName,
+            () -> loadGroups(courseId, assignmentId));
+    }
+    
+    /**
+     * Returns the group of a user that is registered for an assignment at submission end.
+     * @param assignmentId The ID of the assignment for that the group is requested.
+     * @param userName The user name (RZ name) of the group member.
+     * @return The group or <tt>null</tt> if the user is not member of a group registered for the assignment.
+     * @throws NetworkException If network problems occur.
+     */
+    public GroupDto getGroupOfMemberAtAssignmentEnd(String assignmentId, String userName) throws NetworkException {
+        String courseId = getCourseID();
+        return groupRegistry.getGroupOfMember(courseId, assignmentId, userName,
+            () -> loadGroups(courseId, assignmentId));
+    }
+    
+    /**
+     * Returns the registry of the groups of all assignments, which is used by
+     * {@link #getGroupsAtAssignmentEnd(String)}.
+     * May be used to configure the time to live or to invalidate the groups after they were changed.
+     * @return The group registry of this protocol.
+     */
+    public GroupRegistry getGroupRegistry() {
+        return groupRegistry;
+    }
+    
+    /**
+     * Returns the statistics of all caches used by this protocol, to check if they reduce the load of the server.
+     * @return The statistics in form of (name of the cache, statistics), contains at least <tt>courseIds</tt>
+     *     (shared by all protocol instances), <tt>assignments</tt>, and <tt>groups</tt>.
+     */
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        Map<String, CacheStatistics> statistics = new LinkedHashMap<>();
+        statistics.put("courseIds", courseIds.getStatistics());
+        statistics.put("assignments", assignmentCatalog.getStatistics());
+        statistics.put("groups", groupRegistry.getStatistics());
         
-        return groups;
+        return statistics;
+    }
+    
+    /**
+     * Downloads the groups of an assignment at submission end, used to fill the {@link GroupRegistry}.
+     * Concurrent downloads of the same groups are coalesced, see {@link #readShared(Loader, String, Object...)}.
+     * @param courseId The ID of the course.
+     * @param assignmentId The ID of the assignment for that the groups are requested.
+     * @return A list of groups at the end of submission.
+     * @throws NetworkException If network problems occur.
+     */
+    private List<GroupDto> loadGroups(String courseId, String assignmentId) throws NetworkException {
+        return readShared(() -> {
+            List<GroupDto> groups = null;
+            
+            try {
+                groups = apiAssignmentRegistrations.getRegisteredGroups(courseId, assignmentId, null, null, null);
+                if (null != groups) {
+                    List<GroupDto> downloaded = groups;
+                    recordSnapshot(d -> d.setGroups(assignmentId, downloaded));
+                }
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("No Groups for the assignment found", assignmentId, 
+                        DataType.GROUP_NOT_FOUND);
+            }
+            
+            return groups;
+        }, "getRegisteredGroups", courseId, assignmentId);
     }
 }
 // checkstyle: start exception type check
@@ -0,0 +1,48 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * {@link Transport} based on OkHttp (HTTP/1.1), this is the default transport of the {@link HttpClientFactory}.
+ * May also be used with a separately configured client, e.g., with a different proxy or TLS configuration.
+ *
+ * @author agent
+ *
+ */
+public class OkHttpTransport implements Transport {
+
+    private final OkHttpClient client;
+
+    /**
+     * Creates a transport, which uses the specified client.
+     * @param client The client to send the requests, must not contain a transport interceptor.
+     */
+    public OkHttpTransport(OkHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Response execute(Request request, long timeoutMillis) throws IOException {
+        OkHttpClient usedClient = client;
+        if (timeoutMillis > 0) {
+            // Clones share connection pool and dispatcher
+            usedClient = client.clone();
+            usedClient.setConnectTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            usedClient.setReadTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            usedClient.setWriteTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return usedClient.newCall(request).execute();
+    }
+
+    @Override
+    public void cancel(Request request) {
+        // Clones share the dispatcher, which tracks all executed calls
+        client.cancel(request.tag());
+    }
+}
@@ -0,0 +1,158 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Iterates over a list, which is downloaded page by page via the <tt>skip</tt> / <tt>take</tt> parameters of the
+ * REST API. While the elements of page <tt>N</tt> are consumed, page <tt>N + 1</tt> is already downloaded in the
+ * background, so that processing and transfer overlap. At most two pages are held in memory.<br/>
+ * Instances are not thread-safe and should be {@link #close() closed} if they are not consumed completely.
+ *
+ * @param <T> The type of the elements.
+ * @author agent
+ *
+ */
+public class PagedIterator<T> implements AutoCloseable {
+
+    /**
+     * Default number of elements per page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Requests one page from the server.
+     *
+     * @param <T> The type of the elements.
+     * @author agent
+     *
+     */
+    public static interface PageRequest<T> {
+
+        /**
+         * Starts the (asynchronous) download of a page.
+         * @param skip The number of elements to skip.
+         * @param take The maximum number of elements of the page.
+         * @return The future page, completes exceptionally with a {@link NetworkException} if network problems
+         *     occur.
+         */
+        CompletableFuture<List<T>> request(int skip, int take);
+    }
+
+    private final PageRequest<T> pageRequest;
+    private final int pageSize;
+
+    private List<T> currentPage = Collections.emptyList();
+    private int index;
+    private int nextSkip;
+    private int requestedPages;
+
+    /**
+     * The page, which is currently downloaded, <tt>null</tt> if the last page was already received.
+     */
+    private CompletableFuture<List<T>> nextPage;
+
+    /**
+     * Creates a new iterator and starts the download of the first page.
+     * @param pageRequest Requests the pages from the server.
+     * @param pageSize The number of elements per page, must be greater than 0.
+     */
+    public PagedIterator(PageRequest<T> pageRequest, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0, but was " + pageSize);
+        }
+        this.pageRequest = pageRequest;
+        this.pageSize = pageSize;
+        requestPage();
+    }
+
+    /**
+     * Returns <tt>true</tt> if there are further elements, may wait for the download of the next page.
+     * @return <tt>true</tt> if {@link #next()} will return an element.
+     * @throws NetworkException If the next page cannot be downloaded.
+     */
+    public boolean hasNext() throws NetworkException {
+        while (index >= currentPage.size() && null != nextPage) {
+            List<T> page = await(nextPage);
+            currentPage = null != page ? page : Collections.emptyList();
+            index = 0;
+            if (currentPage.size() == pageSize) {
+                // Prefetch the next page while the current page is consumed
+                requestPage();
+            } else {
+                // Smaller pages are the last page, larger pages show that the server does not support paging
+                nextPage = null;
+            }
+        }
+
+        return index < currentPage.size();
+    }
+
+    /**
+     * Returns the next element, may wait for the download of the next page.
+     * @return The next element.
+     * @throws NetworkException If the next page cannot be downloaded.
+     * @throws NoSuchElementException If there are no further elements.
+     */
+    public T next() throws NetworkException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return currentPage.get(index++);
+    }
+
+    /**
+     * Returns the number of requested pages (including the page, which is currently prefetched).
+     * @return The number of requested pages.
+     */
+    public int getNumberOfRequestedPages() {
+        return requestedPages;
+    }
+
+    /**
+     * Stops the iteration and discards the page, which is currently downloaded.
+     */
+    @Override
+    public void close() {
+        if (null != nextPage) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+        currentPage = Collections.emptyList();
+        index = 0;
+    }
+
+    /**
+     * Starts the download of the page following the last requested page.
+     */
+    private void requestPage() {
+        nextPage = pageRequest.request(nextSkip, pageSize);
+        nextSkip += pageSize;
+        requestedPages++;
+    }
+
+    /**
+     * Waits for a page.
+     * @param page The future page.
+     * @return The downloaded page.
+     * @throws NetworkException If the page cannot be downloaded.
+     */
+    private List<T> await(CompletableFuture<List<T>> page) throws NetworkException {
+        List<T> result;
+        try {
+            result = page.join();
+        } catch (CompletionException e) {
+            nextPage = null;
+            if (e.getCause() instanceof NetworkException) {
+                throw (NetworkException) e.getCause();
+            }
+            throw e;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto.RoleEnum;
+
+/**
+ * Stores all participants (students, tutors, lecturers) of a course, indexed by user name and user ID.
+ * The participants are downloaded with one request per time to live, lookups and role filters are answered locally.
+ * If a user name or ID is not known, the directory is refreshed, but at most once per
+ * {@link #setMissRefreshInterval(long, TimeUnit) miss refresh interval}, to pick up newly registered participants.
+ * Instances must not be shared between different users, since the visible participants depend on the rights of the
+ * user.
+ *
+ * @author agent
+ *
+ */
+public class ParticipantDirectory {
+
+    /**
+     * Default time to live (in seconds) of the downloaded participants.
+     */
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    /**
+     * Default minimum age (in seconds) of the downloaded participants, before an unknown user triggers a refresh.
+     */
+    public static final long DEFAULT_MISS_REFRESH_SECONDS = 10;
+
+    /**
+     * Immutable index of all participants of a course at a certain time.
+     */
+    private static class Snapshot extends IndexedSnapshotCache.Snapshot {
+        private final List<ParticipantDto> participants;
+        private final Map<String, ParticipantDto> byUserName = new HashMap<>();
+        private final Map<String, ParticipantDto> byUserId = new HashMap<>();
+
+        /**
+         * Indexes the specified participants.
+         * @param participants The participants as downloaded from the server, may be <tt>null</tt>.
+         * @param timestamp The time the participants were downloaded (in milliseconds).
+         */
+        private Snapshot(List<ParticipantDto> participants, long timestamp) {
+            super(timestamp);
+            List<ParticipantDto> all = new ArrayList<>();
+            if (null != participants) {
+                for (ParticipantDto participant : participants) {
+                    all.add(participant);
+                    byUserName.put(participant.getUsername(), participant);
+                    byUserId.put(participant.getUserId(), participant);
+                }
+            }
+            this.participants = Collections.unmodifiableList(all);
+        }
+    }
+
+    /**
+     * The participants in form of (courseID, indexed participants of the course).
+     */
+    private final IndexedSnapshotCache<String, ParticipantDto, Snapshot> directory;
+
+    /**
+     * Creates a new and empty directory.
+     */
+    ParticipantDirectory() {
+        directory = new IndexedSnapshotCache<>(DEFAULT_TTL_SECONDS, DEFAULT_MISS_REFRESH_SECONDS, Snapshot::new);
+    }
+
+    /**
+     * Returns the participants of the course that have one of the specified roles.
+     * @param courseId The ID of the course.
+     * @param loader Downloads all participants of the course, will only be used if they are not cached.
+     * @param roles Optional list of roles to filter, will return all participants if roles are <tt>null</tt> or
+     *     empty.
+     * @return The matching participants in the order of the server (will never be <tt>null</tt>).
+     * @throws NetworkException If the participants need to be downloaded and network problems occur.
+     */
+    List<ParticipantDto> getParticipants(String courseId, Loader<List<ParticipantDto>> loader, RoleEnum... roles)
+        throws NetworkException {
+
+        List<ParticipantDto> result = new ArrayList<>();
+        directory.get(courseId, loader).participants.stream()
+            .filter(p -> null == roles || roles.length == 0 || Arrays.stream(roles).anyMatch(r -> r == p.getRole()))
+            .forEach(result::add);
+
+        return result;
+    }
+
+    /**
+     * Returns the participant with the specified user name.
+     * @param courseId The ID of the course.
+     * @param userName The user name (RZ name) of the participant.
+     * @param loader Downloads all participants of the course, will only be used if they are not cached or the user
+     *     is unknown.
+     * @return The participant or <tt>null</tt> if the user is not a participant of the course.
+     * @throws NetworkException If the participants need to be downloaded and network problems occur.
+     */
+    ParticipantDto getByUserName(String courseId, String userName, Loader<List<ParticipantDto>> loader)
+        throws NetworkException {
+
+        return directory.lookup(courseId, loader, s -> s.byUserName.get(userName));
+    }
+
+    /**
+     * Returns the participant with the specified ID.
+     * @param courseId The ID of the course.
+     * @param userId The ID of the user as used by the <b>student management system</b>.
+     * @param loader Downloads all participants of the course, will only be used if they are not cached or the user
+     *     is unknown.
+     * @return The participant or <tt>null</tt> if the user is not a participant of the course.
+     * @throws NetworkException If the participants need to be downloaded and network problems occur.
+     */
+    ParticipantDto getByUserId(String courseId, String userId, Loader<List<ParticipantDto>> loader)
+        throws NetworkException {
+
+        return directory.lookup(courseId, loader, s -> s.byUserId.get(userId));
+    }
+
+    /**
+     * Restores previously downloaded participants, e.g., from a {@link SnapshotStore}.
+     * @param courseId The ID of the course.
+     * @param participants The participants as retrieved by the REST server.
+     * @param timestamp The time the participants were downloaded (in milliseconds), the time to live is applied
+     *     relative to this time.
+     */
+    void seed(String courseId, List<ParticipantDto> participants, long timestamp) {
+        directory.seed(courseId, participants, timestamp);
+    }
+
+    /**
+     * Removes all downloaded participants, they will be downloaded again at the next access.
+     */
+    public void invalidate() {
+        directory.invalidate();
+    }
+
+    /**
+     * Returns the current generation of the participants of a course, which changes each time the participants of
+     * this course are downloaded again or invalidated. Allows callers to detect that results derived from the
+     * participants (e.g., unsuccessful lookups) may be outdated.
+     * @param courseId The ID of the course.
+     * @return The current generation.
+     */
+    public long getGeneration(String courseId) {
+        return directory.getGeneration(courseId);
+    }
+
+    /**
+     * Changes the time to live of the downloaded participants.
+     * @param ttl The time after which the participants will be downloaded again.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    public void setTimeToLive(long ttl, TimeUnit unit) {
+        directory.setTimeToLive(ttl, unit);
+    }
+
+    /**
+     * Limits the number of courses, for which the participants are stored.
+     * @param maxSize The maximum number of courses.
+     * @param policy Selects the courses to remove, if the maximum size is exceeded.
+     */
+    public void setMaximumSize(int maxSize, ProtocolCache.EvictionPolicy policy) {
+        directory.setMaximumSize(maxSize, policy);
+    }
+
+    /**
+     * Returns the statistics about the usage of the downloaded participants.
+     * @return The current statistics.
+     */
+    public CacheStatistics getStatistics() {
+        return directory.getStatistics();
+    }
+
+    /**
+     * Changes the minimum age of the downloaded participants, before a lookup of an unknown user triggers a
+     * refresh.
+     * @param interval The minimum age, <tt>0</tt> refreshes the directory at each unsuccessful lookup.
+     * @param unit The unit of <tt>interval</tt>.
+     */
+    public void setMissRefreshInterval(long interval, TimeUnit unit) {
+        directory.setMissRefreshInterval(interval, unit);
+    }
+}
@@ -0,0 +1,351 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe cache for data retrieved from the <b>student management system</b>.
+ * Entries expire after a configurable time to live and may be invalidated explicitly, e.g., if the caller knows that
+ * the data was changed on the server. Optionally, the number of entries may be bounded: If the
+ * {@link #setMaximumSize(int) maximum size} is exceeded, expired entries and then entries selected by the
+ * {@link EvictionPolicy} are removed. The cache records {@link #getStatistics() statistics} about its usage.
+ *
+ * @param <K> The type of the keys, must provide proper {@link Object#equals(Object)} and {@link Object#hashCode()}
+ *     implementations (e.g., {@link CacheKey}).
+ * @param <V> The type of the cached values.
+ * @author agent
+ *
+ */
+public class ProtocolCache<K, V> {
+
+    /**
+     * Function to load a value from the server if it is not cached (or expired).
+     * @param <V> The type of the value to load.
+     * @author agent
+     *
+     */
+    public static interface Loader<V> {
+
+        /**
+         * Loads the value from the server.
+         * @return The loaded value, <tt>null</tt> values won't be cached.
+         * @throws NetworkException If network problems occur.
+         */
+        V load() throws NetworkException;
+    }
+
+    /**
+     * Selects the entries to remove, if the {@link ProtocolCache#setMaximumSize(int) maximum size} is exceeded.
+     * Expired entries are always removed first.
+     * @author agent
+     *
+     */
+    public static enum EvictionPolicy {
+
+        /**
+         * Removes the least recently used entries.
+         */
+        LRU(Comparator.comparingLong(e -> e.lastAccess)),
+
+        /**
+         * Removes the least frequently used entries, the least recently used ones if they are used equally often.
+         * Storing a value counts as access and the stored value is never removed by its own insertion, so that new
+         * keys are not dropped before they could be used.
+         */
+        LFU(Comparator.<Entry<?>>comparingLong(e -> e.accessCount.sum()).thenComparingLong(e -> e.lastAccess));
+
+        private final Comparator<Entry<?>> victimOrder;
+
+        /**
+         * Creates a policy.
+         * @param victimOrder Orders the entries, the first one will be removed first.
+         */
+        private EvictionPolicy(Comparator<Entry<?>> victimOrder) {
+            this.victimOrder = victimOrder;
+        }
+    }
+
+    /**
+     * A cached value, the time it was stored, and its usage.
+     * @param <V> The type of the cached value.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final long timestamp;
+        private volatile long lastAccess;
+        private final LongAdder accessCount = new LongAdder();
+
+        /**
+         * Creates a new cache entry.
+         * @param value The value to cache.
+         * @param timestamp The time the value was loaded (in milliseconds).
+         * @param access The sequence number of the current access.
+         */
+        private Entry(V value, long timestamp, long access) {
+            this.value = value;
+            this.timestamp = timestamp;
+            this.lastAccess = access;
+            accessCount.increment();
+        }
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private volatile long ttlMillis;
+    private volatile int maxSize = Integer.MAX_VALUE;
+    private volatile EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+    /**
+     * Orders accesses for the {@link EvictionPolicy#LRU}, independent of the resolution of the clock.
+     */
+    private final AtomicLong accessSequence = new AtomicLong();
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     * @param ttl The time to live of an entry, after this time it will be loaded again from the server.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    public ProtocolCache(long ttl, TimeUnit unit) {
+        this(unit.toMillis(ttl), System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor intended for testing, allows to simulate the elapsed time.
+     * @param ttlMillis The time to live of an entry in milliseconds.
+     * @param clock Returns the current time in milliseconds.
+     */
+    ProtocolCache(long ttlMillis, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached value for the specified key or loads it if it is not cached or expired.
+     * @param key The key of the value.
+     * @param loader Loads the value from the server in case of a cache miss.
+     * @return The cached or loaded value.
+     * @throws NetworkException If the value needs to be loaded and network problems occur.
+     */
+    public V get(K key, Loader<V> loader) throws NetworkException {
+        V value = getIfPresent(key);
+        if (null == value) {
+            value = reload(key, loader);
+        }
+
+        return value;
+    }
+
+    /**
+     * Loads the value from the server, even if it is cached, and replaces the cached value. The load is recorded in
+     * the {@link #getStatistics() statistics}, like loads of {@link #get(Object, Loader)}.
+     * @param key The key of the value.
+     * @param loader Loads the value from the server.
+     * @return The loaded value.
+     * @throws NetworkException If network problems occur.
+     */
+    public V reload(K key, Loader<V> loader) throws NetworkException {
+        V value;
+        long start = System.nanoTime();
+        boolean loaded = false;
+        try {
+            value = loader.load();
+            loaded = true;
+        } finally {
+            loadTimeNanos.add(System.nanoTime() - start);
+            (loaded ? loads : loadFailures).increment();
+        }
+        put(key, value);
+
+        return value;
+    }
+
+    /**
+     * Returns the cached value without contacting the server.
+     * @param key The key of the value.
+     * @return The cached value or <tt>null</tt> if it is not cached or expired.
+     */
+    public V getIfPresent(K key) {
+        V value = null;
+        Entry<V> entry = entries.get(key);
+        if (null != entry) {
+            if (isExpired(entry)) {
+                entries.remove(key, entry);
+            } else {
+                value = entry.value;
+                entry.lastAccess = accessSequence.incrementAndGet();
+                entry.accessCount.increment();
+            }
+        }
+        (null != value ? hits : misses).increment();
+
+        return value;
+    }
+
+    /**
+     * Stores a value, replacing any previously stored value for the same key.
+     * @param key The key of the value.
+     * @param value The value to cache, <tt>null</tt> values won't be cached.
+     */
+    public void put(K key, V value) {
+        put(key, value, clock.getAsLong());
+    }
+
+    /**
+     * Stores a value, which was loaded at the specified time, e.g., restored from a {@link SnapshotStore}.
+     * The value expires as if it had been loaded at that time.
+     * @param key The key of the value.
+     * @param value The value to cache, <tt>null</tt> values won't be cached.
+     * @param timestamp The time the value was loaded (in milliseconds).
+     */
+    void put(K key, V value, long timestamp) {
+        if (null != value) {
+            Entry<V> entry = new Entry<>(value, timestamp, accessSequence.incrementAndGet());
+            entries.put(key, entry);
+            if (entries.size() > maxSize) {
+                evict(entry);
+            }
+        }
+    }
+
+    /**
+     * Reduces the number of entries to the {@link #setMaximumSize(int) maximum size}. Removes all expired entries
+     * first and, if this is not sufficient, the entries selected by the {@link EvictionPolicy}.
+     * Victims are selected by a linear scan, which is sufficient for the small caches of the protocol.
+     * @param inserted The entry, whose insertion exceeded the maximum size, will not be selected as victim
+     *     (may be <tt>null</tt>).
+     */
+    private void evict(Entry<V> inserted) {
+        entries.entrySet().removeIf(e -> isExpired(e.getValue()));
+        Comparator<Entry<?>> victimOrder = evictionPolicy.victimOrder;
+        while (entries.size() > maxSize) {
+            entries.entrySet().stream()
+                .filter(e -> e.getValue() != inserted)
+                .min((e1, e2) -> victimOrder.compare(e1.getValue(), e2.getValue()))
+                .filter(e -> entries.remove(e.getKey(), e.getValue()))
+                .ifPresent(e -> evictions.increment());
+        }
+    }
+
+    /**
+     * Removes the value for the specified key, it will be loaded from the server at the next access.
+     * @param key The key of the value to remove.
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all values, they will be loaded from the server at the next access.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Changes the time to live of all entries (also of already cached entries).
+     * @param ttl The time to live of an entry, after this time it will be loaded again from the server.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    public void setTimeToLive(long ttl, TimeUnit unit) {
+        ttlMillis = unit.toMillis(ttl);
+    }
+
+    /**
+     * Limits the number of entries, e.g., for caches whose keys are controlled by external input.
+     * @param maxSize The maximum number of entries, {@link Integer#MAX_VALUE} for an unbounded cache.
+     */
+    public void setMaximumSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive, was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        if (entries.size() > maxSize) {
+            evict(null);
+        }
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * @return The maximum number of entries, {@link Integer#MAX_VALUE} for an unbounded cache.
+     */
+    public int getMaximumSize() {
+        return maxSize;
+    }
+
+    /**
+     * Changes the strategy to select entries for removal, if the maximum size is exceeded.
+     * @param policy The eviction policy to use, default is {@link EvictionPolicy#LRU}.
+     */
+    public void setEvictionPolicy(EvictionPolicy policy) {
+        evictionPolicy = policy;
+    }
+
+    /**
+     * Returns the strategy to select entries for removal, if the maximum size is exceeded.
+     * @return The eviction policy.
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * Returns the statistics about the usage of this cache since its creation (or the last
+     * {@link #resetStatistics() reset}).
+     * @return The current statistics.
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(), loadTimeNanos.sum(),
+            evictions.sum(), entries.size());
+    }
+
+    /**
+     * Resets all counters of the {@link #getStatistics() statistics}, e.g., after the cache was re-configured.
+     */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        loads.reset();
+        loadFailures.reset();
+        loadTimeNanos.reset();
+        evictions.reset();
+    }
+
+    /**
+     * Returns the time to live of the entries.
+     * @param unit The unit in which the result shall be returned.
+     * @return The time to live of the entries.
+     */
+    public long getTimeToLive(TimeUnit unit) {
+        return unit.convert(ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the number of stored entries, may contain expired entries, which were not accessed since they expired.
+     * @return The number of stored entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Checks if the given entry is expired.
+     * @param entry The entry to check.
+     * @return <tt>true</tt> if the entry must not be used anymore.
+     */
+    private boolean isExpired(Entry<V> entry) {
+        return clock.getAsLong() - entry.timestamp >= ttlMillis;
+    }
+}
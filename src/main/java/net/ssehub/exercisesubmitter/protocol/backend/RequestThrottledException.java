@@ -0,0 +1,48 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+/**
+ * Declares an exception for the case, that a request was not sent, because the local limits of its
+ * {@link TrafficClass} were exhausted (see {@link TrafficControlInterceptor}). This is not a failure of the server,
+ * so it is neither retried nor counted by the {@link CircuitBreaker}.
+ *
+ * @author agent
+ *
+ */
+public class RequestThrottledException extends NetworkException {
+
+    /**
+     * Generated id.
+     */
+    private static final long serialVersionUID = -5829161384001923766L;
+
+    private final TrafficClass trafficClass;
+    private final String url;
+
+    /**
+     * An exception that occurs if a request was rejected by the local traffic control.
+     * @param message the error message that occurred.
+     * @param trafficClass the traffic class, whose limits were exhausted.
+     * @param url the url of the REST server, which should have been contacted.
+     */
+    public RequestThrottledException(String message, TrafficClass trafficClass, String url) {
+        super(message);
+        this.trafficClass = trafficClass;
+        this.url = url;
+    }
+
+    /**
+     * Returns the traffic class of the rejected request.
+     * @return The traffic class, whose limits were exhausted.
+     */
+    public TrafficClass getTrafficClass() {
+        return trafficClass;
+    }
+
+    /**
+     * Getter for the url of the REST server.
+     * @return the url of the REST server.
+     */
+    public String getURL() {
+        return url;
+    }
+}
@@ -0,0 +1,256 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Makes requests resilient against transient failures of the server:
+ * <ul>
+ *   <li>Idempotent requests (<tt>GET</tt> and <tt>HEAD</tt>) are retried on connection problems and on
+ *   <tt>502</tt>, <tt>503</tt>, and <tt>504</tt> responses. Retries are delayed by an exponential backoff with full
+ *   jitter (a random delay between 0 and <tt>baseDelay * 2^(attempt - 1)</tt>, limited to <tt>maxDelay</tt>), so
+ *   that many clients do not retry in lockstep. No retry is started if the {@link Deadline} of the operation would be
+ *   exceeded during the delay.</li>
+ *   <li>Each server (<tt>scheme://host:port</tt>) is protected by a {@link CircuitBreaker}. While it is open, all
+ *   requests to this server fail fast with an {@link IOException} caused by a {@link CircuitOpenException}.</li>
+ *   <li>Requests rejected by the {@link TrafficControlInterceptor} (caused by a {@link RequestThrottledException})
+ *   did not reach the server, so they are neither retried nor counted.</li>
+ * </ul>
+ * Installed by the {@link HttpClientFactory} directly before the transport, so that requests answered by a cache
+ * are neither retried nor counted by the circuit breakers.
+ *
+ * @author agent
+ *
+ */
+public class RetryInterceptor implements Interceptor {
+
+    /**
+     * Default maximum number of attempts (including the first one) of idempotent requests.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * Default delay (in milliseconds), which is doubled for each further retry.
+     */
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 100;
+
+    /**
+     * Default upper limit (in milliseconds) of the delay between two attempts.
+     */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 2000;
+
+    private static final Logger LOGGER = LogManager.getLogger(RetryInterceptor.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD");
+
+    private static final Set<Integer> TRANSIENT_STATUS_CODES = Set.of(502, 503, 504);
+
+    /**
+     * The circuit breakers in form of (server, breaker).
+     */
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * The listeners of all circuit breakers, shared with the breakers.
+     */
+    private final List<CircuitBreaker.StateListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong retries = new AtomicLong();
+
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private volatile long baseDelayMillis = DEFAULT_BASE_DELAY_MILLIS;
+    private volatile long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+    private volatile int failureThreshold = CircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+    private volatile long openMillis = TimeUnit.SECONDS.toMillis(CircuitBreaker.DEFAULT_OPEN_SECONDS);
+
+    /**
+     * Creates a new interceptor with default settings, which logs all state transitions of its circuit breakers.
+     */
+    public RetryInterceptor() {
+        listeners.add((breaker, from, to) -> LOGGER.warn("Circuit breaker of {} changed from {} to {}",
+            breaker.getServer(), from, to));
+    }
+
+    /**
+     * Configures the retries of idempotent requests.
+     * @param maxAttempts The maximum number of attempts (including the first one), <tt>1</tt> disables retries.
+     * @param baseDelay The delay, which is doubled for each further retry.
+     * @param maxDelay The upper limit of the delay between two attempts.
+     * @param unit The unit of <tt>baseDelay</tt> and <tt>maxDelay</tt>.
+     */
+    public void setBackoff(int maxAttempts, long baseDelay, long maxDelay, TimeUnit unit) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = unit.toMillis(baseDelay);
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+    }
+
+    /**
+     * Configures the circuit breakers, which are created afterwards.
+     * @param failureThreshold The number of consecutive failures, which open the circuit.
+     * @param openDuration The time the circuit stays open before a probe request is let through.
+     * @param unit The unit of <tt>openDuration</tt>.
+     */
+    public void setCircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = unit.toMillis(openDuration);
+    }
+
+    /**
+     * Registers a listener, which is informed about the state transitions of all circuit breakers.
+     * @param listener The listener to add.
+     */
+    public void addStateListener(CircuitBreaker.StateListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     * @param listener The listener to remove.
+     */
+    public void removeStateListener(CircuitBreaker.StateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the circuit breakers of all servers, which were contacted so far.
+     * @return The circuit breakers (a copy).
+     */
+    public List<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<>(breakers.values());
+    }
+
+    /**
+     * Returns the number of retries executed so far.
+     * @return The number of retries (without first attempts).
+     */
+    public long getNumberOfRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Checks if a status code denotes a transient unavailability of the server, i.e., a failure which is retried
+     * for idempotent requests.
+     * @param code The status code of a response.
+     * @return <tt>true</tt> if the server was not available.
+     */
+    static boolean isTransientStatus(int code) {
+        return TRANSIENT_STATUS_CODES.contains(code);
+    }
+
+    /**
+     * Returns the circuit breaker of the server of the specified URL, creates it if necessary.
+     * @param url A URL of the server.
+     * @return The circuit breaker of the server.
+     */
+    CircuitBreaker getCircuitBreaker(HttpUrl url) {
+        return breakers.computeIfAbsent(HttpClientFactory.serverOf(url),
+            s -> new CircuitBreaker(s, failureThreshold, openMillis, listeners));
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        CircuitBreaker breaker = getCircuitBreaker(request.httpUrl());
+        int attempts = IDEMPOTENT_METHODS.contains(request.method()) ? maxAttempts : 1;
+        Response response = null;
+        int attempt = 0;
+        while (null == response) {
+            attempt++;
+            boolean lastAttempt = attempt >= attempts;
+            if (!breaker.tryAcquire()) {
+                String msg = "Server " + breaker.getServer() + " is unavailable, request not sent";
+                throw new IOException(msg, new CircuitOpenException(msg, breaker.getServer()));
+            }
+            boolean reported = false;
+            try {
+                response = chain.proceed(request);
+                boolean failed = TRANSIENT_STATUS_CODES.contains(response.code());
+                reported = record(breaker, failed);
+                if (failed && !lastAttempt && backoff(attempt)) {
+                    response.body().close();
+                    response = null;
+                }
+            } catch (IOException e) {
+                // The loser of a hedged call was cancelled by the client and a throttled request was rejected by the
+                // local traffic control, both are not failures of the server
+                boolean notCounted = HedgingInterceptor.isCancelled(request)
+                    || TrafficControlInterceptor.isThrottled(e);
+                if (!notCounted) {
+                    reported = record(breaker, true);
+                }
+                if (notCounted || lastAttempt || !backoff(attempt)) {
+                    throw e;
+                }
+            } finally {
+                if (!reported) {
+                    // Cancelled, deadline exceeded, or unexpected RuntimeException: never keep the probe slot
+                    breaker.onAbandoned();
+                }
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * Reports the result of an attempt to the circuit breaker. Failures, which are caused by an exceeded
+     * {@link Deadline} of the client, are not counted.
+     * @param breaker The circuit breaker of the contacted server.
+     * @param failed <tt>true</tt> if the server was not reachable or not available.
+     * @return <tt>true</tt> if the result was reported, <tt>false</tt> if it was not counted.
+     */
+    private boolean record(CircuitBreaker breaker, boolean failed) {
+        boolean counted = true;
+        if (!failed) {
+            breaker.onSuccess();
+        } else if (!Deadline.isCurrentExceeded()) {
+            breaker.onFailure();
+        } else {
+            counted = false;
+        }
+
+        return counted;
+    }
+
+    /**
+     * Waits before the next attempt.
+     * @param attempt The number of the failed attempt (starting at <tt>1</tt>).
+     * @return <tt>true</tt> if the request shall be retried, <tt>false</tt> if the {@link Deadline} does not leave
+     *     enough time for a further attempt.
+     * @throws InterruptedIOException If the thread was interrupted while waiting.
+     */
+    private boolean backoff(int attempt) throws InterruptedIOException {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(0, cap) + 1);
+        Deadline deadline = Deadline.current();
+        boolean retry = null == deadline || deadline.getRemaining(TimeUnit.MILLISECONDS) > delay;
+        if (retry) {
+            retries.incrementAndGet();
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a retry");
+            }
+        }
+
+        return retry;
+    }
+}
@@ -1,10 +1,16 @@
 package net.ssehub.exercisesubmitter.protocol.backend;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.studentmgmt.backend_api.ApiException;
 import net.ssehub.studentmgmt.backend_api.api.AssessmentApi;
 import net.ssehub.studentmgmt.backend_api.api.AssignmentApi;
 import net.ssehub.studentmgmt.backend_api.api.CourseApi;
@@ -38,13 +44,28 @@ public class ReviewerProtocol extends NetworkProtocol {
      */
     private CourseParticipantsApi apiParticipants;
     
+    /**
+     * All participants of the course, downloaded once per time to live.
+     */
+    private ParticipantDirectory participants = new ParticipantDirectory();
+    
     /**
      * The default constructor of the class to be used by the reviewer.
      * @param basePath The REST URL of the student management server.
      * @param courseName The course that is associated with the ExerciseReviewer.
      */
     public ReviewerProtocol(String basePath, String courseName) {
-        super(basePath, courseName);
+        this(basePath, courseName, HttpClientFactory.getDefault());
+    }
+    
+    /**
+     * Constructor to select the connections and transport used by the reviewer.
+     * @param basePath The REST URL of the student management server.
+     * @param courseName The course that is associated with the ExerciseReviewer.
+     * @param factory The factory to create the HTTP client, e.g., with a {@link JdkHttpTransport} to use HTTP/2.
+     */
+    public ReviewerProtocol(String basePath, String courseName, HttpClientFactory factory) {
+        super(basePath, courseName, factory);
         // Use always getApiClient() to keep same settings (e.g., setting of access token)
         apiAssessments = new AssessmentApi(getApiClient());
         apiParticipants = new CourseParticipantsApi(getApiClient());
@@ -63,9 +84,29 @@ public class ReviewerProtocol extends NetworkProtocol {
     //checkstyle: stop parameter number check
     ReviewerProtocol(String basePath, String courseName, UserApi apiUser, CourseApi apiCourse,
             AssignmentApi apiAssignments, AssessmentApi apiAssessments, GroupApi apiGroup) {
+    //checkstyle: start parameter number check
+        this(basePath, courseName, apiUser, apiCourse, apiAssignments, apiAssessments, apiGroup, null);
+    }
+    
+    /**
+     * Constructor intended for testing (Inversion of Control allows setting of Mocks).
+     * @param basePath The REST URL of the student management server.
+     * @param courseName The course that is associated with the exercise submitter.
+     * @param apiUser The API to query <b>user</b> related information.
+     * @param apiCourse The API to query <b>course</b> related information.
+     * @param apiAssignments The API to query <b>assignment</b> related information.
+     * @param apiAssessments The API to query <b>assessment</b> related information.
+     * @param apiGroup The API to query <b>group</b> related information.
+     * @param apiParticipants The API to query <b>participant</b> related information.
+     */
+    //checkstyle: stop parameter number check
+    ReviewerProtocol(String basePath, String courseName, UserApi apiUser, CourseApi apiCourse,
+            AssignmentApi apiAssignments, AssessmentApi apiAssessments, GroupApi apiGroup,
+            CourseParticipantsApi apiParticipants) {
     //checkstyle: start parameter number check
         super(basePath, courseName, apiUser, apiCourse, apiAssignments, apiGroup);
         this.apiAssessments = apiAssessments;
+        this.apiParticipants = apiParticipants;
     }
     
     /**
@@ -78,41 +119,193 @@ public class ReviewerProtocol extends NetworkProtocol {
      * @throws NetworkException when network problems occur.
      */
     public List<AssessmentDto> getAssessments(String assignmentId, String groupName) throws NetworkException {
-        List<AssessmentDto> assessments = null;
+        String courseId = super.getCourseID();
+        List<AssessmentDto> assessments = readShared(() -> {
+            List<AssessmentDto> result;
+            try {
+                result = apiAssessments.getAssessmentsForAssignment(courseId, assignmentId, null, null, groupName,
+                    null, null, null, null);
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("Assessments not found", getCourseName(),
+                    DataType.ASSESSMENTS_NOT_FOUND);
+            }
+            return result;
+        }, "getAssessmentsForAssignment", courseId, assignmentId, groupName);
+        
+        // Copy, since the result may be shared with other threads
+        return null != assessments ? new ArrayList<>(assessments) : null;
+    }
+    
+    /**
+     * Streaming variant of {@link #getAssessments(String, String)}: The assessments are decoded incrementally while
+     * the response is received and passed one by one to the consumer, so that the complete list of assessments (with
+     * all group members and partial assessments) is never held in memory.
+     * In contrast to {@link #getAssessments(String, String)}, concurrent identical requests are not coalesced.
+     * @param assignmentId the id of the specified assignment.
+     * @param groupName Optional: The name of the group (in case of group submission).
+     *     If this is <tt>null</tt>, all assessments are passed to the consumer.
+     * @param consumer Processes the assessments in the order sent by the server.
+     * @throws NetworkException when network problems occur.
+     */
+    public void forEachAssessment(String assignmentId, String groupName, Consumer<AssessmentDto> consumer)
+        throws NetworkException {
+        
+        String courseId = super.getCourseID();
         try {
-            assessments = apiAssessments.getAssessmentsForAssignment(super.getCourseID(), assignmentId, null, null,
-                groupName, null, null, null, null);
-        } catch (Exception e) {
+            streamList(apiAssessments.getAssessmentsForAssignmentCall(courseId, assignmentId, null, null, groupName,
+                null, null, null, null, null, null), AssessmentDto.class, consumer);
+        } catch (ApiException | IllegalArgumentException e) {
+            // Exceptions of the consumer are not caught
             ApiExceptionHandler.handleException(e, getBasePath());
             throw new DataNotFoundException("Assessments not found", getCourseName(), DataType.ASSESSMENTS_NOT_FOUND);
         }
+    }
+    
+    /**
+     * Paged variant of {@link #getAssessments(String, String)}: Downloads the assessments page by page and prefetches
+     * the next page while the current page is consumed.
+     * @param assignmentId the id of the specified assignment.
+     * @param groupName Optional: The name of the group (in case of group submission).
+     *     If this is <tt>null</tt>, all assessments are returned.
+     * @param pageSize The number of assessments per page, e.g., {@link PagedIterator#DEFAULT_PAGE_SIZE}.
+     * @return An iterator over the assessments.
+     * @throws NetworkException when network problems occur.
+     */
+    public PagedIterator<AssessmentDto> iterateAssessments(String assignmentId, String groupName, int pageSize)
+        throws NetworkException {
         
-        return assessments;
+        String courseId = super.getCourseID();
+        return new PagedIterator<>((skip, take) -> executeAsync(() -> {
+            List<AssessmentDto> assessments;
+            try {
+                assessments = apiAssessments.getAssessmentsForAssignment(courseId, assignmentId, new BigDecimal(skip),
+                    new BigDecimal(take), groupName, null, null, null, null);
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("Assessments not found", getCourseName(),
+                    DataType.ASSESSMENTS_NOT_FOUND);
+            }
+            return assessments;
+        }), pageSize);
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #getAssessments(String, String)}.
+     * @param assignmentId The ID of the assignment for which the assessments are requested.
+     * @param groupName Optional name of the group for which the assessments are requested.
+     * @return The future list of assessments, completes exceptionally with a {@link NetworkException} if network
+     *     problems occur.
+     */
+    public CompletableFuture<List<AssessmentDto>> getAssessmentsAsync(String assignmentId, String groupName) {
+        return executeAsync(() -> getAssessments(assignmentId, groupName));
     }
     
     /**
      * Returns the list of all participants (users, tutors, lecturers) of a course.
+     * The participants are downloaded only once per time to live, see {@link #getParticipantDirectory()}.
      * @param courseRoles Optional list of roles to filter.
      * @return All participants of the current course or only users that have one of the specified roles.
      * @throws NetworkException when network problems occur.
      */
     public List<ParticipantDto> getUsersOfCourse(RoleEnum... courseRoles) throws NetworkException {
-        List<ParticipantDto> users = null;
-        try {
-            List<String> roles = null;
-            if (null != courseRoles) {
-                roles = new ArrayList<>();
-                for (RoleEnum role : courseRoles) {
-                    roles.add(role.name());
+        String courseId = getCourseID();
+        return participants.getParticipants(courseId, () -> loadParticipants(courseId), courseRoles);
+    }
+    
+    /**
+     * Paged variant of {@link #getUsersOfCourse(RoleEnum...)}: Downloads the participants page by page and
+     * prefetches the next page while the current page is consumed. Does not use (or fill) the
+     * {@link #getParticipantDirectory()}, roles are filtered by the server.
+     * @param pageSize The number of participants per page, e.g., {@link PagedIterator#DEFAULT_PAGE_SIZE}.
+     * @param courseRoles Optional list of roles to filter.
+     * @return An iterator over all participants of the current course or only users that have one of the specified
+     *     roles.
+     * @throws NetworkException when network problems occur.
+     */
+    public PagedIterator<ParticipantDto> iterateUsersOfCourse(int pageSize, RoleEnum... courseRoles)
+        throws NetworkException {
+        
+        String courseId = getCourseID();
+        List<String> roles = null != courseRoles && courseRoles.length > 0
+            ? Arrays.stream(courseRoles).map(RoleEnum::getValue).collect(Collectors.toList()) : null;
+        return new PagedIterator<>((skip, take) -> executeAsync(() -> {
+            List<ParticipantDto> users;
+            try {
+                users = apiParticipants.getUsersOfCourse(courseId, new BigDecimal(skip), new BigDecimal(take), roles,
+                    null, null);
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("User(s) not found", getCourseName(), DataType.USER_NOT_FOUND);
+            }
+            return users;
+        }), pageSize);
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #getUsersOfCourse(RoleEnum...)}.
+     * @param courseRoles Optional list of roles to filter.
+     * @return The future participants of the course, completes exceptionally with a {@link NetworkException} if
+     *     network problems occur.
+     */
+    public CompletableFuture<List<ParticipantDto>> getUsersOfCourseAsync(RoleEnum... courseRoles) {
+        return executeAsync(() -> getUsersOfCourse(courseRoles));
+    }
+    
+    /**
+     * Downloads all participants of the course, used to fill the {@link ParticipantDirectory}.
+     * Concurrent downloads of the same participants are coalesced.
+     * @param courseId The ID of the course.
+     * @return All participants of the course.
+     * @throws NetworkException when network problems occur.
+     */
+    private List<ParticipantDto> loadParticipants(String courseId) throws NetworkException {
+        return readShared(() -> {
+            List<ParticipantDto> users = null;
+            try {
+                users = apiParticipants.getUsersOfCourse(courseId, null, null, null, null, null);
+                if (null != users) {
+                    List<ParticipantDto> downloaded = users;
+                    recordSnapshot(d -> d.setParticipants(downloaded));
                 }
+            } catch (Exception e) {
+                ApiExceptionHandler.handleException(e, getBasePath());
+                throw new DataNotFoundException("User(s) not found", getCourseName(), DataType.USER_NOT_FOUND);
             }
-            users = apiParticipants.getUsersOfCourse(getCourseID(), null, null, roles, null, null);            
-        } catch (Exception e) {
-            ApiExceptionHandler.handleException(e, getBasePath());
-            throw new DataNotFoundException("User(s) not found", getCourseName(), DataType.USER_NOT_FOUND);
+            
+            return users;
+        }, "getUsersOfCourse", courseId);
+    }
+    
+    @Override
+    void restoreSnapshot(SnapshotStore.Document document, String courseId) {
+        super.restoreSnapshot(document, courseId);
+        SnapshotStore.Timestamped<List<ParticipantDto>> users = document.getParticipants();
+        if (null != users && null != users.getData()) {
+            participants.seed(courseId, users.getData(), users.getTimestamp());
         }
+    }
+    
+    /**
+     * Returns the directory of all participants of the course, which is used by
+     * {@link #getUsersOfCourse(RoleEnum...)} and {@link #getStudentByName(String)}.
+     * May be used to configure the time to live or to invalidate the participants after they were changed.
+     * @return The participant directory of this protocol.
+     */
+    public ParticipantDirectory getParticipantDirectory() {
+        return participants;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Additionally contains the statistics of the <tt>participants</tt>.
+     */
+    @Override
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        Map<String, CacheStatistics> statistics = super.getCacheStatistics();
+        statistics.put("participants", participants.getStatistics());
         
-        return users;
+        return statistics;
     }
     
     /**
@@ -137,6 +330,19 @@ public class ReviewerProtocol extends NetworkProtocol {
         return singleAssessment;
     }
     
+    /**
+     * Asynchronous counterpart of {@link #getAssessmentForAssignment(String, String)}.
+     * @param assignmentId the id of the specified assignment.
+     * @param assessmentId the id of the specified assessment.
+     * @return The future assessment, completes exceptionally with a {@link NetworkException} if network problems
+     *     occur.
+     */
+    public CompletableFuture<AssessmentDto> getAssessmentForAssignmentAsync(String assignmentId,
+        String assessmentId) {
+        
+        return executeAsync(() -> getAssessmentForAssignment(assignmentId, assessmentId));
+    }
+    
     /**
      * Getter for one Assessment of an Assignment.
      * @param assignmentId the id of the specified assignment.
@@ -178,6 +384,17 @@ public class ReviewerProtocol extends NetworkProtocol {
         return id;
     }
     
+    /**
+     * Asynchronous counterpart of {@link #createAssessment(AssessmentCreateDto, String)}.
+     * @param body The Assessment body.
+     * @param assignmentId The id of the specified assignment.
+     * @return The future ID of the newly created assessment, completes exceptionally with a
+     *     {@link NetworkException} if network problems occur.
+     */
+    public CompletableFuture<String> createAssessmentAsync(AssessmentCreateDto body, String assignmentId) {
+        return executeAsync(() -> createAssessment(body, assignmentId));
+    }
+    
     /**
      * Creates a Partial Assessment.
      * @param body The body of the partial assessment
@@ -202,6 +419,20 @@ public class ReviewerProtocol extends NetworkProtocol {
         return success;
     }
     
+    /**
+     * Asynchronous counterpart of {@link #createPartialAssessment(PartialAssessmentDto, String, String)}.
+     * @param body The body of the partial assessment
+     * @param assignmentId The id of the specified assignment.
+     * @param assessmentId The id of the specified assessment.
+     * @return The future success of the request, completes exceptionally with a {@link NetworkException} if network
+     *     problems occur.
+     */
+    public CompletableFuture<Boolean> createPartialAssessmentAsync(PartialAssessmentDto body, String assignmentId,
+        String assessmentId) {
+        
+        return executeAsync(() -> createPartialAssessment(body, assignmentId, assessmentId));
+    }
+    
     /**
      * Updates an Assessment.
      * @param body The body of the assessment that is updated.
@@ -226,6 +457,20 @@ public class ReviewerProtocol extends NetworkProtocol {
         return success;
     }
     
+    /**
+     * Asynchronous counterpart of {@link #updateAssessment(AssessmentUpdateDto, String, String)}.
+     * @param body The body of the assessment that is updated.
+     * @param assignmentId The id of the specified assignment.
+     * @param assessmentId The id of the specified assessment.
+     * @return The future success of the request, completes exceptionally with a {@link NetworkException} if network
+     *     problems occur.
+     */
+    public CompletableFuture<Boolean> updateAssessmentAsync(AssessmentUpdateDto body, String assignmentId,
+        String assessmentId) {
+        
+        return executeAsync(() -> updateAssessment(body, assignmentId, assessmentId));
+    }
+    
     /**
      * Deletes an Assessment.
      * @param assignmentId The id of the specified assignment.
@@ -272,16 +517,10 @@ public class ReviewerProtocol extends NetworkProtocol {
      * @throws NetworkException when network problems occur.
      */
     public ParticipantDto getStudentByName(String userName) throws NetworkException {
-        ParticipantDto participant = null;
-        try {
-            List<String> roles = Arrays.asList(ParticipantDto.RoleEnum.STUDENT.getValue());
-            participant = apiParticipants.getUsersOfCourse(getCourseID(), null, null, roles, null, null).stream()
-                .filter(p -> p.getUsername().equals(userName))
-                .findAny()
-                .orElse(null);
-        } catch (Exception e) {
-            ApiExceptionHandler.handleException(e, getBasePath());
-            throw new DataNotFoundException("User not found", userName, DataType.USER_NOT_FOUND);
+        String courseId = getCourseID();
+        ParticipantDto participant = participants.getByUserName(courseId, userName, () -> loadParticipants(courseId));
+        if (null != participant && RoleEnum.STUDENT != participant.getRole()) {
+            participant = null;
         }
         
         return participant;
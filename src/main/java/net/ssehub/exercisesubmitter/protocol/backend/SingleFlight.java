@@ -0,0 +1,142 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+
+/**
+ * Coalesces identical read requests, which are executed at the same time by different threads.
+ * The first thread (leader) executes the request, all other threads wait for and share its result or its exception.
+ * Results are not cached after the request finished, this is done by {@link ProtocolCache}s.
+ *
+ * @author agent
+ *
+ */
+class SingleFlight {
+
+    /**
+     * The currently executed requests in form of (request, result of the leader).
+     */
+    private final ConcurrentMap<CacheKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the request or waits for the result of an identical request, which is currently executed by another
+     * thread.
+     * @param <V> The type of the result.
+     * @param request Identifies the request, must contain all parameters that influence the result (e.g., server,
+     *     access token, and request parameters).
+     * @param loader Executes the request.
+     * @return The result of the request (may be shared with other threads and, thus, must not be modified).
+     * @throws NetworkException If network problems occur, the same exception is thrown in all waiting threads.
+     *     Waiting threads wait at most until their own {@link Deadline} is exceeded.
+     */
+    @SuppressWarnings("unchecked")
+    <V> V execute(CacheKey request, Loader<V> loader) throws NetworkException {
+        V result = null;
+        boolean done = false;
+        while (!done) {
+            CompletableFuture<Object> ownCall = new CompletableFuture<>();
+            CompletableFuture<Object> runningCall = inFlight.putIfAbsent(request, ownCall);
+            if (null == runningCall) {
+                result = lead(request, ownCall, loader);
+                done = true;
+            } else {
+                try {
+                    result = (V) await(runningCall);
+                    done = true;
+                } catch (DeadlineExceededException e) {
+                    // The deadline of the leader may be shorter than the own deadline -> retry
+                    if (Deadline.isCurrentExceeded()) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of threads, which currently wait for the result of the specified request.
+     * Intended for monitoring and testing.
+     * @param request Identifies the request.
+     * @return The number of waiting threads (without the leader), <tt>0</tt> if the request is not executed.
+     */
+    int getNumberOfWaitingThreads(CacheKey request) {
+        CompletableFuture<Object> runningCall = inFlight.get(request);
+        return null != runningCall ? runningCall.getNumberOfDependents() : 0;
+    }
+
+    /**
+     * Checks if the specified request is currently executed.
+     * Intended for monitoring and testing.
+     * @param request Identifies the request.
+     * @return <tt>true</tt> if a leader currently executes the request.
+     */
+    boolean isInFlight(CacheKey request) {
+        return inFlight.containsKey(request);
+    }
+
+    /**
+     * Executes the request as leader and publishes the result to all waiting threads.
+     * @param <V> The type of the result.
+     * @param request Identifies the request.
+     * @param ownCall The future which is used by waiting threads.
+     * @param loader Executes the request.
+     * @return The result of the request.
+     * @throws NetworkException If network problems occur.
+     */
+    //checkstyle: stop exception type check: Exceptions must be passed to waiting threads
+    private <V> V lead(CacheKey request, CompletableFuture<Object> ownCall, Loader<V> loader)
+        throws NetworkException {
+
+        try {
+            V result = loader.load();
+            ownCall.complete(result);
+            return result;
+        } catch (NetworkException | RuntimeException e) {
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(request, ownCall);
+        }
+    }
+    //checkstyle: resume exception type check
+
+    /**
+     * Waits for the result of a request executed by another thread.
+     * @param runningCall The future of the leader.
+     * @return The result of the leader.
+     * @throws NetworkException The exception of the leader.
+     */
+    private static Object await(CompletableFuture<Object> runningCall) throws NetworkException {
+        Deadline deadline = Deadline.current();
+        Object result;
+        try {
+            if (null != deadline) {
+                result = runningCall.get(deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            } else {
+                result = runningCall.join();
+            }
+        } catch (CompletionException | ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NetworkException) {
+                throw (NetworkException) cause;
+            }
+            throw (RuntimeException) cause;
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Deadline of the operation exceeded while waiting for a request", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerNotFoundException("Interrupted while waiting for a request", null);
+        }
+
+        return result;
+    }
+}
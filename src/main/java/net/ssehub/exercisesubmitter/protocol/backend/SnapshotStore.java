@@ -0,0 +1,300 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import net.ssehub.studentmgmt.backend_api.JSON;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
+import net.ssehub.studentmgmt.backend_api.model.GroupDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
+
+/**
+ * Optional file-backed store of downloaded data (course ID, assignments, participants, and groups), which allows
+ * short-lived processes (e.g., the SVN submission hook, which runs in a new JVM per commit) to start with warm caches.
+ * The data is stored as one JSON file per server, course, semester, and user in a configurable directory. Restored
+ * data expires according to the time to live of the in-memory caches, relative to the time it was downloaded.<br/>
+ * Parallel processes may use the same directory: Files are replaced atomically and updates are serialized by a file
+ * lock. Problems while accessing the files are logged and otherwise ignored, i.e., the data is downloaded again.<br/>
+ * The files contain personal data (e.g., the names of all participants), so the directory and the files are only
+ * accessible by the owner on file systems, which support POSIX permissions.
+ *
+ * @author agent
+ *
+ */
+public class SnapshotStore {
+
+    /**
+     * Version of the file format, files of other versions are ignored.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final Logger LOGGER = LogManager.getLogger(SnapshotStore.class);
+
+    /**
+     * Monitors for the files (striped by the hash of the file), since file locks cannot be acquired twice by the same
+     * JVM.
+     */
+    private static final Object[] JVM_LOCKS = new Object[32];
+
+    static {
+        for (int i = 0; i < JVM_LOCKS.length; i++) {
+            JVM_LOCKS[i] = new Object();
+        }
+    }
+
+    /**
+     * Downloaded data and the time it was downloaded.
+     * @param <T> The type of the data.
+     */
+    static class Timestamped<T> {
+        private long timestamp;
+        private T data;
+
+        /**
+         * Creates a new record of data downloaded right now.
+         * @param data The downloaded data.
+         */
+        Timestamped(T data) {
+            this.timestamp = System.currentTimeMillis();
+            this.data = data;
+        }
+
+        /**
+         * Returns the time the data was downloaded.
+         * @return The time in milliseconds.
+         */
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Returns the downloaded data.
+         * @return The data, may be <tt>null</tt>.
+         */
+        T getData() {
+            return data;
+        }
+    }
+
+    /**
+     * Content of a snapshot file, i.e., the data of one course as visible by one user.
+     */
+    static class Document {
+        private int version = FORMAT_VERSION;
+        private Timestamped<String> courseId;
+        private Timestamped<List<AssignmentDto>> assignments;
+        private Timestamped<List<ParticipantDto>> participants;
+        private Map<String, Timestamped<List<GroupDto>>> groups = new HashMap<>();
+
+        /**
+         * Returns the ID of the course.
+         * @return The course ID or <tt>null</tt> if not stored.
+         */
+        Timestamped<String> getCourseId() {
+            return courseId;
+        }
+
+        /**
+         * Stores the ID of the course.
+         * @param courseId The resolved course ID.
+         */
+        void setCourseId(String courseId) {
+            this.courseId = new Timestamped<>(courseId);
+        }
+
+        /**
+         * Returns all assignments of the course.
+         * @return The assignments or <tt>null</tt> if not stored.
+         */
+        Timestamped<List<AssignmentDto>> getAssignments() {
+            return assignments;
+        }
+
+        /**
+         * Stores all assignments of the course.
+         * @param assignments The downloaded assignments.
+         */
+        void setAssignments(List<AssignmentDto> assignments) {
+            this.assignments = new Timestamped<>(assignments);
+        }
+
+        /**
+         * Returns all participants of the course.
+         * @return The participants or <tt>null</tt> if not stored.
+         */
+        Timestamped<List<ParticipantDto>> getParticipants() {
+            return participants;
+        }
+
+        /**
+         * Stores all participants of the course.
+         * @param participants The downloaded participants.
+         */
+        void setParticipants(List<ParticipantDto> participants) {
+            this.participants = new Timestamped<>(participants);
+        }
+
+        /**
+         * Returns the registered groups of all stored assignments.
+         * @return The groups in form of (assignmentID, groups), will never be <tt>null</tt>.
+         */
+        Map<String, Timestamped<List<GroupDto>>> getGroups() {
+            return null != groups ? groups : new HashMap<>();
+        }
+
+        /**
+         * Stores the registered groups of an assignment.
+         * @param assignmentId The ID of the assignment.
+         * @param groups The downloaded groups.
+         */
+        void setGroups(String assignmentId, List<GroupDto> groups) {
+            if (null == this.groups) {
+                this.groups = new HashMap<>();
+            }
+            this.groups.put(assignmentId, new Timestamped<>(groups));
+        }
+    }
+
+    private final Path directory;
+    private final Gson gson;
+
+    /**
+     * Creates a store, which uses the specified directory. The directory will be created when data is stored.
+     * @param directory The directory where to store the snapshot files, may be shared by parallel processes.
+     */
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+        // Use the configuration of the REST client to support all data types of the DTOs
+        gson = new JSON().getGson();
+    }
+
+    /**
+     * Reads the stored data.
+     * @param scope Identifies the snapshot (server, course, semester, and user).
+     * @return The stored data, an empty document if no (valid) data is stored.
+     */
+    Document read(String scope) {
+        Document document = null;
+        Path file = fileOf(scope);
+        if (Files.isRegularFile(file)) {
+            // Files are replaced atomically -> no lock needed for reading
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                document = gson.fromJson(in, Document.class);
+            } catch (IOException | JsonParseException e) {
+                LOGGER.warn("Could not read snapshot {}, data will be downloaded again: {}", file, e.getMessage());
+            }
+        }
+
+        if (null == document || document.version != FORMAT_VERSION) {
+            document = new Document();
+        }
+
+        return document;
+    }
+
+    /**
+     * Changes the stored data. Concurrent changes of other processes are preserved, since the file is read and
+     * written under an exclusive lock.
+     * @param scope Identifies the snapshot (server, course, semester, and user).
+     * @param change The change to apply.
+     */
+    void update(String scope, Consumer<Document> change) {
+        Path file = fileOf(scope);
+        synchronized (JVM_LOCKS[Math.floorMod(file.hashCode(), JVM_LOCKS.length)]) {
+            try {
+                boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+                if (posix) {
+                    Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rwx------")));
+                } else {
+                    Files.createDirectories(directory);
+                }
+                Path lockFile = directory.resolve(file.getFileName() + ".lock");
+                try (FileChannel channel = FileChannel.open(lockFile, Set.of(StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE), fileAttributes(posix)); FileLock lock = channel.lock()) {
+
+                    Document document = read(scope);
+                    change.accept(document);
+                    write(file, document, posix);
+                }
+            } catch (IOException | JsonParseException e) {
+                LOGGER.warn("Could not update snapshot {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the document into a temporary file and replaces the snapshot file atomically.
+     * @param file The snapshot file.
+     * @param document The data to store.
+     * @param posix <tt>true</tt> if the file system supports POSIX permissions.
+     * @throws IOException If the file cannot be written.
+     */
+    private void write(Path file, Document document, boolean posix) throws IOException {
+        Path tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp", fileAttributes(posix));
+        try {
+            try (Writer out = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                gson.toJson(document, out);
+            }
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * Returns the attributes of new files, which restrict the access to the owner.
+     * @param posix <tt>true</tt> if the file system supports POSIX permissions.
+     * @return The attributes, empty if POSIX permissions are not supported.
+     */
+    private static FileAttribute<?>[] fileAttributes(boolean posix) {
+        return posix
+            ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rw-------"))}
+            : new FileAttribute<?>[0];
+    }
+
+    /**
+     * Computes the file of a snapshot. The scope is hashed, since it contains URLs and user names.
+     * @param scope Identifies the snapshot (server, course, semester, and user).
+     * @return The file of the snapshot.
+     */
+    private Path fileOf(String scope) {
+        StringBuilder name = new StringBuilder("snapshot-");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(scope.getBytes(StandardCharsets.UTF_8));
+            for (byte b : hash) {
+                name.append(String.format("%02x", b));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 must be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+
+        return directory.resolve(name.append(".json").toString());
+    }
+}
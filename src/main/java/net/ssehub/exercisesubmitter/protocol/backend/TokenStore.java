@@ -0,0 +1,291 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import net.ssehub.studentmgmt.backend_api.JSON;
+import net.ssehub.studentmgmt.backend_api.model.UserDto;
+
+/**
+ * Optional file-backed store of tokens, which allows short-lived processes (e.g., the SVN submission hook, which runs
+ * in a new JVM per commit) to reuse a still valid token and the {@link UserDto} of a previous login instead of
+ * contacting the authentication service and the student management system again.<br/>
+ * One file is stored per authentication server, management server, and user. The content is encrypted with
+ * AES/GCM by a key, which is derived from the password of the user (PBKDF2), i.e., a stored token can only be read
+ * with the credentials, which were used to obtain it. On file systems supporting POSIX permissions, the directory
+ * and the files are only accessible by the owner. Problems while accessing the files are logged and otherwise
+ * ignored, i.e., the user is logged in again.
+ *
+ * @author agent
+ *
+ */
+public class TokenStore {
+
+    /**
+     * Version of the file format, files of other versions are ignored.
+     */
+    static final int FORMAT_VERSION = 1;
+
+    private static final Logger LOGGER = LogManager.getLogger(TokenStore.class);
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final String KEY_DERIVATION = "PBKDF2WithHmacSHA256";
+    private static final int KEY_ITERATIONS = 65536;
+    private static final int KEY_BITS = 256;
+    private static final int SALT_BYTES = 16;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * A stored login: The token and the user as known by the student management system.
+     */
+    static class Entry {
+        private String userName;
+        private String token;
+        private UserDto user;
+        private long identityCheckedAt;
+
+        /**
+         * Creates a new entry.
+         * @param userName The user name as returned by the authentication service.
+         * @param token The token for the student management system.
+         * @param user The user as returned by the student management system.
+         * @param identityCheckedAt The time (in milliseconds since epoch) the user was queried from the student
+         *     management system.
+         */
+        Entry(String userName, String token, UserDto user, long identityCheckedAt) {
+            this.userName = userName;
+            this.token = token;
+            this.user = user;
+            this.identityCheckedAt = identityCheckedAt;
+        }
+
+        /**
+         * Returns the user name as returned by the authentication service.
+         * @return The user name.
+         */
+        String getUserName() {
+            return userName;
+        }
+
+        /**
+         * Returns the token for the student management system.
+         * @return The stored token.
+         */
+        String getToken() {
+            return token;
+        }
+
+        /**
+         * Returns the user as returned by the student management system.
+         * @return The stored user.
+         */
+        UserDto getUser() {
+            return user;
+        }
+
+        /**
+         * Returns the time the user was queried from the student management system.
+         * @return The time in milliseconds since epoch, <tt>0</tt> if unknown.
+         */
+        long getIdentityCheckedAt() {
+            return identityCheckedAt;
+        }
+    }
+
+    /**
+     * Content of a token file, only the <tt>data</tt> is encrypted.
+     */
+    private static class Document {
+        private int version = FORMAT_VERSION;
+        private String salt;
+        private String iv;
+        private String data;
+    }
+
+    private final Path directory;
+    private final Gson gson;
+
+    /**
+     * Creates a store, which uses the specified directory. The directory will be created when a token is stored.
+     * @param directory The directory where to store the token files, may be shared by parallel processes of the same
+     *     operating system user.
+     */
+    public TokenStore(Path directory) {
+        this.directory = directory;
+        // Use the configuration of the REST client to support all data types of the DTOs
+        gson = new JSON().getGson();
+    }
+
+    /**
+     * Reads a stored login.
+     * @param authenticationURL The URL of the authentication server.
+     * @param stdMgmtURL The URL of the student management service.
+     * @param userName The user name, which was used to login.
+     * @param password The password, which was used to login.
+     * @return The stored login or <tt>null</tt> if no (readable) login is stored for these credentials.
+     */
+    Entry load(String authenticationURL, String stdMgmtURL, String userName, String password) {
+        Entry entry = null;
+        Path file = fileOf(authenticationURL, stdMgmtURL, userName);
+        if (null != password && Files.isRegularFile(file)) {
+            try {
+                Document document = gson.fromJson(Files.readString(file, StandardCharsets.UTF_8), Document.class);
+                if (null != document && document.version == FORMAT_VERSION) {
+                    Base64.Decoder decoder = Base64.getDecoder();
+                    byte[] salt = decoder.decode(document.salt);
+                    Cipher cipher = Cipher.getInstance(CIPHER);
+                    cipher.init(Cipher.DECRYPT_MODE, deriveKey(password, salt),
+                        new GCMParameterSpec(TAG_BITS, decoder.decode(document.iv)));
+                    byte[] data = cipher.doFinal(decoder.decode(document.data));
+                    entry = gson.fromJson(new String(data, StandardCharsets.UTF_8), Entry.class);
+                }
+            } catch (IOException | JsonParseException | IllegalArgumentException | GeneralSecurityException e) {
+                // Also thrown if the password was changed
+                LOGGER.debug("Could not read token {}, user will be logged in again: {}", file, e.getMessage());
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Stores a login, replaces a previously stored login of the same user.
+     * @param authenticationURL The URL of the authentication server.
+     * @param stdMgmtURL The URL of the student management service.
+     * @param loginName The user name, which was used to login.
+     * @param password The password, which was used to login, <tt>null</tt> to store nothing.
+     * @param entry The login to store.
+     */
+    void save(String authenticationURL, String stdMgmtURL, String loginName, String password, Entry entry) {
+        Path file = fileOf(authenticationURL, stdMgmtURL, loginName);
+        if (null != password) {
+            try {
+                byte[] salt = new byte[SALT_BYTES];
+                byte[] iv = new byte[IV_BYTES];
+                RANDOM.nextBytes(salt);
+                RANDOM.nextBytes(iv);
+                Cipher cipher = Cipher.getInstance(CIPHER);
+                cipher.init(Cipher.ENCRYPT_MODE, deriveKey(password, salt), new GCMParameterSpec(TAG_BITS, iv));
+
+                Base64.Encoder encoder = Base64.getEncoder();
+                Document document = new Document();
+                document.salt = encoder.encodeToString(salt);
+                document.iv = encoder.encodeToString(iv);
+                document.data = encoder.encodeToString(cipher.doFinal(gson.toJson(entry)
+                    .getBytes(StandardCharsets.UTF_8)));
+                write(file, gson.toJson(document));
+            } catch (IOException | GeneralSecurityException e) {
+                LOGGER.warn("Could not store token {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes a stored login, e.g., after the token was rejected by the server.
+     * @param authenticationURL The URL of the authentication server.
+     * @param stdMgmtURL The URL of the student management service.
+     * @param userName The user name, which was used to login.
+     */
+    void remove(String authenticationURL, String stdMgmtURL, String userName) {
+        Path file = fileOf(authenticationURL, stdMgmtURL, userName);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Could not remove token {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the content into a temporary file, which is only accessible by the owner, and replaces the token file
+     * atomically.
+     * @param file The token file.
+     * @param content The content to store.
+     * @throws IOException If the file cannot be written.
+     */
+    private void write(Path file, String content) throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (posix) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+        FileAttribute<?>[] attributes = posix
+            ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rw-------"))}
+            : new FileAttribute<?>[0];
+        Path tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp", attributes);
+        try {
+            Files.writeString(tmpFile, content, StandardCharsets.UTF_8);
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * Derives the key from the password.
+     * @param password The password of the user.
+     * @param salt The random salt of the file.
+     * @return The AES key.
+     * @throws GeneralSecurityException If the key derivation is not supported by the platform.
+     */
+    private static SecretKey deriveKey(String password, byte[] salt) throws GeneralSecurityException {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, KEY_ITERATIONS, KEY_BITS);
+        byte[] key = SecretKeyFactory.getInstance(KEY_DERIVATION).generateSecret(spec).getEncoded();
+
+        return new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Computes the file of a login. The servers and the user name are hashed, so that they are not visible in the
+     * file name.
+     * @param authenticationURL The URL of the authentication server.
+     * @param stdMgmtURL The URL of the student management service.
+     * @param userName The user name, which was used to login.
+     * @return The file of the login.
+     */
+    private Path fileOf(String authenticationURL, String stdMgmtURL, String userName) {
+        String scope = authenticationURL + "\n" + stdMgmtURL + "\n" + userName;
+        StringBuilder name = new StringBuilder("token-");
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(scope.getBytes(StandardCharsets.UTF_8));
+            for (byte b : hash) {
+                name.append(String.format("%02x", b));
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 must be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+
+        return directory.resolve(name.append(".json").toString());
+    }
+}
@@ -0,0 +1,101 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Reads the claims of the JSON Web Tokens (JWT) issued by the authentication service. The signature is not verified,
+ * the information is only used to plan the refresh of the token.
+ *
+ * @author agent
+ *
+ */
+class TokenUtils {
+
+    /**
+     * Avoids initialization of utility class.
+     */
+    private TokenUtils() {}
+
+    /**
+     * Returns the expiration time (<tt>exp</tt> claim) of a JSON Web Token.
+     * @param token The token as received from the authentication service.
+     * @return The expiration time in milliseconds since epoch, or <tt>-1</tt> if the token is not a JWT or has no
+     *     expiration time.
+     */
+    static long getExpirationMillis(String token) {
+        long expiration = -1;
+        JsonElement exp = getClaim(token, "exp");
+        if (null != exp) {
+            try {
+                expiration = exp.getAsLong() * 1000;
+            } catch (NumberFormatException e) {
+                // Not a number -> expiration unknown
+            }
+        }
+
+        return expiration;
+    }
+
+    /**
+     * Returns the subject (<tt>sub</tt> claim) of a JSON Web Token, i.e., the user to whom the token was issued.
+     * Tokens of the same user, e.g., proactively refreshed tokens, share the same subject.
+     * @param token The token as received from the authentication service.
+     * @return The subject or <tt>null</tt> if the token is not a JWT or has no subject.
+     */
+    static String getSubject(String token) {
+        JsonElement sub = getClaim(token, "sub");
+        return null != sub ? sub.getAsString() : null;
+    }
+
+    /**
+     * Returns a claim of a JSON Web Token.
+     * @param token The token as received from the authentication service.
+     * @param name The name of the claim.
+     * @return The value of the claim or <tt>null</tt> if the token is not a JWT or the claim is not a primitive value.
+     */
+    private static JsonElement getClaim(String token, String name) {
+        JsonElement claim = null;
+        String[] parts = null != token ? token.split("\\.") : new String[0];
+        if (parts.length == 3) {
+            try {
+                byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+                JsonObject claims = JsonParser.parseString(new String(payload, StandardCharsets.UTF_8))
+                    .getAsJsonObject();
+                JsonElement value = claims.get(name);
+                if (null != value && value.isJsonPrimitive()) {
+                    claim = value;
+                }
+            } catch (IllegalArgumentException | IllegalStateException | JsonParseException e) {
+                // Not a JWT -> claim unknown
+            }
+        }
+
+        return claim;
+    }
+
+    /**
+     * Computes when a token should be refreshed: The specified margin before it expires, but not before half of its
+     * remaining lifetime has elapsed (for tokens, which are valid for a shorter time than the margin).
+     * @param token The token as received from the authentication service.
+     * @param marginMillis The time before the expiration, when the token shall be refreshed.
+     * @param nowMillis The current time in milliseconds since epoch.
+     * @return The delay until the refresh in milliseconds, or <tt>-1</tt> if the token has no known expiration time
+     *     or is already expired.
+     */
+    static long getRefreshDelayMillis(String token, long marginMillis, long nowMillis) {
+        long expiration = getExpirationMillis(token);
+        long delay = -1;
+        if (expiration > nowMillis) {
+            long remaining = expiration - nowMillis;
+            delay = Math.max(remaining - marginMillis, remaining / 2);
+        }
+
+        return delay;
+    }
+}
@@ -0,0 +1,78 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+/**
+ * Classifies the requests of an operation, so that interactive callers (e.g., submission hooks or the exercise
+ * submitter) never wait behind bulk traffic of background callers (e.g., the synchronization of the rights
+ * management). Each class has its own rate limit and concurrency limit per server, see
+ * {@link TrafficControlInterceptor}.<br/>
+ * Like the {@link Deadline}, the class is activated for the current thread and inherited by asynchronous requests.
+ * If no class is activated, requests are {@link #INTERACTIVE}. Usage:
+ * <pre><code> try (TrafficClass.Scope scope = TrafficClass.BACKGROUND.activate()) {
+ *     protocol.getAssignments();
+ *     ...
+ * }</code></pre>
+ *
+ * @author agent
+ *
+ */
+public enum TrafficClass {
+
+    /**
+     * Requests, for which a user (or a waiting hook) waits.
+     */
+    INTERACTIVE,
+
+    /**
+     * Bulk requests of tools, which may be delayed in favor of interactive requests.
+     */
+    BACKGROUND;
+
+    private static final ThreadLocal<TrafficClass> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the previous traffic class of the thread when it is closed.
+     *
+     * @author agent
+     *
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final TrafficClass previous;
+
+        /**
+         * Creates a new scope.
+         * @param previous The traffic class, which was active before, may be <tt>null</tt>.
+         */
+        private Scope(TrafficClass previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (null != previous) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the traffic class of the current thread.
+     * @return The active traffic class, {@link #INTERACTIVE} if no class was activated.
+     */
+    public static TrafficClass current() {
+        TrafficClass current = CURRENT.get();
+        return null != current ? current : INTERACTIVE;
+    }
+
+    /**
+     * Activates this traffic class for the current thread until the returned scope is closed.
+     * @return The scope to be closed at the end of the operation.
+     */
+    public Scope activate() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(this);
+        return scope;
+    }
+}
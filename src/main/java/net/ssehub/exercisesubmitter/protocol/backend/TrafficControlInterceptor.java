@@ -0,0 +1,299 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Response;
+
+/**
+ * Limits the load, which is caused by this client, per server and {@link TrafficClass}:
+ * <ul>
+ *   <li>A token bucket limits the rate of requests (with a configurable burst).</li>
+ *   <li>A bulkhead limits the number of concurrent requests. Requests wait for a free slot at most until the
+ *   {@link Deadline} of the operation, but never longer than the configured queue time (default:
+ *   {@value #DEFAULT_MAX_QUEUE_MILLIS} ms).</li>
+ * </ul>
+ * If a request gives up waiting, it fails with an {@link IOException} caused by a {@link RequestThrottledException}.
+ * Such local rejections are neither retried nor counted by the {@link CircuitBreaker} of the server, so that
+ * saturated background traffic cannot open the circuit for interactive requests.
+ * Each traffic class has its own buckets and bulkheads, so that interactive requests never queue behind background
+ * requests. A slot of the bulkhead is occupied until the headers of the response are received.<br/>
+ * Installed by the {@link HttpClientFactory} directly before the transport, so that each attempt of the
+ * {@link RetryInterceptor} is limited, but not the delays between the attempts.
+ *
+ * @author agent
+ *
+ */
+public class TrafficControlInterceptor implements Interceptor {
+
+    /**
+     * Maximum time (in milliseconds) a request waits for a free slot of the bulkhead.
+     */
+    public static final long DEFAULT_MAX_QUEUE_MILLIS = 30000;
+
+    /**
+     * Configuration of the limits of one traffic class (per server).
+     *
+     * @author agent
+     *
+     */
+    public static final class Limits {
+
+        private final double permitsPerSecond;
+        private final int burst;
+        private final int maxConcurrent;
+
+        /**
+         * Creates a new configuration.
+         * @param permitsPerSecond The number of requests per second, <tt>0</tt> for no rate limit.
+         * @param burst The number of requests, which may be sent at once after an idle period (at least <tt>1</tt>).
+         * @param maxConcurrent The maximum number of concurrent requests, <tt>0</tt> for no limit.
+         */
+        public Limits(double permitsPerSecond, int burst, int maxConcurrent) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(1, burst);
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        /**
+         * Returns the number of requests per second.
+         * @return The rate limit, <tt>0</tt> or less for no rate limit.
+         */
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
+        }
+
+        /**
+         * Returns the number of requests, which may be sent at once after an idle period.
+         * @return The size of the token bucket.
+         */
+        public int getBurst() {
+            return burst;
+        }
+
+        /**
+         * Returns the maximum number of concurrent requests.
+         * @return The size of the bulkhead, <tt>0</tt> or less for no limit.
+         */
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+    }
+
+    /**
+     * Token bucket and bulkhead of one server and traffic class.
+     */
+    private static class Limiter {
+        private final double permitsPerNano;
+        private final double capacity;
+        private final Semaphore slots;
+        private double tokens;
+        private long lastRefill;
+
+        /**
+         * Creates a new limiter with a full bucket.
+         * @param limits The configuration of the traffic class.
+         */
+        private Limiter(Limits limits) {
+            permitsPerNano = limits.getPermitsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+            capacity = limits.getBurst();
+            tokens = capacity;
+            lastRefill = System.nanoTime();
+            slots = limits.getMaxConcurrent() > 0 ? new Semaphore(limits.getMaxConcurrent(), true) : null;
+        }
+
+        /**
+         * Takes a token from the bucket. Tokens may be reserved in advance, i.e., the bucket may become negative.
+         * @return The time (in nanoseconds) to wait until the reserved token is available, <tt>0</tt> if a token
+         *     was available.
+         */
+        private synchronized long reserve() {
+            long wait = 0;
+            if (permitsPerNano > 0) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+                lastRefill = now;
+                tokens -= 1;
+                if (tokens < 0) {
+                    wait = (long) Math.ceil(-tokens / permitsPerNano);
+                }
+            }
+
+            return wait;
+        }
+    }
+
+    /**
+     * The limits of the traffic classes.
+     */
+    private final Map<TrafficClass, Limits> limits = new EnumMap<>(TrafficClass.class);
+
+    /**
+     * The limiters in form of (server and traffic class, limiter).
+     */
+    private final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    private volatile long maxQueueMillis = DEFAULT_MAX_QUEUE_MILLIS;
+
+    /**
+     * Creates a new interceptor with default limits: Interactive requests are not limited by rate and at most
+     * 32 run concurrently per server, background requests are limited to 10 requests per second (burst of 20) and
+     * at most 2 run concurrently per server.
+     */
+    public TrafficControlInterceptor() {
+        limits.put(TrafficClass.INTERACTIVE, new Limits(0, 1, 32));
+        limits.put(TrafficClass.BACKGROUND, new Limits(10, 20, 2));
+    }
+
+    /**
+     * Configures the limits of a traffic class, affects all servers. Requests, which are currently executed or
+     * waiting, are not affected.
+     * @param trafficClass The traffic class to configure.
+     * @param classLimits The new limits of the class.
+     */
+    public synchronized void setLimits(TrafficClass trafficClass, Limits classLimits) {
+        limits.put(trafficClass, classLimits);
+        limiters.keySet().removeIf(key -> key.startsWith(trafficClass.name() + " "));
+    }
+
+    /**
+     * Returns the limits of a traffic class.
+     * @param trafficClass The traffic class.
+     * @return The configured limits of the class.
+     */
+    public synchronized Limits getLimits(TrafficClass trafficClass) {
+        return limits.get(trafficClass);
+    }
+
+    /**
+     * Configures the maximum time a request waits for a free slot of the bulkhead.
+     * @param maxQueueTime The maximum waiting time.
+     * @param unit The unit of <tt>maxQueueTime</tt>.
+     */
+    public void setMaxQueueTime(long maxQueueTime, TimeUnit unit) {
+        this.maxQueueMillis = unit.toMillis(maxQueueTime);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        TrafficClass trafficClass = TrafficClass.current();
+        String server = HttpClientFactory.serverOf(chain.request().httpUrl());
+        Limiter limiter = getLimiter(trafficClass, server);
+
+        await(limiter.reserve(), trafficClass, server);
+        Response response;
+        if (null != limiter.slots) {
+            acquireSlot(limiter.slots, trafficClass, server);
+            try {
+                response = chain.proceed(chain.request());
+            } finally {
+                limiter.slots.release();
+            }
+        } else {
+            response = chain.proceed(chain.request());
+        }
+
+        return response;
+    }
+
+    /**
+     * Returns the limiter of the server and traffic class, creates it if necessary.
+     * @param trafficClass The traffic class of the request.
+     * @param server The contacted server.
+     * @return The limiter to use.
+     */
+    private Limiter getLimiter(TrafficClass trafficClass, String server) {
+        Limiter limiter = limiters.get(trafficClass.name() + " " + server);
+        if (null == limiter) {
+            synchronized (this) {
+                limiter = limiters.computeIfAbsent(trafficClass.name() + " " + server,
+                    key -> new Limiter(limits.get(trafficClass)));
+            }
+        }
+
+        return limiter;
+    }
+
+    /**
+     * Waits until the reserved token is available, at most until the {@link Deadline} is exceeded.
+     * @param waitNanos The time to wait.
+     * @param trafficClass The traffic class of the request (for error messages).
+     * @param server The contacted server.
+     * @throws IOException Caused by a {@link RequestThrottledException} if the deadline was exceeded while waiting.
+     * @throws InterruptedIOException If the thread was interrupted while waiting.
+     */
+    private static void await(long waitNanos, TrafficClass trafficClass, String server) throws IOException {
+        if (waitNanos > 0) {
+            Deadline deadline = Deadline.current();
+            long sleep = null != deadline ? Math.min(waitNanos, deadline.getRemaining(TimeUnit.NANOSECONDS))
+                : waitNanos;
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+            }
+            if (Deadline.isCurrentExceeded()) {
+                throw throttled("Deadline exceeded while waiting for the rate limit of " + trafficClass
+                    + " requests", trafficClass, server);
+            }
+        }
+    }
+
+    /**
+     * Waits for a free slot of the bulkhead, at most until the {@link Deadline} is exceeded.
+     * @param slots The bulkhead.
+     * @param trafficClass The traffic class of the request (for error messages).
+     * @param server The contacted server.
+     * @throws IOException Caused by a {@link RequestThrottledException} if no slot got free in time.
+     * @throws InterruptedIOException If the thread was interrupted while waiting.
+     */
+    private void acquireSlot(Semaphore slots, TrafficClass trafficClass, String server) throws IOException {
+        Deadline deadline = Deadline.current();
+        long timeout = null != deadline
+            ? Math.min(deadline.getRemaining(TimeUnit.MILLISECONDS), maxQueueMillis)
+            : maxQueueMillis;
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free slot");
+        }
+        if (!acquired && Deadline.isCurrentExceeded()) {
+            throw throttled("Deadline exceeded while waiting for a free slot of " + trafficClass + " requests",
+                trafficClass, server);
+        } else if (!acquired) {
+            throw throttled("Too many concurrent " + trafficClass + " requests, no slot got free", trafficClass,
+                server);
+        }
+    }
+
+    /**
+     * Creates the exception for a request, which was rejected by the local limits.
+     * @param msg The error message.
+     * @param trafficClass The traffic class of the request.
+     * @param server The contacted server.
+     * @return An {@link IOException} (as required by the interceptor chain) caused by a
+     *     {@link RequestThrottledException}.
+     */
+    private static IOException throttled(String msg, TrafficClass trafficClass, String server) {
+        return new IOException(msg, new RequestThrottledException(msg, trafficClass, server));
+    }
+
+    /**
+     * Checks if an exception was thrown, because a request was rejected by the local limits.
+     * @param exc The exception thrown by the interceptor chain.
+     * @return <tt>true</tt> if the request was not sent to the server.
+     */
+    static boolean isThrottled(IOException exc) {
+        return exc.getCause() instanceof RequestThrottledException;
+    }
+}
@@ -0,0 +1,40 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Sends the HTTP requests of the generated APIs. The generated APIs are bound to OkHttp, therefore requests and
+ * responses are exchanged as OkHttp objects, but the implementation may use any HTTP stack, e.g., to use HTTP/2.
+ * Transports are installed by the {@link HttpClientFactory} as last interceptor of each client, i.e., after all
+ * other interceptors (like the {@link ConditionalRequestCache}).
+ *
+ * @author agent
+ *
+ */
+public interface Transport {
+
+    /**
+     * Sends the request and returns the response as soon as its headers are received. The body should be streamed,
+     * so that large responses can be decoded incrementally.
+     * @param request The request as created by the generated APIs.
+     * @param timeoutMillis The maximum time to wait for the response (in milliseconds), <tt>0</tt> to use the default
+     *     timeout of the transport.
+     * @return The response of the server (also for error codes).
+     * @throws IOException If the server cannot be contacted, the request times out, or the thread is interrupted.
+     */
+    Response execute(Request request, long timeoutMillis) throws IOException;
+
+    /**
+     * Cancels a request, which is currently executed by another thread, e.g., the slower request of a hedged call.
+     * The cancelled {@link #execute(Request, long)} should fail with an {@link IOException}. Transports, which do
+     * not support cancellation, ignore this call, in this case the response is discarded when it arrives.
+     * @param request The request to cancel, identified by its {@link Request#tag() tag}.
+     */
+    default void cancel(Request request) {
+        // Cancellation is optional
+    }
+
+}
@@ -9,7 +9,6 @@ import net.ssehub.studentmgmt.backend_api.model.AssessmentDto;
 import net.ssehub.studentmgmt.backend_api.model.AssessmentUpdateDto;
 import net.ssehub.studentmgmt.backend_api.model.GroupDto;
 import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
-import net.ssehub.studentmgmt.backend_api.model.ParticipantDto.RoleEnum;
 import net.ssehub.studentmgmt.backend_api.model.UserDto;
 
 /**
@@ -29,8 +28,8 @@ abstract class AbstractReviewerProtocol extends SubmitterProtocol {
     protected AbstractReviewerProtocol(String authenticationURL, String stdMgmtURL, String courseName,
         String submissionServer) {
         
-        super(authenticationURL, stdMgmtURL, courseName, submissionServer);
-        setNetworkComponents(null, new ReviewerProtocol(stdMgmtURL, courseName));
+        super(authenticationURL, stdMgmtURL, courseName, submissionServer,
+            new ReviewerProtocol(stdMgmtURL, courseName));
     }
     
     @Override
@@ -111,20 +110,20 @@ abstract class AbstractReviewerProtocol extends SubmitterProtocol {
         AssessmentDto dto = new AssessmentDto();
         
         if (assignment.isGroupWork()) {
-            GroupDto group = getProtocol().getGroupsAtAssignmentEnd(assignment.getID()).stream()
-                .filter(g -> submitterName.equals(g.getName()))
-                .findAny()
-                .orElseThrow(() -> new DataNotFoundException("Could not find group '" + submitterName + "'",
-                    submitterName, DataType.GROUP_NOT_FOUND));
+            GroupDto group = getProtocol().getGroupAtAssignmentEnd(assignment.getID(), submitterName);
+            if (null == group) {
+                throw new DataNotFoundException("Could not find group '" + submitterName + "'", submitterName,
+                    DataType.GROUP_NOT_FOUND);
+            }
             
             dto.setGroup(group);
             dto.setGroupId(group.getId());
         } else {
-            ParticipantDto participant = getProtocol().getUsersOfCourse(RoleEnum.STUDENT).stream()
-                .filter(u -> submitterName.equals(u.getUsername()))
-                .findFirst()
-                .orElseThrow(() -> new DataNotFoundException("Could not find user '" + submitterName + "'",
-                    submitterName, DataType.USER_NOT_FOUND));
+            ParticipantDto participant = getProtocol().getStudentByName(submitterName);
+            if (null == participant) {
+                throw new DataNotFoundException("Could not find user '" + submitterName + "'", submitterName,
+                    DataType.USER_NOT_FOUND);
+            }
             
             dto.setUserId(participant.getUserId());
             dto.setParticipant(participant);
@@ -151,11 +150,7 @@ abstract class AbstractReviewerProtocol extends SubmitterProtocol {
      * @throws NetworkException when network problems occur.
      */
     protected boolean groupExists(String groupName, String assignmentID) throws NetworkException {
-        GroupDto group = getProtocol().getGroupsAtAssignmentEnd(assignmentID).stream()
-            .filter(g -> g.getName().equals(groupName))
-            .findAny()
-            .orElse(null);
-        return group != null;
+        return getProtocol().getGroupAtAssignmentEnd(assignmentID, groupName) != null;
     }
     
     /**
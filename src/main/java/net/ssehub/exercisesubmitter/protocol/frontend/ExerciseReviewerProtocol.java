@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
 import net.ssehub.exercisesubmitter.protocol.backend.ReviewerProtocol;
@@ -59,9 +60,20 @@ public class ExerciseReviewerProtocol extends AbstractReviewerProtocol {
         assessments.clear();
         this.assignment = assignment;
         
-        getProtocol().getAssessments(assignment.getID(), null).stream()
-            .map(a -> new Assessment(a, assignment))
-            .forEach(assessments::add);
+        forEachAssessment(assignment, assessments::add);
+    }
+    
+    /**
+     * Streams all assessments of an assignment from the server without storing them in this protocol, e.g., to
+     * export the assessments of large assignments. Assessments are decoded one by one while the response is
+     * received, i.e., the complete list is not held in memory.
+     * @param assignment The assignment for which the assessments shall be processed.
+     * @param consumer Processes the assessments in the order sent by the server.
+     * @throws NetworkException If <b>Student Management Server</b> cannot be queried
+     *     or the user is no tutor of the course.
+     */
+    public void forEachAssessment(Assignment assignment, Consumer<Assessment> consumer) throws NetworkException {
+        getProtocol().forEachAssessment(assignment.getID(), null, a -> consumer.accept(new Assessment(a, assignment)));
     }
     
     /**
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.TrafficClass;
 import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
 import net.ssehub.studentmgmt.backend_api.model.GroupDto;
 import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
@@ -19,7 +20,8 @@ public class RightsManagementProtocol extends AbstractReviewerProtocol {
     private String courseName;
 
     /**
-     * Creates a new {@link RightsManagementProtocol} instance.
+     * Creates a new {@link RightsManagementProtocol} instance. The synchronization is executed as
+     * {@link TrafficClass#BACKGROUND background traffic}, so that it does not delay submissions.
      * @param authenticationURL The URL of the authentication server (aka Sparky service)
      * @param stdMgmtURL The URL of the student management service
      * @param courseName The course that is associated with the rights management.
@@ -29,6 +31,7 @@ public class RightsManagementProtocol extends AbstractReviewerProtocol {
         super(authenticationURL, stdMgmtURL, courseName, null);
         this.courseName = courseName;
         setSemester(semester);
+        setTrafficClass(TrafficClass.BACKGROUND);
     }
     
     /**
@@ -129,6 +132,14 @@ public class RightsManagementProtocol extends AbstractReviewerProtocol {
         return apply(loadAllAssignments);
     }
     
+    /**
+     * Discards the locally stored assignments, the next call of {@link #loadAssignments(List)} will download them
+     * again. Should be called if the <b>student management system</b> notifies about changed assignments.
+     */
+    public void invalidateAssignments() {
+        getProtocol().getAssignmentCatalog().invalidate();
+    }
+    
     /**
      * Updates the list of participants (groups or single users) of the specified assignment.
      * The assignment will be changed as side-effect.
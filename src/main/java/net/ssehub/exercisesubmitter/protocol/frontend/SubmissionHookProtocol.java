@@ -1,10 +1,19 @@
 package net.ssehub.exercisesubmitter.protocol.frontend;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import net.ssehub.exercisesubmitter.protocol.backend.CacheKey;
+import net.ssehub.exercisesubmitter.protocol.backend.CacheStatistics;
 import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
 import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache;
+import net.ssehub.exercisesubmitter.protocol.backend.ServerNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.SnapshotStore;
+import net.ssehub.exercisesubmitter.protocol.backend.UnknownCredentialsException;
 import net.ssehub.exercisesubmitter.protocol.frontend.Assignment.State;
 import net.ssehub.studentmgmt.backend_api.model.AssessmentDto;
 
@@ -16,6 +25,29 @@ import net.ssehub.studentmgmt.backend_api.model.AssessmentDto;
  */
 public class SubmissionHookProtocol extends AbstractReviewerProtocol {
 
+    /**
+     * Default time (in seconds) for which a submitter, which is not registered, is answered locally.
+     */
+    public static final long DEFAULT_UNKNOWN_SUBMITTER_TTL_SECONDS = 30;
+    
+    /**
+     * Maximum number of remembered submitters, which are not registered.
+     */
+    public static final int MAX_UNKNOWN_SUBMITTERS = 1000;
+    
+    /**
+     * Submitters (groups or users), which are not registered, in form of
+     * ((assignmentID, submitterName), generation of the groups of the assignment / participants of the course at
+     * lookup).
+     * Misconfigured or foreign repositories may commit under such names repeatedly.
+     */
+    private ProtocolCache<CacheKey, Long> unknownSubmitters;
+    
+    /**
+     * Optional on-disk snapshot of downloaded data, shared by all hook processes.
+     */
+    private SnapshotStore snapshotStore;
+    
     /**
      * Creates a new {@link SubmissionHookProtocol} instance for a specific course.
      * @param authenticationURL The URL of the authentication server (aka Sparky service)
@@ -27,6 +59,31 @@ public class SubmissionHookProtocol extends AbstractReviewerProtocol {
         String submissionServer) {
         
         super(authenticationURL, stdMgmtURL, courseName, submissionServer);
+        unknownSubmitters = new ProtocolCache<>(DEFAULT_UNKNOWN_SUBMITTER_TTL_SECONDS, TimeUnit.SECONDS);
+        unknownSubmitters.setMaximumSize(MAX_UNKNOWN_SUBMITTERS);
+    }
+    
+    /**
+     * Enables an on-disk snapshot of downloaded data (course ID, assignments, participants, and groups), since the
+     * hook runs in a new process for each commit. The snapshot of the user is restored at the {@link #login(String,
+     * String) login} and updated whenever data is downloaded.
+     * @param directory The directory where to store the snapshots, may be shared by parallel hook processes.
+     *     <tt>null</tt> disables the snapshot.
+     */
+    public void setSnapshotDirectory(Path directory) {
+        snapshotStore = null != directory ? new SnapshotStore(directory) : null;
+    }
+    
+    @Override
+    public boolean login(String userName, String password) throws UnknownCredentialsException,
+        ServerNotFoundException {
+        
+        boolean success = super.login(userName, password);
+        if (success && null != snapshotStore) {
+            getProtocol().setSnapshotStore(snapshotStore, userName);
+        }
+        
+        return success;
     }
     
     /**
@@ -57,9 +114,17 @@ public class SubmissionHookProtocol extends AbstractReviewerProtocol {
      *     single user submissions).
      * 
      * @return A (potentially blank) assessment, which may be used to create and submit a review.
+     * @throws DataNotFoundException If the submitter is not registered, unregistered submitters are remembered for a
+     *     short time, see {@link #setUnknownSubmitterTimeToLive(long, TimeUnit)}.
      * @throws NetworkException When network problems occur.
      */
     public Assessment loadAssessmentByName(Assignment assignment, String submitterName) throws NetworkException {
+        CacheKey submitter = CacheKey.of(assignment.getID(), submitterName);
+        Long knownMiss = unknownSubmitters.getIfPresent(submitter);
+        if (null != knownMiss && knownMiss == getRegistryGeneration(assignment)) {
+            throw notRegistered(assignment, submitterName);
+        }
+        
         /*
          * Double check to retrieve that assessment that belongs to submission:
          * By passing groupName name to backend API, server filters for the name allowing similar names
@@ -79,16 +144,12 @@ public class SubmissionHookProtocol extends AbstractReviewerProtocol {
             // In case there wasn't a previous assessment, there won't be a valid match and a new one must be created.
 
             // First check if submitter exists
-            if (assignment.isGroupWork()) {
-                if (!super.groupExists(submitterName, assignment.getID())) {
-                    throw new DataNotFoundException("No group registered with the specified group name: "
-                        + submitterName, submitterName, DataType.GROUP_NOT_FOUND);
-                }
-            } else {
-                if (!super.studentExists(submitterName)) {
-                    throw new DataNotFoundException("No user registered with the specified user name: " + submitterName,
-                        submitterName, DataType.USER_NOT_FOUND);
-                }
+            boolean exists = assignment.isGroupWork() ? super.groupExists(submitterName, assignment.getID())
+                : super.studentExists(submitterName);
+            if (!exists) {
+                // Generation is read after the lookup, since an unsuccessful lookup may refresh the registry
+                unknownSubmitters.put(submitter, getRegistryGeneration(assignment));
+                throw notRegistered(assignment, submitterName);
             }
             
             assessment = createAssessment(assignment, submitterName);
@@ -97,6 +158,60 @@ public class SubmissionHookProtocol extends AbstractReviewerProtocol {
         return assessment;
     }
     
+    /**
+     * Returns the generation of the registry entry, which is used to check if the submitter exists.
+     * @param assignment The assignment for which the submission was retrieved.
+     * @return The generation of the groups of the assignment for group work, otherwise of the participants of the
+     *     course.
+     * @throws NetworkException If the ID of the course needs to be downloaded and network problems occur.
+     */
+    private long getRegistryGeneration(Assignment assignment) throws NetworkException {
+        String courseId = getProtocol().getCourseID();
+        return assignment.isGroupWork() ? getProtocol().getGroupRegistry().getGeneration(courseId, assignment.getID())
+            : getProtocol().getParticipantDirectory().getGeneration(courseId);
+    }
+    
+    /**
+     * Creates the exception for a submitter, which is not registered.
+     * @param assignment The assignment for which the submission was retrieved.
+     * @param submitterName The name of the submitter (group name or user account name).
+     * @return The exception to throw.
+     */
+    private static DataNotFoundException notRegistered(Assignment assignment, String submitterName) {
+        DataNotFoundException exc;
+        if (assignment.isGroupWork()) {
+            exc = new DataNotFoundException("No group registered with the specified group name: " + submitterName,
+                submitterName, DataType.GROUP_NOT_FOUND);
+        } else {
+            exc = new DataNotFoundException("No user registered with the specified user name: " + submitterName,
+                submitterName, DataType.USER_NOT_FOUND);
+        }
+        
+        return exc;
+    }
+    
+    /**
+     * Changes the time for which submitters, which are not registered, are answered locally. Remembered submitters
+     * are also discarded when the groups / participants are downloaded again.
+     * @param ttl The time after which an unregistered submitter is looked up again.
+     * @param unit The unit of <tt>ttl</tt>.
+     */
+    public void setUnknownSubmitterTimeToLive(long ttl, TimeUnit unit) {
+        unknownSubmitters.setTimeToLive(ttl, unit);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Additionally contains the statistics of the <tt>unknownSubmitters</tt>.
+     */
+    @Override
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        Map<String, CacheStatistics> statistics = super.getCacheStatistics();
+        statistics.put("unknownSubmitters", unknownSubmitters.getStatistics());
+        
+        return statistics;
+    }
+    
     /**
      * Submits the assessment (update/create) to the student management system.
      * <ul>
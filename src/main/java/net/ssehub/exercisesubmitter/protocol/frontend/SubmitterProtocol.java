@@ -1,11 +1,24 @@
 package net.ssehub.exercisesubmitter.protocol.frontend;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
+import net.ssehub.exercisesubmitter.protocol.backend.CacheStatistics;
+import net.ssehub.exercisesubmitter.protocol.backend.Deadline;
+import net.ssehub.exercisesubmitter.protocol.backend.DeadlineExceededException;
 import net.ssehub.exercisesubmitter.protocol.backend.LoginComponent;
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkProtocol;
 import net.ssehub.exercisesubmitter.protocol.backend.ServerNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.TokenStore;
+import net.ssehub.exercisesubmitter.protocol.backend.TrafficClass;
 import net.ssehub.exercisesubmitter.protocol.backend.UnauthorizedException;
 import net.ssehub.exercisesubmitter.protocol.backend.UnknownCredentialsException;
 import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
@@ -18,9 +31,58 @@ import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
  */
 public class SubmitterProtocol {
     private LoginComponent login;
-    private boolean loggedIn;
+    private volatile boolean loggedIn;
     private NetworkProtocol protocol;
     private String submissionServer;
+    private TrafficClass trafficClass = TrafficClass.INTERACTIVE;
+    private boolean prefetchOnLogin;
+    
+    /**
+     * Generation of the access token, incremented (under the <tt>tokenLock</tt>) whenever a new token is passed to
+     * the low-level protocol. A request, which is rejected with an old token, does not trigger a further re-login.
+     */
+    private volatile long tokenGeneration;
+    
+    /**
+     * The running re-login of the current generation (completes with <tt>true</tt> if a new token was obtained),
+     * <tt>null</tt> if no re-login is running. Guarded by the <tt>tokenLock</tt>.
+     */
+    private CompletableFuture<Boolean> pendingReLogin;
+    private final Object tokenLock = new Object();
+    
+    /**
+     * Pipelined login: Passes the token to the low-level protocol as soon as it is received and starts the download
+     * of the course ID and the assignments, while the identity of the user is still queried.
+     * @author agent
+     *
+     */
+    private class Prefetch implements Consumer<String> {
+        private String token;
+        private CompletableFuture<List<Assignment>> download;
+        
+        @Override
+        public void accept(String newToken) {
+            token = newToken;
+            updateToken(newToken);
+            try (TrafficClass.Scope scope = trafficClass.activate()) {
+                // Resolves the course ID first and fills the assignment catalog, the result is not needed here
+                download = protocol.getAssignmentsAsync();
+            }
+        }
+        
+        /**
+         * Discards the prefetch after a failed login: Cancels the download (if it is not yet running) and restores
+         * the token of the current session, i.e., the token, which was passed to the low-level protocol before.
+         */
+        private void discard() {
+            if (null != token) {
+                if (null != download) {
+                    download.cancel(true);
+                }
+                updateToken(login.getManagementToken());
+            }
+        }
+    }
     
     /**
      * Realizes a function pointer to implement a function, which re-uses an automatic re-login when the session token
@@ -47,8 +109,24 @@ public class SubmitterProtocol {
      * @param submissionServer The root (URL) where to submit assignments (exercises).
      */
     public SubmitterProtocol(String authenticationURL, String stdMgmtURL, String courseName, String submissionServer) {
+        this(authenticationURL, stdMgmtURL, courseName, submissionServer, new NetworkProtocol(stdMgmtURL, courseName));
+    }
+    
+    /**
+     * Creates a new instance, which uses a specialized low-level protocol, e.g., for the reviewer tools.
+     * @param authenticationURL The URL of the authentication server (aka Sparky service)
+     * @param stdMgmtURL The URL of the student management service
+     * @param courseName The course that is associated with the exercise submitter.
+     * @param submissionServer The root (URL) where to submit assignments (exercises).
+     * @param protocol The low-level protocol to use, must be configured for <tt>stdMgmtURL</tt> and
+     *     <tt>courseName</tt>.
+     */
+    protected SubmitterProtocol(String authenticationURL, String stdMgmtURL, String courseName,
+        String submissionServer, NetworkProtocol protocol) {
+        
         login = new LoginComponent(authenticationURL, stdMgmtURL);
-        protocol = new NetworkProtocol(stdMgmtURL, courseName);
+        login.setTokenRefreshListener(this::tokenRefreshed);
+        this.protocol = protocol;
         loggedIn = false;
         this.submissionServer = submissionServer;
     }
@@ -62,6 +140,7 @@ public class SubmitterProtocol {
     void setNetworkComponents(LoginComponent login, NetworkProtocol protocol) {
         if (null != login) {
             this.login = login;
+            login.setTokenRefreshListener(this::tokenRefreshed);
         }
         
         if (null != protocol) {
@@ -69,8 +148,47 @@ public class SubmitterProtocol {
         }
     }
     
+    /**
+     * Optional: Opens the connections to the authentication server and the <b>student management system</b> in
+     * parallel in the background, so that the {@link #login(String, String)} does not pay for DNS resolution,
+     * connection setup, and TLS handshakes. Should be called directly after construction, while the credentials are
+     * still prepared.
+     * @return A future, which completes (never exceptionally) after the connections are established or failed, it
+     *     is not necessary to wait for it.
+     */
+    public CompletableFuture<Void> warmUp() {
+        return login.warmUp();
+    }
+    
+    /**
+     * Optional: Enables an encrypted on-disk store of the token, so that processes, which are started repeatedly
+     * (e.g., the SVN submission hook), reuse a still valid token of a previous {@link #login(String, String) login}
+     * with the same credentials instead of contacting the authentication server and the <b>student management
+     * system</b>. Must be called before the login.
+     * @param directory The directory where to store the tokens, should only be accessible by the user running the
+     *     process. <tt>null</tt> disables the store.
+     */
+    public void setTokenDirectory(Path directory) {
+        login.setTokenStore(null != directory ? new TokenStore(directory) : null);
+    }
+    
+    /**
+     * Optional: Enables the pipelined login: As soon as the token is received, the course is resolved and all
+     * assignments of the course are downloaded in the background, in parallel to the remaining login (the query of
+     * the user's identity). Subsequent queries of the assignments (e.g., {@link #getOpenAssignments()}) use the
+     * prefetched data or join the running download. Failures of the prefetch are ignored, the data is downloaded
+     * again when it is queried.
+     * @param prefetchOnLogin <tt>true</tt> to prefetch the course and its assignments at the
+     *     {@link #login(String, String)}.
+     */
+    public void setPrefetchOnLogin(boolean prefetchOnLogin) {
+        this.prefetchOnLogin = prefetchOnLogin;
+    }
+    
     /**
      * Logs the user in into the <b>student management system</b>.
+     * If the login fails, the token of a {@link #setPrefetchOnLogin(boolean) pipelined login} is removed from the
+     * low-level protocol and its prefetch is cancelled.
      * @param userName The user name of the user to login.
      * @param password The password of the user to login.
      * @return <tt>true</tt> if the login was successful, <tt>false</tt> otherwise.
@@ -79,15 +197,68 @@ public class SubmitterProtocol {
      * @throws ServerNotFoundException If one of the two servers is unreachable by the specified URLs.
      */
     public boolean login(String userName, String password) throws UnknownCredentialsException, ServerNotFoundException {
-        loggedIn = login.login(userName, password);
+        Prefetch prefetch = prefetchOnLogin ? new Prefetch() : null;
+        boolean success = false;
+        try {
+            success = null != prefetch ? login.login(userName, password, prefetch) : login.login(userName, password);
+        } finally {
+            if (!success && null != prefetch) {
+                prefetch.discard();
+            }
+        }
+        loggedIn = success;
         
         if (loggedIn) {
-            protocol.setAccessToken(login.getManagementToken());
+            String token = login.getManagementToken();
+            // The pipelined login passed the token already, unless it was replaced during the login
+            if (null == prefetch || !Objects.equals(token, prefetch.token)) {
+                updateToken(token);
+            }
         }
         
         return loggedIn;
     }
     
+    /**
+     * Logs the user out and stops the proactive refresh of the token in the background. Should be called when the
+     * protocol is no longer needed. Afterwards, a new {@link #login(String, String)} is required.
+     */
+    public void logout() {
+        loggedIn = false;
+        login.logout();
+    }
+    
+    /**
+     * Sets the traffic class of all functions of this protocol, e.g., to avoid that bulk requests of tools delay
+     * interactive users.
+     * @param trafficClass The traffic class of all requests, which are executed via {@link #apply(Action)}.
+     */
+    public void setTrafficClass(TrafficClass trafficClass) {
+        this.trafficClass = trafficClass;
+    }
+    
+    /**
+     * Passes a token, which was proactively refreshed by the {@link LoginComponent} before the old one expired, to
+     * the low-level protocol, so that no request fails because of an expired token.
+     * @param newToken The new token for the <b>student management system</b>.
+     */
+    private void tokenRefreshed(String newToken) {
+        if (loggedIn) {
+            updateToken(newToken);
+        }
+    }
+    
+    /**
+     * Passes a new token to the low-level protocol and starts a new generation of tokens.
+     * @param newToken The new token for the <b>student management system</b>.
+     */
+    private void updateToken(String newToken) {
+        synchronized (tokenLock) {
+            protocol.setAccessToken(newToken);
+            tokenGeneration++;
+        }
+    }
+    
     /**
      * Returns the internally used low-level protocol.
      * @return The low-level protocol.
@@ -96,6 +267,15 @@ public class SubmitterProtocol {
         return protocol;
     }
     
+    /**
+     * Returns the statistics of all caches used by this protocol, allows to check if the caches reduce the load of
+     * the <b>student management system</b> and to tune their sizes.
+     * @return The statistics in form of (name of the cache, statistics).
+     */
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        return protocol.getCacheStatistics();
+    }
+    
     /**
      * Used to select the semester.
      * @param semester The semester to use (four lower case letters + 2 digits).
@@ -117,6 +297,12 @@ public class SubmitterProtocol {
     /**
      * Performs the given function and tries to re-login in case of an {@link UnauthorizedException}, which may happen
      * after a session token has been expired.
+     * Concurrent functions, which are rejected with the same token, share one re-login: The first one logs in again,
+     * the others wait for its result without holding a lock. Functions, which were rejected with an older token than
+     * the current one, are retried immediately.
+     * Both, the function and the re-login, honor the {@link Deadline} of the current operation, i.e., no re-login is
+     * tried if the time budget is already exhausted. The requests are sent in the
+     * {@link #setTrafficClass(TrafficClass) traffic class} of this protocol.
      * @param function The function to be done.
      * @param <R> The expected <tt>Result-Type</tt> to be passed outside of the front-end.
      * @return The expected <tt>Result</tt> to be passed outside of the front-end.
@@ -124,27 +310,16 @@ public class SubmitterProtocol {
      */
     protected <R> R apply(Action<R> function) throws NetworkException {
         R result;
-        try {
+        long generation = tokenGeneration;
+        try (TrafficClass.Scope scope = trafficClass.activate()) {
             result = function.action();
         } catch (UnauthorizedException e) {
-            // Session maybe expired -> try re-login before throwing exception
+            // Session maybe expired -> try re-login before throwing exception (if time budget allows it)
             if (loggedIn) {
-                String oldToken = getProtocol().getAccessToken();
-                synchronized (this) {
-                    // Check that automatic re-login wasn't done in a separate thread
-                    if (oldToken.equals(getProtocol().getAccessToken())) {
-                        String newToken = login.reLogin();
-                        if (null != newToken) {
-                            protocol.setAccessToken(newToken);
-                            result = function.action();
-                        } else {
-                            loggedIn = false;
-                            throw e;
-                        }
-                    } else {
-                        // Automatic re-login was done in a separate thread
-                        result = function.action();
-                    }
+                Deadline.check(login.getAuthenticationURL());
+                renewToken(generation, e);
+                try (TrafficClass.Scope scope = trafficClass.activate()) {
+                    result = function.action();
                 }
             } else {
                 throw e;
@@ -152,6 +327,95 @@ public class SubmitterProtocol {
         }
         return result;
     }
+    
+    /**
+     * Ensures that a newer token than the rejected one is used: Starts a re-login, joins a running re-login, or
+     * returns immediately if a newer token was already obtained.
+     * @param generation The generation of the rejected token.
+     * @param rejection The exception, which is thrown if no new token can be obtained.
+     * @throws NetworkException If the re-login failed, or the <tt>rejection</tt> if the user cannot be logged in
+     *     again.
+     */
+    private void renewToken(long generation, UnauthorizedException rejection) throws NetworkException {
+        CompletableFuture<Boolean> reLogin;
+        boolean owner = false;
+        synchronized (tokenLock) {
+            if (generation != tokenGeneration) {
+                // A newer token was obtained by a separate thread -> retry immediately
+                reLogin = CompletableFuture.completedFuture(true);
+            } else if (null != pendingReLogin) {
+                reLogin = pendingReLogin;
+            } else {
+                reLogin = new CompletableFuture<>();
+                pendingReLogin = reLogin;
+                owner = true;
+            }
+        }
+        
+        if (owner) {
+            reLogin(reLogin);
+        }
+        if (!await(reLogin, rejection)) {
+            throw rejection;
+        }
+    }
+    
+    /**
+     * Logs the user in again (in the calling thread) and passes the result to all threads waiting for the re-login.
+     * @param reLogin The re-login of the current generation, completes with <tt>true</tt> if a new token was
+     *     obtained.
+     */
+    private void reLogin(CompletableFuture<Boolean> reLogin) {
+        boolean success = false;
+        //checkstyle: stop exception type check: Failures must be passed to the waiting threads
+        try {
+            String newToken = login.reLogin();
+            success = null != newToken;
+            if (success) {
+                updateToken(newToken);
+            } else {
+                loggedIn = false;
+            }
+        } catch (NetworkException | RuntimeException e) {
+            reLogin.completeExceptionally(e);
+        } finally {
+            synchronized (tokenLock) {
+                pendingReLogin = null;
+            }
+            reLogin.complete(success);
+        }
+        //checkstyle: resume exception type check
+    }
+    
+    /**
+     * Waits for the result of a re-login, at most until the {@link Deadline} of the current operation is exceeded.
+     * @param reLogin The re-login to wait for.
+     * @param rejection The exception, which is thrown if the thread is interrupted while waiting.
+     * @return <tt>true</tt> if a new token was obtained, <tt>false</tt> if the user cannot be logged in again.
+     * @throws NetworkException If the re-login failed.
+     */
+    private static boolean await(CompletableFuture<Boolean> reLogin, UnauthorizedException rejection)
+        throws NetworkException {
+        
+        Deadline deadline = Deadline.current();
+        boolean success;
+        try {
+            success = null != deadline ? reLogin.get(deadline.getRemaining(TimeUnit.MILLISECONDS),
+                TimeUnit.MILLISECONDS) : reLogin.get();
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Deadline exceeded while waiting for the re-login", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejection;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NetworkException) {
+                throw (NetworkException) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+        
+        return success;
+    }
 
     /**
      * Returns the list of reviewed assignments, for the user.
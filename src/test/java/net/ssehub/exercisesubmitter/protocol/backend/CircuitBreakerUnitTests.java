@@ -0,0 +1,106 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.backend.CircuitBreaker.State;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link CircuitBreaker} class.
+ *
+ * @author agent
+ *
+ */
+public class CircuitBreakerUnitTests {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> transitions = new ArrayList<>();
+
+    /**
+     * Creates a breaker, which opens after 2 failures for 10 seconds and uses the simulated clock.
+     * @return The new breaker.
+     */
+    private CircuitBreaker createBreaker() {
+        List<CircuitBreaker.StateListener> listeners = new CopyOnWriteArrayList<>();
+        listeners.add((breaker, from, to) -> transitions.add(from + "->" + to));
+        return new CircuitBreaker("http://localhost:80", 2, TimeUnit.SECONDS.toMillis(10), listeners, now::get);
+    }
+
+    /**
+     * Tests that the circuit is opened after consecutive failures and fails fast until the cool down has elapsed.
+     */
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = createBreaker();
+
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assertions.assertEquals(State.CLOSED, breaker.getState(), "Failures were not consecutive");
+
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        Assertions.assertEquals(State.OPEN, breaker.getState());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        Assertions.assertFalse(breaker.tryAcquire());
+        Assertions.assertEquals(Arrays.asList("CLOSED->OPEN"), transitions);
+    }
+
+    /**
+     * Tests that only one probe request is let through after the cool down and that its result decides the state.
+     */
+    @Test
+    public void testHalfOpenProbe() {
+        CircuitBreaker breaker = createBreaker();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // Failed probe -> open again
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertTrue(breaker.tryAcquire());
+        Assertions.assertEquals(State.HALF_OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.tryAcquire(), "Only one probe request is allowed");
+        breaker.onFailure();
+        Assertions.assertEquals(State.OPEN, breaker.getState());
+        Assertions.assertFalse(breaker.tryAcquire());
+
+        // Successful probe -> closed
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        Assertions.assertEquals(State.CLOSED, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquire());
+
+        Assertions.assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN",
+            "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    /**
+     * Tests that an abandoned probe request releases the probe slot, so that the circuit does not stay half open.
+     */
+    @Test
+    public void testAbandonedProbeReleasesSlot() {
+        CircuitBreaker breaker = createBreaker();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertTrue(breaker.tryAcquire());
+        Assertions.assertFalse(breaker.tryAcquire(), "Only one probe request is allowed");
+        breaker.onAbandoned();
+        Assertions.assertEquals(State.HALF_OPEN, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquire(), "Next request must be let through as new probe");
+        breaker.onSuccess();
+        Assertions.assertEquals(State.CLOSED, breaker.getState());
+    }
+}
@@ -0,0 +1,183 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link CompressionInterceptor} class.
+ * Uses a local stand-in server, which supports gzip compressed requests and responses.
+ *
+ * @author agent
+ *
+ */
+public class CompressionInterceptorUnitTests {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * Repetitive JSON like assessments with many markers.
+     */
+    private static final String LARGE_BODY = "[" + "{\"tool\":\"checkstyle\",\"message\":\"Missing Javadoc\"},"
+        .repeat(500) + "{}]";
+
+    private HttpServer server;
+    private String url;
+    private boolean acceptCompressedRequests = true;
+    private AtomicInteger compressedUploads = new AtomicInteger();
+
+    /**
+     * Starts the stand-in server.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that responses are requested compressed and decompressed transparently by both transports.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testResponsesAreDecompressed() throws IOException {
+        for (Transport transport : new Transport[] {null, new JdkHttpTransport()}) {
+            HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5, transport);
+            Response response = factory.newClient().newCall(new Request.Builder().url(url).build()).execute();
+
+            Assertions.assertNull(response.header("Content-Encoding"));
+            Assertions.assertEquals(LARGE_BODY, response.body().string());
+            CompressionStatistics statistics = factory.getCompression().getStatistics();
+            Assertions.assertEquals(1, statistics.getCompressedResponseCount());
+            Assertions.assertEquals(LARGE_BODY.length(), statistics.getResponseBytes());
+            Assertions.assertTrue(statistics.getResponseWireBytes() < LARGE_BODY.length() / 10,
+                "Repetitive JSON not compressed: " + statistics);
+            Assertions.assertTrue(statistics.getBytesSaved() > 0);
+        }
+    }
+
+    /**
+     * Tests that only request bodies above the threshold are compressed.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testLargeRequestsAreCompressed() throws IOException {
+        OkHttpClient client = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5).newClient();
+        CompressionInterceptor compression = (CompressionInterceptor) client.interceptors().get(0);
+
+        Assertions.assertEquals(String.valueOf(LARGE_BODY.length()), upload(client, LARGE_BODY));
+        Assertions.assertEquals("2", upload(client, "{}"));
+
+        Assertions.assertEquals(1, compressedUploads.get());
+        CompressionStatistics statistics = compression.getStatistics();
+        Assertions.assertEquals(1, statistics.getCompressedRequestCount());
+        Assertions.assertEquals(LARGE_BODY.length(), statistics.getRequestBytes());
+        Assertions.assertTrue(statistics.getRequestWireBytes() < LARGE_BODY.length() / 10);
+    }
+
+    /**
+     * Tests that requests are repeated uncompressed if the server does not support compressed requests.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testUnsupportedRequestCompression() throws IOException {
+        acceptCompressedRequests = false;
+        OkHttpClient client = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5).newClient();
+        CompressionInterceptor compression = (CompressionInterceptor) client.interceptors().get(0);
+
+        Assertions.assertEquals(String.valueOf(LARGE_BODY.length()), upload(client, LARGE_BODY));
+        Assertions.assertEquals(String.valueOf(LARGE_BODY.length()), upload(client, LARGE_BODY));
+
+        Assertions.assertEquals(1, compressedUploads.get(), "Compression should be tried only once");
+        Assertions.assertEquals(0, compression.getStatistics().getCompressedRequestCount());
+    }
+
+    /**
+     * Uploads a body to the stand-in server.
+     * @param client The client to use.
+     * @param content The body to upload.
+     * @return The response of the server (the uncompressed size of the received body).
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    private String upload(OkHttpClient client, String content) throws IOException {
+        Request request = new Request.Builder()
+            .url(url + "upload")
+            .post(RequestBody.create(JSON, content))
+            .build();
+        Response response = client.newCall(request).execute();
+        Assertions.assertEquals(200, response.code());
+        return response.body().string();
+    }
+
+    /**
+     * Handles requests of the stand-in server.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int code = 200;
+        byte[] body;
+        if ("/upload".equals(exchange.getRequestURI().getPath())) {
+            boolean compressed = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            if (compressed) {
+                compressedUploads.incrementAndGet();
+            }
+            try (InputStream in = compressed ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody()) {
+
+                body = String.valueOf(in.readAllBytes().length).getBytes(StandardCharsets.UTF_8);
+            }
+            if (compressed && !acceptCompressedRequests) {
+                code = 415;
+            }
+        } else {
+            body = LARGE_BODY.getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (null != acceptEncoding && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (OutputStream out = new GZIPOutputStream(compressed)) {
+                    out.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+        }
+
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,239 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.reflect.TypeToken;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.ssehub.studentmgmt.backend_api.ApiException;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link ConditionalRequestCache} and the {@link CachingApiClient}.
+ * Uses a local stand-in server, which supports <tt>ETag</tt>s.
+ *
+ * @author agent
+ *
+ */
+public class ConditionalRequestCacheUnitTests {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String BODY = "[{\"id\":\"001\",\"name\":\"Exercise01\"}]";
+    private static final Type ASSIGNMENTS_TYPE = new TypeToken<List<AssignmentDto>>() { }.getType();
+
+    private HttpServer server;
+    private String url;
+    private AtomicInteger fullResponses = new AtomicInteger();
+    private AtomicInteger notModifiedResponses = new AtomicInteger();
+    private boolean chunked;
+
+    /**
+     * Starts the stand-in server, which answers with <tt>304</tt> if the client sends the current <tt>ETag</tt>.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/courses/java/assignments", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/courses/java/assignments";
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that stored responses are revalidated and replayed if the server answers with <tt>304</tt>.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testNotModifiedResponseIsReplayed() throws IOException {
+        CachingApiClient client = new CachingApiClient(new ConditionalRequestCache(4096, 1024));
+
+        Response first = client.getHttpClient().newCall(get("Bearer token1")).execute();
+        Assertions.assertEquals(BODY, first.body().string());
+        Response second = client.getHttpClient().newCall(get("Bearer token1")).execute();
+        Assertions.assertEquals(200, second.code());
+        Assertions.assertEquals(BODY, second.body().string());
+
+        Assertions.assertEquals(1, fullResponses.get());
+        Assertions.assertEquals(1, notModifiedResponses.get());
+
+        // Responses of other users are not used
+        client.getHttpClient().newCall(get("Bearer token2")).execute().body().close();
+        Assertions.assertEquals(2, fullResponses.get());
+    }
+
+    /**
+     * Tests that the deserialized object graph is shared if the response was not modified.
+     * @throws IOException Must not occur, only a local server is used.
+     * @throws ApiException Must not occur, response is valid.
+     */
+    @Test
+    public void testObjectGraphIsShared() throws IOException, ApiException {
+        CachingApiClient client = new CachingApiClient(new ConditionalRequestCache(4096, 1024));
+        client.shareObjectGraphs(ASSIGNMENTS_TYPE);
+
+        List<AssignmentDto> first = client.deserialize(
+            client.getHttpClient().newCall(get("Bearer token1")).execute(), ASSIGNMENTS_TYPE);
+        List<AssignmentDto> second = client.deserialize(
+            client.getHttpClient().newCall(get("Bearer token1")).execute(), ASSIGNMENTS_TYPE);
+
+        Assertions.assertEquals("Exercise01", first.get(0).getName());
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, notModifiedResponses.get());
+    }
+
+    /**
+     * Tests that responses are not stored if they exceed the maximum body size.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testLargeResponsesAreNotStored() throws IOException {
+        ConditionalRequestCache cache = new ConditionalRequestCache(4096, 8);
+        CachingApiClient client = new CachingApiClient(cache);
+
+        Assertions.assertEquals(BODY, client.getHttpClient().newCall(get("Bearer token1")).execute().body().string());
+        client.getHttpClient().newCall(get("Bearer token1")).execute().body().close();
+
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(2, fullResponses.get());
+    }
+
+    /**
+     * Tests that chunked responses (without content length) are only stored up to the maximum body size, larger
+     * responses are passed completely to the client.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testLargeChunkedResponsesAreNotStored() throws IOException {
+        chunked = true;
+        ConditionalRequestCache smallCache = new ConditionalRequestCache(4096, 8);
+        CachingApiClient client = new CachingApiClient(smallCache);
+        Assertions.assertEquals(BODY, client.getHttpClient().newCall(get("Bearer token1")).execute().body().string());
+        Assertions.assertEquals(0, smallCache.size());
+        
+        ConditionalRequestCache largeCache = new ConditionalRequestCache(4096, 1024);
+        client = new CachingApiClient(largeCache);
+        Assertions.assertEquals(BODY, client.getHttpClient().newCall(get("Bearer token1")).execute().body().string());
+        Assertions.assertEquals(1, largeCache.size());
+    }
+
+    /**
+     * Tests that a refreshed token of the same user (same subject of the JSON Web Token) uses the stored response.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testRefreshedTokenUsesStoredResponse() throws IOException {
+        CachingApiClient client = new CachingApiClient(new ConditionalRequestCache(4096, 1024));
+
+        client.getHttpClient().newCall(get("Bearer " + createToken("elscha", 1))).execute().body().close();
+        client.getHttpClient().newCall(get("Bearer " + createToken("elscha", 2))).execute().body().close();
+        Assertions.assertEquals(1, fullResponses.get());
+        Assertions.assertEquals(1, notModifiedResponses.get());
+
+        // Tokens of other users are not used
+        client.getHttpClient().newCall(get("Bearer " + createToken("other", 1))).execute().body().close();
+        Assertions.assertEquals(2, fullResponses.get());
+    }
+
+    /**
+     * Tests that the least recently used responses are removed if the total size of the stored bodies exceeds the
+     * limit.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testTotalSizeIsLimited() throws IOException {
+        int bodySize = BODY.getBytes(StandardCharsets.UTF_8).length;
+        ConditionalRequestCache cache = new ConditionalRequestCache(2 * bodySize, 1024);
+        CachingApiClient client = new CachingApiClient(cache);
+
+        for (int i = 0; i < 3; i++) {
+            client.getHttpClient().newCall(get(url + "?page=" + i, "Bearer token1")).execute().body().close();
+        }
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(2 * bodySize, cache.getTotalBytes());
+
+        // First response was removed
+        client.getHttpClient().newCall(get(url + "?page=0", "Bearer token1")).execute().body().close();
+        Assertions.assertEquals(4, fullResponses.get());
+        Assertions.assertEquals(2 * bodySize, cache.getTotalBytes());
+
+        cache.invalidateAll();
+        Assertions.assertEquals(0, cache.getTotalBytes());
+    }
+
+    /**
+     * Creates an (unsigned) JSON Web Token of the specified user.
+     * @param subject The user to whom the token is issued.
+     * @param issuedAt Distinguishes tokens of the same user.
+     * @return The token.
+     */
+    private static String createToken(String subject, long issuedAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+            + encoder.encodeToString(("{\"sub\":\"" + subject + "\",\"iat\":" + issuedAt + "}")
+                .getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    /**
+     * Creates a GET request to the stand-in server.
+     * @param authorization The <tt>Authorization</tt> header.
+     * @return The request.
+     */
+    private Request get(String authorization) {
+        return get(url, authorization);
+    }
+
+    /**
+     * Creates a GET request.
+     * @param requestUrl The URL of the request.
+     * @param authorization The <tt>Authorization</tt> header.
+     * @return The request.
+     */
+    private Request get(String requestUrl, String authorization) {
+        return new Request.Builder().url(requestUrl).header("Authorization", authorization).get().build();
+    }
+
+    /**
+     * Handles requests of the stand-in server.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            fullResponses.incrementAndGet();
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, chunked ? 0 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,145 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.ssehub.studentmgmt.backend_api.api.CourseApi;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link Deadline} class and its propagation through the protocol.
+ *
+ * @author agent
+ *
+ */
+public class DeadlineUnitTests {
+
+    private static final long SERVER_DELAY_MILLIS = 3000;
+
+    private HttpServer server;
+    private String url;
+
+    /**
+     * Starts the stand-in server, which answers slowly.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that nested deadlines cannot extend the time budget and that scopes restore the previous deadline.
+     */
+    @Test
+    public void testNestedDeadlines() {
+        Deadline outer = Deadline.after(1, TimeUnit.SECONDS);
+        try (Deadline.Scope outerScope = outer.activate()) {
+            try (Deadline.Scope innerScope = Deadline.after(1, TimeUnit.HOURS).activate()) {
+                Assertions.assertSame(outer, Deadline.current());
+            }
+            Deadline shorter = Deadline.after(10, TimeUnit.MILLISECONDS);
+            try (Deadline.Scope innerScope = shorter.activate()) {
+                Assertions.assertSame(shorter, Deadline.current());
+            }
+            Assertions.assertSame(outer, Deadline.current());
+        }
+        Assertions.assertNull(Deadline.current());
+    }
+
+    /**
+     * Tests that the timeout of requests is limited by the remaining time for both transports.
+     */
+    @Test
+    public void testRequestTimeoutFromDeadline() {
+        for (Transport transport : new Transport[] {null, new JdkHttpTransport()}) {
+            OkHttpClient client = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5, transport).newClient();
+            long start = System.nanoTime();
+            try (Deadline.Scope scope = Deadline.after(200, TimeUnit.MILLISECONDS).activate()) {
+                Assertions.assertThrows(IOException.class,
+                    () -> client.newCall(new Request.Builder().url(url).build()).execute());
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Assertions.assertTrue(elapsed < SERVER_DELAY_MILLIS - 1000, "Request not aborted: " + elapsed + " ms");
+        }
+    }
+
+    /**
+     * Tests that protocol calls fail fast with a {@link DeadlineExceededException} if the deadline is exceeded.
+     */
+    @Test
+    public void testProtocolFailsFast() {
+        CourseApi courseApiMock = Mockito.mock(CourseApi.class);
+        NetworkProtocol np = new NetworkProtocol(url, "deadline-course", null, courseApiMock, null, null);
+
+        try (Deadline.Scope scope = Deadline.after(0, TimeUnit.MILLISECONDS).activate()) {
+            DeadlineExceededException exc = Assertions.assertThrows(DeadlineExceededException.class,
+                () -> np.getCourseID());
+            Assertions.assertEquals(url, exc.getURL());
+        }
+        Mockito.verifyNoInteractions(courseApiMock);
+    }
+
+    /**
+     * Tests that asynchronous requests inherit the deadline of the calling thread.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    public void testAsyncRequestsInheritDeadline() throws InterruptedException {
+        CourseApi courseApiMock = Mockito.mock(CourseApi.class);
+        NetworkProtocol np = new NetworkProtocol(url, "deadline-async-course", null, courseApiMock, null, null);
+
+        CompletableFuture<String> courseId;
+        try (Deadline.Scope scope = Deadline.after(0, TimeUnit.MILLISECONDS).activate()) {
+            courseId = np.getCourseIDAsync();
+        }
+        ExecutionException exc = Assertions.assertThrows(ExecutionException.class,
+            () -> courseId.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(exc.getCause() instanceof DeadlineExceededException);
+    }
+
+    /**
+     * Handles requests of the stand-in server, answers after {@value #SERVER_DELAY_MILLIS} ms.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(SERVER_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.sendResponseHeaders(200, 2);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write("{}".getBytes());
+        } catch (IOException e) {
+            // Client already closed the connection
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,113 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+import net.ssehub.studentmgmt.backend_api.model.GroupDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link GroupRegistry} class.
+ *
+ * @author agent
+ *
+ */
+public class GroupRegistryUnitTests {
+
+    private static final String TEST_COURSE_ID = "java-wise1920";
+    private static final String TEST_ASSIGNMENT_ID = "001";
+
+    /**
+     * Tests that the groups of an assignment are downloaded only once for all kinds of lookups.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testLookupsShareOneDownload() throws NetworkException {
+        AtomicInteger downloads = new AtomicInteger(0);
+        Loader<List<GroupDto>> loader = () -> {
+            downloads.incrementAndGet();
+            return Arrays.asList(createGroup("Group 1", "user1", "user2"), createGroup("Group 2", "user3"));
+        };
+        GroupRegistry registry = new GroupRegistry();
+
+        Assertions.assertEquals(2, registry.getGroups(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, loader).size());
+        Assertions.assertEquals("Group 1",
+            registry.getGroupByName(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, "Group 1", loader).getName());
+        Assertions.assertEquals("Group 2",
+            registry.getGroupOfMember(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, "user3", loader).getName());
+        Assertions.assertNull(registry.getGroupByName(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, "Group 3", loader));
+        Assertions.assertEquals(1, downloads.get());
+
+        // Other assignments are downloaded separately
+        registry.getGroups(TEST_COURSE_ID, "002", loader);
+        Assertions.assertEquals(2, downloads.get());
+    }
+
+    /**
+     * Tests that unknown groups trigger a refresh if the miss refresh interval elapsed.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testUnknownGroupTriggersRefresh() throws NetworkException {
+        AtomicInteger downloads = new AtomicInteger(0);
+        Loader<List<GroupDto>> loader = () -> downloads.incrementAndGet() == 1
+            ? Arrays.asList(createGroup("Group 1", "user1")) : Arrays.asList(createGroup("Group 2", "user2"));
+        GroupRegistry registry = new GroupRegistry();
+        registry.setMissRefreshInterval(0, TimeUnit.SECONDS);
+
+        Assertions.assertNotNull(registry.getGroupByName(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, "Group 1", loader));
+        Assertions.assertNotNull(registry.getGroupOfMember(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, "user2", loader));
+        Assertions.assertEquals(2, downloads.get());
+        Assertions.assertEquals(2, registry.getStatistics().getLoadCount(), "Refresh must be counted as load");
+    }
+
+    /**
+     * Tests that the generation of the groups of an assignment changes only if the groups of this assignment are
+     * downloaded again, restored, or invalidated.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testGenerationIsTrackedPerAssignment() throws NetworkException {
+        Loader<List<GroupDto>> loader = () -> Arrays.asList(createGroup("Group 1", "user1"));
+        GroupRegistry registry = new GroupRegistry();
+        registry.setMissRefreshInterval(0, TimeUnit.SECONDS);
+
+        registry.getGroups(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, loader);
+        long generation = registry.getGeneration(TEST_COURSE_ID, TEST_ASSIGNMENT_ID);
+        registry.getGroupByName(TEST_COURSE_ID, "002", "unknown", loader);
+        registry.seed(TEST_COURSE_ID, "003", Arrays.asList(createGroup("Group 2", "user2")),
+            System.currentTimeMillis());
+        Assertions.assertEquals(generation, registry.getGeneration(TEST_COURSE_ID, TEST_ASSIGNMENT_ID));
+
+        // Refresh after unsuccessful lookup
+        registry.getGroupByName(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, "unknown", loader);
+        long refreshed = registry.getGeneration(TEST_COURSE_ID, TEST_ASSIGNMENT_ID);
+        Assertions.assertNotEquals(generation, refreshed);
+
+        registry.invalidate();
+        Assertions.assertNotEquals(refreshed, registry.getGeneration(TEST_COURSE_ID, TEST_ASSIGNMENT_ID));
+    }
+
+    /**
+     * Creates a group as it would be sent by the server.
+     * @param name The name of the group.
+     * @param userNames The user names of the members.
+     * @return The group.
+     */
+    private static GroupDto createGroup(String name, String... userNames) {
+        GroupDto group = new GroupDto();
+        group.setName(name);
+        for (String userName : userNames) {
+            ParticipantDto member = new ParticipantDto();
+            member.setUsername(userName);
+            group.addMembersItem(member);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,171 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link HedgingInterceptor} class.
+ * Uses a local stand-in server, which answers the first request slowly (like a slow replica).
+ *
+ * @author agent
+ *
+ */
+public class HedgingInterceptorUnitTests {
+
+    private static final long SLOW_REPLICA_MILLIS = 2000;
+
+    private HttpServer server;
+    private String url;
+    private AtomicInteger receivedRequests = new AtomicInteger();
+
+    private HttpClientFactory factory;
+    private HedgingInterceptor hedging;
+    private OkHttpClient client;
+
+    /**
+     * Starts the stand-in server and creates a client with hedging.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+        factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+        hedging = new HedgingInterceptor(factory.getTransport());
+        client = factory.newClient(hedging);
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that a slow read is hedged, the faster response is used, and the slower request is cancelled without
+     * being counted as failure of the server.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testSlowReadIsHedged() throws IOException {
+        hedging.setPolicy(new HedgingPolicy(0.95, 1, 100, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertEquals("2", response.body().string(), "Response of the second request expected");
+        Assertions.assertTrue(elapsed < SLOW_REPLICA_MILLIS, "Slow request was not hedged: " + elapsed + " ms");
+        Assertions.assertEquals(1, hedging.getNumberOfHedgedRequests());
+        Assertions.assertEquals(1, hedging.getNumberOfHedgeWins());
+        Assertions.assertEquals(0, factory.getRetry().getNumberOfRetries(), "Cancelled request must not be retried");
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED,
+            factory.getRetry().getCircuitBreakers().get(0).getState());
+    }
+
+    /**
+     * Tests that no second request is sent if the budget is exhausted.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testBudgetLimitsHedging() throws IOException {
+        hedging.setPolicy(new HedgingPolicy(0.95, 0, 100, TimeUnit.MILLISECONDS));
+
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+
+        Assertions.assertEquals("1", response.body().string());
+        Assertions.assertEquals(0, hedging.getNumberOfHedgedRequests());
+        Assertions.assertEquals(1, receivedRequests.get());
+    }
+
+    /**
+     * Tests that hedging is opt-in and restricted to idempotent requests.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testOnlyIdempotentReadsAreHedged() throws IOException {
+        // Disabled by default
+        Assertions.assertEquals("1", client.newCall(new Request.Builder().url(url).build()).execute().body().string());
+
+        hedging.setPolicy(new HedgingPolicy(0.95, 1, 100, TimeUnit.MILLISECONDS));
+        receivedRequests.set(0);
+        Request post = new Request.Builder()
+            .url(url)
+            .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+            .build();
+        Assertions.assertEquals("1", client.newCall(post).execute().body().string());
+        Assertions.assertEquals(0, hedging.getNumberOfHedgedRequests());
+    }
+
+    /**
+     * Tests that the latencies of failed calls are observed as well, so that failures of a slow server do not lower
+     * the delay after which requests are hedged.
+     * @throws IOException Must not occur, the chain is mocked.
+     */
+    @Test
+    public void testLatencyOfFailedCallsIsRecorded() throws IOException {
+        HedgingInterceptor interceptor = new HedgingInterceptor(factory.getTransport());
+        interceptor.setPolicy(new HedgingPolicy(0.95, 0, 100, TimeUnit.MILLISECONDS));
+        Interceptor.Chain chain = Mockito.mock(Interceptor.Chain.class);
+        Mockito.when(chain.request()).thenReturn(new Request.Builder().url(url).build());
+        Mockito.doThrow(new IOException("Simulated timeout")).when(chain).proceed(Mockito.any());
+
+        for (int i = 0; i < HedgingInterceptor.MIN_SAMPLES; i++) {
+            Assertions.assertThrows(IOException.class, () -> interceptor.intercept(chain));
+        }
+        Assertions.assertEquals(HedgingInterceptor.MIN_SAMPLES, interceptor.getNumberOfSamples());
+    }
+
+    /**
+     * Handles requests of the stand-in server, the first request is answered after {@value #SLOW_REPLICA_MILLIS} ms.
+     * Responds with the number of the request.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        int number = receivedRequests.incrementAndGet();
+        if (number == 1) {
+            try {
+                Thread.sleep(SLOW_REPLICA_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = String.valueOf(number).getBytes();
+        try {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            // Client cancelled the request
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,148 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link HttpClientFactory} class.
+ * Uses a local stand-in server to observe the used connections.
+ *
+ * @author agent
+ *
+ */
+public class HttpClientFactoryUnitTests {
+
+    private HttpServer server;
+    private String url;
+    private Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private AtomicInteger headRequests = new AtomicInteger();
+
+    /**
+     * Starts the stand-in server, which records the ports of the client connections.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that different clients of the same factory reuse the same connection.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testClientsShareConnections() throws IOException {
+        HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+        OkHttpClient loginClient = factory.newClient();
+        OkHttpClient protocolClient = factory.newClient();
+
+        Assertions.assertNotSame(loginClient, protocolClient);
+        Assertions.assertSame(loginClient.getConnectionPool(), protocolClient.getConnectionPool());
+        Assertions.assertSame(loginClient.getDispatcher(), protocolClient.getDispatcher());
+
+        for (OkHttpClient client : new OkHttpClient[] {loginClient, protocolClient, loginClient}) {
+            client.newCall(new Request.Builder().url(url).build()).execute().body().close();
+        }
+        Assertions.assertEquals(1, clientPorts.size());
+    }
+
+    /**
+     * Tests that interceptors of a client do not affect the other clients of the factory.
+     */
+    @Test
+    public void testInterceptorsAreNotShared() {
+        HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+        ConditionalRequestCache cache = new ConditionalRequestCache(1, 1);
+        OkHttpClient client = factory.newClient(cache);
+
+        Assertions.assertTrue(client.interceptors().contains(cache));
+        Assertions.assertFalse(factory.newClient().interceptors().contains(cache));
+    }
+
+    /**
+     * Tests that the executor for asynchronous requests is sized by the concurrent requests per host of the factory.
+     */
+    @Test
+    public void testAsyncExecutorIsSizedByDispatcher() {
+        HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 3);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) factory.getAsyncExecutor();
+
+        Assertions.assertEquals(3, executor.getMaximumPoolSize());
+        Assertions.assertTrue(executor.allowsCoreThreadTimeOut(), "Idle threads of unused factories must terminate");
+    }
+
+    /**
+     * Tests that the warm-up opens one connection per server and keeps it in the shared pool.
+     * Reuse itself cannot be observed, since the stand-in server closes connections after <tt>HEAD</tt> requests.
+     * @throws Exception Must not occur, only a local server is used.
+     */
+    @Test
+    public void testWarmUpOpensConnection() throws Exception {
+        HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+
+        factory.warmUp(url, url + "other", null, "no valid url").get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, headRequests.get(), "One request per server expected");
+        Assertions.assertEquals(1, factory.getConnectionPool().getIdleConnectionCount());
+    }
+
+    /**
+     * Tests that the warm-up does not fail if a server is not reachable.
+     * @throws Exception Must not occur, errors are ignored by the warm-up.
+     */
+    @Test
+    public void testWarmUpIgnoresUnreachableServers() throws Exception {
+        HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+        server.stop(0);
+
+        factory.warmUp(url).get(15, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, factory.getConnectionPool().getConnectionCount());
+    }
+
+    /**
+     * Handles requests of the stand-in server.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            headRequests.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,247 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import net.ssehub.studentmgmt.backend_api.api.AuthenticationApi;
+import net.ssehub.studentmgmt.backend_api.model.UserDto;
+import net.ssehub.studentmgmt.sparkyservice_api.ApiException;
+import net.ssehub.studentmgmt.sparkyservice_api.api.AuthControllerApi;
+import net.ssehub.studentmgmt.sparkyservice_api.model.AuthenticationInfoDto;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link LoginComponent} class, the REST calls are simulated by mocks
+ * of the generated APIs.
+ *
+ * @author agent
+ *
+ */
+public class LoginComponentUnitTests {
+
+    private static final String AUTH_URL = "http://auth.example.org";
+    private static final String MGMT_URL = "http://mgmt.example.org";
+
+    private AuthControllerApi authApi;
+    private AuthenticationApi mgmtAuthApi;
+    private UserDto user;
+    private LoginComponent login;
+
+    /**
+     * Creates a {@link LoginComponent} with mocks of both services: The user <tt>elscha</tt> is known by both
+     * services and each login returns a new token, which is valid for one hour.
+     * @throws Exception Must not occur, the services are mocked.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        authApi = Mockito.mock(AuthControllerApi.class);
+        mockAuthentication(3600);
+        user = new UserDto();
+        user.setId("user-id");
+        user.setUsername("elscha");
+        mgmtAuthApi = Mockito.mock(AuthenticationApi.class);
+        Mockito.when(mgmtAuthApi.whoAmI()).thenReturn(user);
+
+        login = new LoginComponent(AUTH_URL, MGMT_URL);
+        login.setApis(authApi, mgmtAuthApi);
+    }
+
+    /**
+     * Lets each login at the mocked authentication service return a new token of the user <tt>elscha</tt>.
+     * @param validSeconds The lifetime of the returned tokens.
+     * @throws ApiException Must not occur, the service is mocked.
+     */
+    private void mockAuthentication(long validSeconds) throws ApiException {
+        AuthenticationInfoDto authInfo = Mockito.mock(AuthenticationInfoDto.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(authInfo.getUser().getUsername()).thenReturn("elscha");
+        Mockito.when(authInfo.getToken().getToken()).thenAnswer(invocation -> createToken(validSeconds));
+        Mockito.doReturn(authInfo).when(authApi).authenticate(Mockito.any());
+    }
+
+    /**
+     * Creates an (unsigned) JSON Web Token, which expires after the specified time.
+     * @param validSeconds The remaining lifetime of the token.
+     * @return The token.
+     */
+    private static String createToken(long validSeconds) {
+        long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + validSeconds;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+            + encoder.encodeToString(("{\"exp\":" + exp + ",\"n\":" + System.nanoTime() + "}")
+                .getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    /**
+     * Creates a stored login of the user <tt>elscha</tt>.
+     * @param token The token to store.
+     * @param identityCheckedAt The time the identity was checked.
+     * @return The login to store.
+     */
+    private TokenStore.Entry createEntry(String token, long identityCheckedAt) {
+        return new TokenStore.Entry("elscha", token, user, identityCheckedAt);
+    }
+
+    /**
+     * Tests that a valid stored token is reused without contacting the servers.
+     * @param tokenDir A temporary directory.
+     * @throws NetworkException Must not occur, the services are mocked.
+     */
+    @Test
+    public void testLoginReusesValidToken(@TempDir Path tokenDir) throws NetworkException {
+        String token = createToken(3600);
+        TokenStore store = new TokenStore(tokenDir);
+        store.save(AUTH_URL, MGMT_URL, "elscha", "secret", createEntry(token, System.currentTimeMillis()));
+
+        login.setTokenStore(store);
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        Assertions.assertEquals(token, login.getManagementToken());
+        Assertions.assertEquals("elscha", login.getUserName());
+        Assertions.assertEquals("user-id", login.getUserID());
+        Mockito.verifyNoInteractions(authApi, mgmtAuthApi);
+    }
+
+    /**
+     * Tests that the servers are contacted, if the stored token expires within the refresh margin, the password
+     * differs, or the token is replaced by a re-login.
+     * @param tokenDir A temporary directory.
+     * @throws Exception Must not occur, the services are mocked.
+     */
+    @Test
+    public void testLoginFallsBackToServers(@TempDir Path tokenDir) throws Exception {
+        TokenStore store = new TokenStore(tokenDir);
+        login.setTokenStore(store);
+
+        String expiring = createToken(30);
+        store.save(AUTH_URL, MGMT_URL, "elscha", "secret", createEntry(expiring, System.currentTimeMillis()));
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        Assertions.assertNotEquals(expiring, login.getManagementToken());
+        Mockito.verify(authApi, Mockito.times(1)).authenticate(Mockito.any());
+
+        Assertions.assertTrue(login.login("elscha", "other"));
+        Mockito.verify(authApi, Mockito.times(2)).authenticate(Mockito.any());
+
+        String stored = login.getManagementToken();
+        Assertions.assertNotEquals(stored, login.reLogin());
+        Mockito.verify(authApi, Mockito.times(3)).authenticate(Mockito.any());
+    }
+
+    /**
+     * Tests that the identity of a stored token is queried again after the recheck interval elapsed.
+     * @param tokenDir A temporary directory.
+     * @throws Exception Must not occur, the services are mocked.
+     */
+    @Test
+    public void testIdentityIsRecheckedAfterInterval(@TempDir Path tokenDir) throws Exception {
+        TokenStore store = new TokenStore(tokenDir);
+        login.setTokenStore(store);
+        long checkedAt = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10);
+        store.save(AUTH_URL, MGMT_URL, "elscha", "secret", createEntry(createToken(3600), checkedAt));
+
+        // Identity checked 10 minutes ago -> reused
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        Mockito.verify(mgmtAuthApi, Mockito.never()).whoAmI();
+
+        // Identity is checked every 5 minutes -> queried, but the stored token is still used
+        login.setIdentityRecheckInterval(5, TimeUnit.MINUTES);
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        Mockito.verify(mgmtAuthApi, Mockito.times(1)).whoAmI();
+        Mockito.verify(authApi, Mockito.never()).authenticate(Mockito.any());
+    }
+
+    /**
+     * Tests that a re-login within the identity recheck interval relies on the known user, i.e., only contacts the
+     * authentication service, and keeps the user during the re-login.
+     * @throws Exception Must not occur, the services are mocked.
+     */
+    @Test
+    public void testReLoginReusesKnownUser() throws Exception {
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        Mockito.verify(mgmtAuthApi, Mockito.times(1)).whoAmI();
+
+        AtomicReference<String> userDuringReLogin = new AtomicReference<>();
+        Mockito.doAnswer(invocation -> {
+            userDuringReLogin.set(login.getUserID());
+            throw new ApiException(new ConnectException("Simulated unreachable server"));
+        }).when(authApi).authenticate(Mockito.any());
+        Assertions.assertThrows(ServerNotFoundException.class, () -> login.reLogin());
+        Assertions.assertEquals("user-id", userDuringReLogin.get());
+
+        mockAuthentication(3600);
+        String oldToken = login.getManagementToken();
+        String newToken = login.reLogin();
+        Assertions.assertNotNull(newToken);
+        Assertions.assertNotEquals(oldToken, newToken);
+        Assertions.assertEquals(newToken, login.getManagementToken());
+        Mockito.verify(mgmtAuthApi, Mockito.times(1)).whoAmI();
+
+        // Identity is checked at every login -> queried again
+        login.setIdentityRecheckInterval(0, TimeUnit.MINUTES);
+        Assertions.assertNotNull(login.reLogin());
+        Mockito.verify(mgmtAuthApi, Mockito.times(2)).whoAmI();
+    }
+
+    /**
+     * Tests that a failed refresh in the background keeps the current session: The user and the token remain usable,
+     * the refresh is tried again, and a later re-login succeeds.
+     * @throws Exception Must not occur, the services are mocked.
+     */
+    @Test
+    public void testFailedRefreshKeepsSession() throws Exception {
+        List<String> refreshedTokens = new CopyOnWriteArrayList<>();
+        login.setTokenRefreshListener(refreshedTokens::add);
+        mockAuthentication(6);
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        String token = login.getManagementToken();
+
+        // Refresh after half of the lifetime fails, is tried again once and fails again
+        Mockito.doThrow(new ApiException(new ConnectException("Simulated unreachable server")))
+            .when(authApi).authenticate(Mockito.any());
+        Mockito.verify(authApi, Mockito.timeout(10000).times(3)).authenticate(Mockito.any());
+        Assertions.assertTrue(refreshedTokens.isEmpty());
+        Assertions.assertEquals("user-id", login.getUserID());
+        Assertions.assertEquals(token, login.getManagementToken());
+
+        // Server is reachable again
+        mockAuthentication(3600);
+        String newToken = login.reLogin();
+        Assertions.assertNotNull(newToken);
+        Assertions.assertEquals(newToken, login.getManagementToken());
+        Assertions.assertEquals("user-id", login.getUserID());
+        login.logout();
+    }
+
+    /**
+     * Tests that a {@link LoginComponent#logout()} forgets the login, so that neither a refresh nor a re-login
+     * contacts the servers afterwards, while the stored token remains usable.
+     * @param tokenDir A temporary directory.
+     * @throws NetworkException Must not occur, the services are mocked.
+     */
+    @Test
+    public void testLogoutStopsReLogin(@TempDir Path tokenDir) throws NetworkException {
+        TokenStore store = new TokenStore(tokenDir);
+        login.setTokenStore(store);
+        login.setTokenRefreshListener(token -> Assertions.fail("Token must not be refreshed after logout"));
+        store.save(AUTH_URL, MGMT_URL, "elscha", "secret", createEntry(createToken(3600),
+            System.currentTimeMillis()));
+
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        login.logout();
+        Assertions.assertNull(login.getManagementToken());
+        Assertions.assertNull(login.reLogin());
+
+        Assertions.assertTrue(login.login("elscha", "secret"));
+        login.logout();
+        Mockito.verifyNoInteractions(authApi, mgmtAuthApi);
+    }
+}
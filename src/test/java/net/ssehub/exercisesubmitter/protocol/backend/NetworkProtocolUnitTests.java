@@ -1,11 +1,37 @@
 package net.ssehub.exercisesubmitter.protocol.backend;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
 import net.ssehub.studentmgmt.backend_api.ApiException;
+import net.ssehub.exercisesubmitter.protocol.frontend.Assignment;
+import net.ssehub.studentmgmt.backend_api.api.AssignmentApi;
+import net.ssehub.studentmgmt.backend_api.api.CourseApi;
 import net.ssehub.studentmgmt.backend_api.api.UserApi;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.CollaborationEnum;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
+import net.ssehub.studentmgmt.backend_api.model.CourseDto;
 
 /**
  * This class declares <b>unit</b> tests for the {@link NetworkProtocol} class.
@@ -17,6 +43,7 @@ import net.ssehub.studentmgmt.backend_api.api.UserApi;
 public class NetworkProtocolUnitTests {
     
     private static final String TEST_COURSE_NAME = "java";
+    private static final String TEST_COURSE_ID = "java-wise1920";
     
     /**
      * Test if the REST server is not found.
@@ -41,4 +68,180 @@ public class NetworkProtocolUnitTests {
         }
     }
     
+    /**
+     * Tests that the course ID is resolved only once by {@link NetworkProtocol#getCourseID()} and again after
+     * {@link NetworkProtocol#invalidateCourseID()}.
+     */
+    @Test
+    public void testCourseIdIsCached() throws ApiException, NetworkException {
+        CourseApi courseApiMock = createCourseMock();
+        
+        NetworkProtocol np = new NetworkProtocol("http://localhost", TEST_COURSE_NAME, null, courseApiMock, null, null);
+        Assertions.assertEquals(TEST_COURSE_ID, np.getCourseID());
+        Assertions.assertEquals(TEST_COURSE_ID, np.getCourseID());
+        Mockito.verify(courseApiMock, Mockito.times(1)).getCourses(Mockito.any(), Mockito.any(), Mockito.any(),
+            Mockito.any(), Mockito.any());
+        
+        np.invalidateCourseID();
+        Assertions.assertEquals(TEST_COURSE_ID, np.getCourseID());
+        Mockito.verify(courseApiMock, Mockito.times(2)).getCourses(Mockito.any(), Mockito.any(), Mockito.any(),
+            Mockito.any(), Mockito.any());
+    }
+    
+    /**
+     * Tests that {@link NetworkProtocol#getAssignments(StateEnum...)} downloads the assignments only once and
+     * filters them locally.
+     */
+    @Test
+    public void testAssignmentsAreFilteredLocally() throws ApiException, NetworkException {
+        AssignmentApi assignmentApiMock = Mockito.mock(AssignmentApi.class);
+        Mockito.when(assignmentApiMock.getAssignmentsOfCourse(TEST_COURSE_ID)).thenReturn(Arrays.asList(
+            createAssignment("Open", StateEnum.IN_PROGRESS), createAssignment("Evaluated", StateEnum.EVALUATED),
+            createAssignment("Closed", StateEnum.CLOSED)));
+        NetworkProtocol np = new NetworkProtocol("http://localhost", TEST_COURSE_NAME, null, createCourseMock(),
+            assignmentApiMock, null);
+        
+        List<Assignment> open = np.getAssignments(StateEnum.IN_PROGRESS);
+        Assertions.assertEquals(1, open.size());
+        Assertions.assertEquals("Open", open.get(0).getName());
+        Assertions.assertEquals(2, np.getAssignments(StateEnum.EVALUATED, StateEnum.CLOSED).size());
+        Assertions.assertEquals(3, np.getAssignments((StateEnum[]) null).size());
+        Mockito.verify(assignmentApiMock, Mockito.times(1)).getAssignmentsOfCourse(TEST_COURSE_ID);
+        
+        np.getAssignmentCatalog().invalidate();
+        Assertions.assertEquals(3, np.getAssignments().size());
+        Mockito.verify(assignmentApiMock, Mockito.times(2)).getAssignmentsOfCourse(TEST_COURSE_ID);
+    }
+    
+    /**
+     * Tests that an interactive request does not join an identical background request, which would throttle it by
+     * the limits of the {@link TrafficClass#BACKGROUND background} class.
+     * @throws Exception Must not occur, network is not used.
+     */
+    @Test
+    public void testInteractiveReadDoesNotJoinBackgroundRead() throws Exception {
+        NetworkProtocol np = new NetworkProtocol("http://localhost", TEST_COURSE_NAME, null, null, null, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> background = executor.submit(() -> {
+            try (TrafficClass.Scope scope = TrafficClass.BACKGROUND.activate()) {
+                return np.readShared(() -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    release.join();
+                    return "background";
+                }, "getAssignmentsOfCourse", TEST_COURSE_ID);
+            }
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        // Own request instead of waiting for the blocked background request
+        try (Deadline.Scope deadline = Deadline.after(5, TimeUnit.SECONDS).activate();
+            TrafficClass.Scope scope = TrafficClass.INTERACTIVE.activate()) {
+            Assertions.assertEquals("interactive", np.readShared(() -> {
+                calls.incrementAndGet();
+                return "interactive";
+            }, "getAssignmentsOfCourse", TEST_COURSE_ID));
+        } finally {
+            release.complete(null);
+        }
+        Assertions.assertEquals("background", background.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, calls.get());
+        executor.shutdown();
+    }
+    
+    /**
+     * Tests that a new protocol instance (e.g., in a new process) restores the data from the snapshot of the same
+     * user instead of downloading it again.
+     * @param snapshotDir A temporary directory for the snapshot files.
+     * @throws NetworkException Must not occur, network is not used.
+     * @throws ApiException Must not occur, is only used to create mocks.
+     */
+    @Test
+    public void testSnapshotIsRestored(@TempDir Path snapshotDir) throws NetworkException, ApiException {
+        AssignmentApi assignmentApiMock = Mockito.mock(AssignmentApi.class);
+        Mockito.when(assignmentApiMock.getAssignmentsOfCourse(TEST_COURSE_ID)).thenReturn(Arrays.asList(
+            createAssignment("Open", StateEnum.IN_PROGRESS), createAssignment("Closed", StateEnum.CLOSED)));
+        NetworkProtocol first = new NetworkProtocol("http://localhost", TEST_COURSE_NAME, null, createCourseMock(),
+            assignmentApiMock, null);
+        first.setSnapshotStore(new SnapshotStore(snapshotDir), "user");
+        Assertions.assertEquals(2, first.getAssignments().size());
+        
+        // Same user: Data is restored
+        CourseApi unusedCourseApi = Mockito.mock(CourseApi.class);
+        AssignmentApi unusedAssignmentApi = Mockito.mock(AssignmentApi.class);
+        NetworkProtocol second = new NetworkProtocol("http://localhost", TEST_COURSE_NAME, null, unusedCourseApi,
+            unusedAssignmentApi, null);
+        second.setSnapshotStore(new SnapshotStore(snapshotDir), "user");
+        Assertions.assertEquals(TEST_COURSE_ID, second.getCourseID());
+        List<Assignment> open = second.getAssignments(StateEnum.IN_PROGRESS);
+        Assertions.assertEquals(1, open.size());
+        Assertions.assertEquals("Open", open.get(0).getName());
+        Mockito.verifyNoInteractions(unusedCourseApi, unusedAssignmentApi);
+        
+        // Other user: Data is downloaded
+        NetworkProtocol third = new NetworkProtocol("http://localhost", TEST_COURSE_NAME, null, createCourseMock(),
+            assignmentApiMock, null);
+        third.setSnapshotStore(new SnapshotStore(snapshotDir), "otherUser");
+        third.getAssignments();
+        Mockito.verify(assignmentApiMock, Mockito.times(2)).getAssignmentsOfCourse(TEST_COURSE_ID);
+    }
+    
+    /**
+     * Tests that the snapshot files, which contain personal data, are only accessible by the owner (on POSIX file
+     * systems).
+     * @param snapshotDir A temporary directory.
+     * @throws IOException If the permissions cannot be read.
+     */
+    @Test
+    public void testSnapshotFilesAreOwnerOnly(@TempDir Path snapshotDir) throws IOException {
+        Path directory = snapshotDir.resolve("snapshots");
+        new SnapshotStore(directory).update("scope", document -> document.setCourseId(TEST_COURSE_ID));
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Assertions.assertEquals("rwx------", PosixFilePermissions.toString(
+                Files.getPosixFilePermissions(directory)));
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Assertions.assertEquals("rw-------", PosixFilePermissions.toString(
+                        Files.getPosixFilePermissions(file)));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates an mock for the CoursesApi.
+     * @return the mocked CoursesApi.
+     */
+    private CourseApi createCourseMock() throws ApiException {
+        CourseDto course = new CourseDto();
+        course.setId(TEST_COURSE_ID);
+        course.setShortname(TEST_COURSE_NAME);
+        CourseApi courseApiMock = Mockito.mock(CourseApi.class);
+        Mockito.when(courseApiMock.getCourses(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+            Mockito.any()))
+            .thenReturn(Arrays.asList(course));
+        
+        return courseApiMock;
+    }
+    
+    /**
+     * Creates an assignment as it would be sent by the server.
+     * @param name The name of the assignment.
+     * @param state The state of the assignment.
+     * @return The assignment.
+     */
+    private static AssignmentDto createAssignment(String name, StateEnum state) {
+        AssignmentDto dto = new AssignmentDto();
+        dto.setId(name + "-ID");
+        dto.setName(name);
+        dto.setState(state);
+        dto.setCollaboration(CollaborationEnum.SINGLE);
+        dto.setPoints(new BigDecimal(10));
+        return dto;
+    }
+    
 }
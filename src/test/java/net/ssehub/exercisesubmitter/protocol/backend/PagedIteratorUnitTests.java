@@ -0,0 +1,132 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link PagedIterator} class.
+ *
+ * @author agent
+ *
+ */
+public class PagedIteratorUnitTests {
+
+    private List<Integer> requestedSkips = new ArrayList<>();
+
+    /**
+     * Tests that all elements are returned and that the next page is requested before the current page is consumed.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testNextPageIsPrefetched() throws NetworkException {
+        PagedIterator<Integer> iterator = new PagedIterator<>(pagesOf(5), 2);
+        Assertions.assertEquals(Arrays.asList(0), requestedSkips);
+
+        Assertions.assertEquals(0, iterator.next());
+        Assertions.assertEquals(Arrays.asList(0, 2), requestedSkips, "Second page not prefetched");
+        Assertions.assertEquals(1, iterator.next());
+        Assertions.assertEquals(2, iterator.next());
+        Assertions.assertEquals(Arrays.asList(0, 2, 4), requestedSkips, "Third page not prefetched");
+
+        List<Integer> remaining = new ArrayList<>();
+        while (iterator.hasNext()) {
+            remaining.add(iterator.next());
+        }
+        Assertions.assertEquals(Arrays.asList(3, 4), remaining);
+        Assertions.assertEquals(3, iterator.getNumberOfRequestedPages());
+        Assertions.assertThrows(NoSuchElementException.class, () -> iterator.next());
+    }
+
+    /**
+     * Tests that an empty page terminates the iteration if the number of elements is a multiple of the page size.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testLastFullPage() throws NetworkException {
+        PagedIterator<Integer> iterator = new PagedIterator<>(pagesOf(4), 2);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+
+        Assertions.assertEquals(4, count);
+        Assertions.assertEquals(Arrays.asList(0, 2, 4), requestedSkips);
+    }
+
+    /**
+     * Tests that no further pages are requested, if the server ignores the paging parameters.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testServerWithoutPaging() throws NetworkException {
+        List<Integer> all = IntStream.range(0, 5).boxed().collect(Collectors.toList());
+        PagedIterator<Integer> iterator = new PagedIterator<>((skip, take) -> {
+            requestedSkips.add(skip);
+            return CompletableFuture.completedFuture(all);
+        }, 2);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+
+        Assertions.assertEquals(5, count);
+        Assertions.assertEquals(Arrays.asList(0), requestedSkips);
+    }
+
+    /**
+     * Tests that failed downloads are reported as {@link NetworkException} by the iterator.
+     */
+    @Test
+    public void testErrorsArePropagated() {
+        NetworkException error = new DataNotFoundException("Not found", "java", DataType.GROUP_NOT_FOUND);
+        PagedIterator<Integer> iterator = new PagedIterator<>((skip, take) -> {
+            CompletableFuture<List<Integer>> page = new CompletableFuture<>();
+            page.completeExceptionally(error);
+            return page;
+        }, 2);
+
+        NetworkException thrown = Assertions.assertThrows(NetworkException.class, () -> iterator.hasNext());
+        Assertions.assertSame(error, thrown);
+    }
+
+    /**
+     * Tests that a closed iterator does not return further elements.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testClose() throws NetworkException {
+        PagedIterator<Integer> iterator = new PagedIterator<>(pagesOf(5), 2);
+        iterator.next();
+        iterator.close();
+
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertEquals(Arrays.asList(0, 2), requestedSkips);
+    }
+
+    /**
+     * Creates a page request, which returns pages of the numbers <tt>0 .. (n - 1)</tt> and records the requests.
+     * @param nElements The total number of elements.
+     * @return The page request.
+     */
+    private PagedIterator.PageRequest<Integer> pagesOf(int nElements) {
+        return (skip, take) -> {
+            requestedSkips.add(skip);
+            List<Integer> page = IntStream.range(skip, Math.min(skip + take, nElements))
+                .boxed()
+                .collect(Collectors.toList());
+            return CompletableFuture.completedFuture(page);
+        };
+    }
+}
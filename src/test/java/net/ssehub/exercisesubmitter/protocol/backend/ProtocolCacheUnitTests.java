@@ -0,0 +1,155 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link ProtocolCache} class.
+ *
+ * @author agent
+ *
+ */
+public class ProtocolCacheUnitTests {
+
+    /**
+     * Tests that values are loaded only once until they expire.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testValueIsReloadedAfterExpiration() throws NetworkException {
+        AtomicLong time = new AtomicLong(0);
+        AtomicInteger loads = new AtomicInteger(0);
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(100, time::get);
+        CacheKey key = CacheKey.of("http://localhost", "java", "wise1920");
+
+        Assertions.assertEquals("1", cache.get(key, () -> String.valueOf(loads.incrementAndGet())));
+        time.set(99);
+        Assertions.assertEquals("1", cache.get(CacheKey.of("http://localhost", "java", "wise1920"),
+            () -> String.valueOf(loads.incrementAndGet())));
+        time.set(100);
+        Assertions.assertEquals("2", cache.get(key, () -> String.valueOf(loads.incrementAndGet())));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests that invalidated values are loaded again at the next access.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testInvalidate() throws NetworkException {
+        AtomicInteger loads = new AtomicInteger(0);
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(1, TimeUnit.HOURS);
+        CacheKey key = CacheKey.of("http://localhost", "java", null);
+
+        cache.get(key, () -> String.valueOf(loads.incrementAndGet()));
+        cache.invalidate(key);
+        Assertions.assertNull(cache.getIfPresent(key));
+        Assertions.assertEquals("2", cache.get(key, () -> String.valueOf(loads.incrementAndGet())));
+
+        cache.invalidateAll();
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that failed loads are not cached.
+     */
+    @Test
+    public void testExceptionsAreNotCached() {
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(1, TimeUnit.HOURS);
+        CacheKey key = CacheKey.of("http://localhost", "java", "wise1920");
+
+        Assertions.assertThrows(DataNotFoundException.class, () -> cache.get(key, () -> {
+            throw new DataNotFoundException("Course not found", "java", DataNotFoundException.DataType.COURSE_NOT_FOUND);
+        }));
+        Assertions.assertNull(cache.getIfPresent(key));
+    }
+
+    /**
+     * Tests that bounded caches remove the oldest entries if the maximum size is exceeded.
+     */
+    @Test
+    public void testMaximumSizeEvictsOldestEntries() {
+        AtomicLong time = new AtomicLong(0);
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(100, time::get);
+        cache.setMaximumSize(2);
+
+        cache.put(CacheKey.of("a"), "a");
+        time.set(1);
+        cache.put(CacheKey.of("b"), "b");
+        time.set(2);
+        cache.put(CacheKey.of("c"), "c");
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNull(cache.getIfPresent(CacheKey.of("a")));
+        Assertions.assertEquals("c", cache.getIfPresent(CacheKey.of("c")));
+    }
+
+    /**
+     * Tests that the least frequently used entries are removed by the {@link ProtocolCache.EvictionPolicy#LFU} and
+     * that newly stored entries are kept.
+     */
+    @Test
+    public void testLfuEvictsLeastFrequentlyUsedEntries() {
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(1, TimeUnit.HOURS);
+        cache.setEvictionPolicy(ProtocolCache.EvictionPolicy.LFU);
+        cache.setMaximumSize(2);
+
+        cache.put(CacheKey.of("a"), "a");
+        cache.put(CacheKey.of("b"), "b");
+        cache.getIfPresent(CacheKey.of("a"));
+        cache.getIfPresent(CacheKey.of("a"));
+        cache.getIfPresent(CacheKey.of("b"));
+        cache.put(CacheKey.of("c"), "c");
+
+        Assertions.assertEquals("a", cache.getIfPresent(CacheKey.of("a")));
+        Assertions.assertNull(cache.getIfPresent(CacheKey.of("b")));
+        Assertions.assertEquals("c", cache.getIfPresent(CacheKey.of("c")), "New entry must not be evicted at once");
+        Assertions.assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    /**
+     * Tests that {@link ProtocolCache#reload(Object, ProtocolCache.Loader)} replaces cached values and is counted as
+     * load.
+     * @throws NetworkException Must not occur, no network is used.
+     */
+    @Test
+    public void testReloadIsCountedAsLoad() throws NetworkException {
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(1, TimeUnit.HOURS);
+        CacheKey key = CacheKey.of("a");
+
+        cache.get(key, () -> "a");
+        Assertions.assertEquals("b", cache.reload(key, () -> "b"));
+        Assertions.assertEquals("b", cache.getIfPresent(key));
+        Assertions.assertEquals(2, cache.getStatistics().getLoadCount());
+    }
+
+    /**
+     * Tests that hits, misses, loads, and load failures are counted.
+     */
+    @Test
+    public void testStatistics() {
+        ProtocolCache<CacheKey, String> cache = new ProtocolCache<>(1, TimeUnit.HOURS);
+        CacheKey key = CacheKey.of("a");
+
+        Assertions.assertThrows(NetworkException.class, () -> cache.get(key, () -> {
+            throw new ServerNotFoundException("Server not found", "http://localhost");
+        }));
+        Assertions.assertDoesNotThrow(() -> cache.get(key, () -> "a"));
+        Assertions.assertDoesNotThrow(() -> cache.get(key, () -> "b"));
+
+        CacheStatistics statistics = cache.getStatistics();
+        Assertions.assertEquals(1, statistics.getHitCount());
+        Assertions.assertEquals(2, statistics.getMissCount());
+        Assertions.assertEquals(1, statistics.getLoadCount());
+        Assertions.assertEquals(1, statistics.getLoadFailureCount());
+        Assertions.assertEquals(1.0 / 3, statistics.getHitRate(), 0.001);
+        Assertions.assertEquals(1, statistics.getSize());
+
+        cache.resetStatistics();
+        Assertions.assertEquals(0, cache.getStatistics().getMissCount());
+    }
+}
@@ -0,0 +1,210 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.ssehub.exercisesubmitter.protocol.backend.CircuitBreaker.State;
+import net.ssehub.studentmgmt.backend_api.ApiException;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link RetryInterceptor} class.
+ * Uses a local stand-in server, which is unavailable for a configurable number of requests.
+ *
+ * @author agent
+ *
+ */
+public class RetryInterceptorUnitTests {
+
+    private HttpServer server;
+    private String url;
+    private AtomicInteger unavailableRequests = new AtomicInteger();
+    private AtomicInteger receivedRequests = new AtomicInteger();
+    private AtomicLong responseDelayMillis = new AtomicLong();
+
+    private HttpClientFactory factory;
+    private OkHttpClient client;
+
+    /**
+     * Starts the stand-in server and creates a client with short delays.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+        factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+        factory.getRetry().setBackoff(3, 1, 5, TimeUnit.MILLISECONDS);
+        factory.getRetry().setCircuitBreaker(3, 1, TimeUnit.MINUTES);
+        client = factory.newClient();
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests that idempotent requests are retried on transient failures.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testTransientFailuresAreRetried() throws IOException {
+        unavailableRequests.set(2);
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+
+        Assertions.assertEquals(200, response.code());
+        Assertions.assertEquals("OK", response.body().string());
+        Assertions.assertEquals(3, receivedRequests.get());
+        Assertions.assertEquals(2, factory.getRetry().getNumberOfRetries());
+    }
+
+    /**
+     * Tests that non idempotent requests are not retried.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testPostIsNotRetried() throws IOException {
+        unavailableRequests.set(1);
+        Request request = new Request.Builder()
+            .url(url)
+            .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+            .build();
+        Response response = client.newCall(request).execute();
+
+        Assertions.assertEquals(503, response.code());
+        Assertions.assertEquals(1, receivedRequests.get());
+    }
+
+    /**
+     * Tests that the circuit is opened if the server is unavailable and that further requests fail fast with an
+     * exception, which is translated into a {@link CircuitOpenException}.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testCircuitOpensWhileServerIsDown() throws IOException {
+        List<State> transitions = new ArrayList<>();
+        factory.getRetry().addStateListener((breaker, from, to) -> transitions.add(to));
+        unavailableRequests.set(Integer.MAX_VALUE);
+
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+        Assertions.assertEquals(503, response.code(), "Response of last attempt expected");
+        Assertions.assertEquals(3, receivedRequests.get(), "Circuit opened after 3rd failure");
+
+        // Fails fast, without contacting the server
+        IOException exc = Assertions.assertThrows(IOException.class,
+            () -> client.newCall(new Request.Builder().url(url + "other").build()).execute());
+        Assertions.assertTrue(exc.getCause() instanceof CircuitOpenException);
+        Assertions.assertEquals(3, receivedRequests.get());
+        Assertions.assertEquals(Arrays.asList(State.OPEN), transitions);
+        Assertions.assertEquals(State.OPEN, factory.getRetry().getCircuitBreakers().get(0).getState());
+
+        // Generated APIs wrap the IOException
+        CircuitOpenException translated = Assertions.assertThrows(CircuitOpenException.class,
+            () -> ApiExceptionHandler.handleException(new ApiException(exc), url));
+        Assertions.assertEquals("http://127.0.0.1:" + server.getAddress().getPort(), translated.getURL());
+    }
+
+    /**
+     * Tests that the {@link LoginComponent} reports an unavailable authentication service as
+     * {@link ServerNotFoundException} (and an open circuit as {@link CircuitOpenException}) instead of unknown
+     * credentials.
+     */
+    @Test
+    public void testLoginReportsUnavailableServer() {
+        unavailableRequests.set(Integer.MAX_VALUE);
+        LoginComponent login = new LoginComponent(url + "auth", url + "mgmt", factory);
+
+        for (int i = 0; i < 3; i++) {
+            ServerNotFoundException exc = Assertions.assertThrows(ServerNotFoundException.class,
+                () -> login.login("elscha", "secret"));
+            Assertions.assertFalse(exc instanceof CircuitOpenException);
+        }
+        Assertions.assertThrows(CircuitOpenException.class, () -> login.login("elscha", "secret"));
+        Assertions.assertEquals(3, receivedRequests.get());
+    }
+
+    /**
+     * Tests that a probe request, which fails after the {@link Deadline} was exceeded, does not keep the circuit
+     * half open forever.
+     * @throws IOException Must not occur, only a local server is used.
+     * @throws InterruptedException Must not occur, the test is not interrupted.
+     */
+    @Test
+    public void testProbeFailingAfterDeadlineDoesNotBlockCircuit() throws IOException, InterruptedException {
+        factory.getRetry().setBackoff(1, 1, 5, TimeUnit.MILLISECONDS);
+        factory.getRetry().setCircuitBreaker(1, 50, TimeUnit.MILLISECONDS);
+        unavailableRequests.set(2);
+
+        Response response = client.newCall(new Request.Builder().url(url).build()).execute();
+        Assertions.assertEquals(503, response.code());
+        Assertions.assertEquals(State.OPEN, factory.getRetry().getCircuitBreakers().get(0).getState());
+        Thread.sleep(100);
+
+        // Probe fails only after the deadline of the client was exceeded -> not counted
+        responseDelayMillis.set(200);
+        try (Deadline.Scope scope = Deadline.after(50, TimeUnit.MILLISECONDS).activate()) {
+            try {
+                client.newCall(new Request.Builder().url(url).build()).execute().body().close();
+            } catch (IOException e) {
+                // Expected if the transport enforces the deadline
+            }
+        }
+        Assertions.assertEquals(State.HALF_OPEN, factory.getRetry().getCircuitBreakers().get(0).getState());
+
+        // Next request is sent as new probe and closes the circuit
+        responseDelayMillis.set(0);
+        unavailableRequests.set(0);
+        response = client.newCall(new Request.Builder().url(url).build()).execute();
+        Assertions.assertEquals(200, response.code());
+        Assertions.assertEquals(State.CLOSED, factory.getRetry().getCircuitBreakers().get(0).getState());
+    }
+
+    /**
+     * Handles requests of the stand-in server.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        receivedRequests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        try {
+            Thread.sleep(responseDelayMillis.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int code = unavailableRequests.getAndDecrement() > 0 ? 503 : 200;
+        byte[] body = (code == 200 ? "OK" : "Unavailable").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+}
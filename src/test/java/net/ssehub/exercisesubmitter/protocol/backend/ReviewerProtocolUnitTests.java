@@ -1,20 +1,39 @@
 package net.ssehub.exercisesubmitter.protocol.backend;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
 import net.ssehub.studentmgmt.backend_api.ApiException;
 import net.ssehub.studentmgmt.backend_api.api.AssessmentApi;
 import net.ssehub.studentmgmt.backend_api.api.CourseApi;
+import net.ssehub.studentmgmt.backend_api.api.CourseParticipantsApi;
 import net.ssehub.studentmgmt.backend_api.model.AssessmentCreateDto;
 import net.ssehub.studentmgmt.backend_api.model.AssessmentDto;
 import net.ssehub.studentmgmt.backend_api.model.AssessmentUpdateDto;
 import net.ssehub.studentmgmt.backend_api.model.CourseDto;
 import net.ssehub.studentmgmt.backend_api.model.PartialAssessmentDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto;
+import net.ssehub.studentmgmt.backend_api.model.ParticipantDto.RoleEnum;
 
 /**
  * This class declares <b>unit</b> tests for the {@link ReviewerProtocol} class.
@@ -159,6 +178,224 @@ public class ReviewerProtocolUnitTests {
         }
     }
     
+    /**
+     * Tests that participants are downloaded only once for lookups by name and role filters and that unknown users
+     * trigger a refresh of the {@link ParticipantDirectory}.
+     */
+    @Test
+    public void testParticipantDirectory() throws ApiException, NetworkException {
+        ParticipantDto student = createParticipant("student", RoleEnum.STUDENT);
+        ParticipantDto tutor = createParticipant("tutor", RoleEnum.TUTOR);
+        CourseParticipantsApi participantsApiMock = Mockito.mock(CourseParticipantsApi.class);
+        Mockito.when(participantsApiMock.getUsersOfCourse(TEST_COURSE_ID, null, null, null, null, null))
+            .thenReturn(Arrays.asList(student, tutor));
+        ReviewerProtocol rp = new ReviewerProtocol(TEST_BASE_PATH, TEST_COURSE_NAME, null, createCourseMock(), null,
+            null, null, participantsApiMock);
+        
+        Assertions.assertSame(student, rp.getStudentByName("student"));
+        Assertions.assertNull(rp.getStudentByName("tutor"), "Tutors are no students");
+        Assertions.assertEquals(Arrays.asList(student), rp.getUsersOfCourse(RoleEnum.STUDENT));
+        Assertions.assertEquals(Arrays.asList(tutor), rp.getUsersOfCourse(RoleEnum.LECTURER, RoleEnum.TUTOR));
+        Mockito.verify(participantsApiMock, Mockito.times(1)).getUsersOfCourse(TEST_COURSE_ID, null, null, null,
+            null, null);
+        
+        // Unknown users trigger a refresh, but only after the miss refresh interval
+        Assertions.assertNull(rp.getStudentByName("unknown"));
+        Mockito.verify(participantsApiMock, Mockito.times(1)).getUsersOfCourse(TEST_COURSE_ID, null, null, null,
+            null, null);
+        rp.getParticipantDirectory().setMissRefreshInterval(0, TimeUnit.SECONDS);
+        Assertions.assertNull(rp.getStudentByName("unknown"));
+        Mockito.verify(participantsApiMock, Mockito.times(2)).getUsersOfCourse(TEST_COURSE_ID, null, null, null,
+            null, null);
+    }
+    
+    /**
+     * Tests that asynchronous requests can be composed and are executed concurrently.
+     * @throws Exception Must not occur, only mocks are used.
+     */
+    @Test
+    public void testAsyncRequestsAreComposable() throws Exception {
+        ParticipantDto student = createParticipant("student", RoleEnum.STUDENT);
+        CourseParticipantsApi participantsApiMock = Mockito.mock(CourseParticipantsApi.class);
+        Mockito.when(participantsApiMock.getUsersOfCourse(TEST_COURSE_ID, null, null, null, null, null))
+            .thenReturn(Arrays.asList(student));
+        AssessmentApi assessmentApiMock = Mockito.mock(AssessmentApi.class);
+        AssessmentDto assessment = new AssessmentDto();
+        assessment.setId(TEST_ASSESSMENT_ID);
+        Mockito.when(assessmentApiMock.getAssessmentsForAssignment(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, null, null,
+            null, null, null, null, null)).thenReturn(Arrays.asList(assessment));
+        ReviewerProtocol rp = new ReviewerProtocol(TEST_BASE_PATH, TEST_COURSE_NAME, null, createCourseMock(), null,
+            assessmentApiMock, null, participantsApiMock);
+        
+        CompletableFuture<List<ParticipantDto>> users = rp.getUsersOfCourseAsync(RoleEnum.STUDENT);
+        CompletableFuture<List<AssessmentDto>> assessments = rp.getAssessmentsAsync(TEST_ASSIGNMENT_ID, null);
+        String summary = users.thenCombine(assessments, (u, a) -> u.size() + " students, " + a.size() + " assessment")
+            .get(10, TimeUnit.SECONDS);
+        
+        Assertions.assertEquals("1 students, 1 assessment", summary);
+    }
+    
+    /**
+     * Tests that asynchronous requests complete exceptionally with the {@link NetworkException} of the
+     * {@link ApiExceptionHandler}.
+     * @throws ApiException Must not occur, only mocks are used.
+     */
+    @Test
+    public void testAsyncRequestsMapErrors() throws ApiException {
+        AssessmentApi assessmentApiMock = Mockito.mock(AssessmentApi.class);
+        Mockito.when(assessmentApiMock.createAssessment(Mockito.any(), Mockito.anyString(), Mockito.anyString()))
+            .thenThrow(new ApiException(401, "Unauthorized"));
+        ReviewerProtocol rp = new ReviewerProtocol(TEST_BASE_PATH, TEST_COURSE_NAME, null, createCourseMock(), null,
+            assessmentApiMock, null);
+        rp.setAsyncExecutor(Runnable::run);
+        
+        CompletableFuture<String> result = rp.createAssessmentAsync(new AssessmentCreateDto(), TEST_ASSIGNMENT_ID);
+        ExecutionException exc = Assertions.assertThrows(ExecutionException.class, () -> result.get());
+        Assertions.assertTrue(exc.getCause() instanceof UnauthorizedException);
+    }
+    
+    /**
+     * Tests that assessments are passed to the consumer while the response is still received.
+     * @throws Exception Must not occur, only a local server is used.
+     */
+    @Test
+    public void testForEachAssessmentStreamsResponse() throws Exception {
+        CountDownLatch firstConsumed = new CountDownLatch(1);
+        AtomicBoolean streamed = new AtomicBoolean();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            // Chunked response: The second assessment is only sent after the first one was consumed
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, "[{\"id\":\"A1\"}");
+                try {
+                    streamed.set(firstConsumed.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                write(out, ",{\"id\":\"A2\"}]");
+            }
+            exchange.close();
+        });
+        server.start();
+        
+        try {
+            ReviewerProtocol rp = new ReviewerProtocol(TEST_BASE_PATH, TEST_COURSE_NAME, null, createCourseMock(),
+                null, createStreamingMock(server), null);
+            List<String> ids = new ArrayList<>();
+            rp.forEachAssessment(TEST_ASSIGNMENT_ID, null, a -> {
+                ids.add(a.getId());
+                firstConsumed.countDown();
+            });
+            
+            Assertions.assertEquals(Arrays.asList("A1", "A2"), ids);
+            Assertions.assertTrue(streamed.get(), "First assessment was not consumed before the response ended");
+        } finally {
+            server.stop(0);
+        }
+    }
+    
+    /**
+     * Tests that error responses of streamed requests are handled by the {@link ApiExceptionHandler}.
+     * @throws Exception Must not occur, only a local server is used.
+     */
+    @Test
+    public void testForEachAssessmentMapsErrors() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"statusCode\":403}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(403, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        
+        try {
+            ReviewerProtocol rp = new ReviewerProtocol(TEST_BASE_PATH, TEST_COURSE_NAME, null, createCourseMock(),
+                null, createStreamingMock(server), null);
+            Assertions.assertThrows(ForbiddenException.class,
+                () -> rp.forEachAssessment(TEST_ASSIGNMENT_ID, null, a -> Assertions.fail("No assessment expected")));
+        } finally {
+            server.stop(0);
+        }
+    }
+    
+    /**
+     * Creates a mock for the AssessmentApi, which sends the request for all assessments to the specified server.
+     * @param server The stand-in server.
+     * @return The mocked AssessmentApi.
+     * @throws ApiException Must not occur, only mocks are used.
+     */
+    private static AssessmentApi createStreamingMock(HttpServer server) throws ApiException {
+        Request request = new Request.Builder()
+            .url("http://127.0.0.1:" + server.getAddress().getPort() + "/assessments")
+            .build();
+        AssessmentApi assessmentApiMock = Mockito.mock(AssessmentApi.class);
+        Mockito.when(assessmentApiMock.getAssessmentsForAssignmentCall(TEST_COURSE_ID, TEST_ASSIGNMENT_ID, null, null,
+            null, null, null, null, null, null, null)).thenReturn(new OkHttpClient().newCall(request));
+        return assessmentApiMock;
+    }
+    
+    /**
+     * Writes and flushes a part of a chunked response.
+     * @param out The response stream of the stand-in server.
+     * @param content The part to write.
+     * @throws IOException If the part cannot be written.
+     */
+    private static void write(OutputStream out, String content) throws IOException {
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+    
+    /**
+     * Tests that participants are downloaded page by page with the paging parameters and role filters of the server.
+     * @throws ApiException Must not occur, only mocks are used.
+     * @throws NetworkException Must not occur, only mocks are used.
+     */
+    @Test
+    public void testIterateUsersOfCourse() throws ApiException, NetworkException {
+        ParticipantDto student1 = createParticipant("student1", RoleEnum.STUDENT);
+        ParticipantDto student2 = createParticipant("student2", RoleEnum.STUDENT);
+        ParticipantDto student3 = createParticipant("student3", RoleEnum.STUDENT);
+        List<String> roles = Arrays.asList("STUDENT");
+        CourseParticipantsApi participantsApiMock = Mockito.mock(CourseParticipantsApi.class);
+        Mockito.when(participantsApiMock.getUsersOfCourse(TEST_COURSE_ID, new BigDecimal(0), new BigDecimal(2), roles,
+            null, null)).thenReturn(Arrays.asList(student1, student2));
+        Mockito.when(participantsApiMock.getUsersOfCourse(TEST_COURSE_ID, new BigDecimal(2), new BigDecimal(2), roles,
+            null, null)).thenReturn(Arrays.asList(student3));
+        ReviewerProtocol rp = new ReviewerProtocol(TEST_BASE_PATH, TEST_COURSE_NAME, null, createCourseMock(), null,
+            null, null, participantsApiMock);
+        rp.setAsyncExecutor(Runnable::run);
+        
+        List<ParticipantDto> users = new ArrayList<>();
+        try (PagedIterator<ParticipantDto> iterator = rp.iterateUsersOfCourse(2, RoleEnum.STUDENT)) {
+            while (iterator.hasNext()) {
+                users.add(iterator.next());
+            }
+        }
+        
+        Assertions.assertEquals(Arrays.asList(student1, student2, student3), users);
+        Mockito.verify(participantsApiMock, Mockito.times(2)).getUsersOfCourse(Mockito.eq(TEST_COURSE_ID),
+            Mockito.any(), Mockito.any(), Mockito.eq(roles), Mockito.isNull(), Mockito.isNull());
+    }
+    
+    /**
+     * Creates a participant as it would be sent by the server.
+     * @param userName The user name of the participant.
+     * @param role The role of the participant.
+     * @return The participant.
+     */
+    private static ParticipantDto createParticipant(String userName, RoleEnum role) {
+        ParticipantDto participant = new ParticipantDto();
+        participant.setUserId(userName + "-ID");
+        participant.setUsername(userName);
+        participant.setRole(role);
+        return participant;
+    }
+    
     /**
      * Creates an mock for the CoursesApi.
      * @return the mocked CoursesApi.
@@ -0,0 +1,145 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.exercisesubmitter.protocol.backend.ProtocolCache.Loader;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link SingleFlight} class.
+ *
+ * @author agent
+ *
+ */
+public class SingleFlightUnitTests {
+
+    private static final CacheKey REQUEST = CacheKey.of("http://localhost", "token", "getAssignmentsOfCourse", "java");
+    private static final int N_FOLLOWERS = 3;
+
+    /**
+     * Tests that concurrent identical requests share one call and its result.
+     * @throws Exception Must not occur, no network is used.
+     */
+    @Test
+    public void testConcurrentRequestsShareOneCall() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger(0);
+        Loader<String> loader = () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "result";
+        };
+
+        List<Future<String>> results = runConcurrently(singleFlight, loader, release);
+        for (Future<String> result : results) {
+            Assertions.assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, calls.get());
+
+        // Finished requests are not cached
+        singleFlight.execute(REQUEST, loader);
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    /**
+     * Tests that the exception of the leader is thrown in all waiting threads.
+     * @throws Exception Must not occur, no network is used.
+     */
+    @Test
+    public void testExceptionIsPropagatedToAllThreads() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CountDownLatch release = new CountDownLatch(1);
+        DataNotFoundException exception = new DataNotFoundException("Assignment not found", "java",
+            DataType.ASSIGNMENTS_NOT_FOUND);
+        Loader<String> loader = () -> {
+            await(release);
+            throw exception;
+        };
+
+        for (Future<String> result : runConcurrently(singleFlight, loader, release)) {
+            Exception thrown = Assertions.assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            Assertions.assertSame(exception, thrown.getCause());
+        }
+    }
+
+    /**
+     * Tests that waiting threads stop waiting for the leader when their {@link Deadline} is exceeded.
+     * @throws Exception Must not occur, no network is used.
+     */
+    @Test
+    public void testWaitingThreadsHonorDeadline() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> singleFlight.execute(REQUEST, () -> {
+            await(release);
+            return "result";
+        }));
+        while (!singleFlight.isInFlight(REQUEST)) {
+            Thread.sleep(5);
+        }
+
+        long start = System.nanoTime();
+        try (Deadline.Scope scope = Deadline.after(100, TimeUnit.MILLISECONDS).activate()) {
+            Assertions.assertThrows(DeadlineExceededException.class, () -> singleFlight.execute(REQUEST, () -> "own"));
+        }
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "Did not fail fast");
+
+        release.countDown();
+        Assertions.assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    /**
+     * Executes the request by one leader and {@value #N_FOLLOWERS} waiting threads and releases the leader after all
+     * threads are waiting.
+     * @param singleFlight The tested instance.
+     * @param loader The request, which must wait for <tt>release</tt>.
+     * @param release Releases the leader.
+     * @return The results of all threads.
+     * @throws InterruptedException If the test is interrupted.
+     */
+    private static List<Future<String>> runConcurrently(SingleFlight singleFlight, Loader<String> loader,
+        CountDownLatch release) throws InterruptedException {
+
+        ExecutorService executor = Executors.newFixedThreadPool(N_FOLLOWERS + 1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i <= N_FOLLOWERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(REQUEST, loader)));
+        }
+        long timeout = System.currentTimeMillis() + 5000;
+        while (singleFlight.getNumberOfWaitingThreads(REQUEST) < N_FOLLOWERS
+            && System.currentTimeMillis() < timeout) {
+
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(N_FOLLOWERS, singleFlight.getNumberOfWaitingThreads(REQUEST));
+        release.countDown();
+        executor.shutdown();
+
+        return results;
+    }
+
+    /**
+     * Waits for the latch without checked exceptions.
+     * @param latch The latch to wait for.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.ssehub.studentmgmt.backend_api.model.UserDto;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link TokenStore} class.
+ *
+ * @author agent
+ *
+ */
+public class TokenStoreUnitTests {
+
+    private static final String AUTH_URL = "http://127.0.0.1:1/auth";
+    private static final String MGMT_URL = "http://127.0.0.1:1/mgmt";
+
+    /**
+     * Creates an (unsigned) JSON Web Token, which expires after the specified time.
+     * @param validSeconds The remaining lifetime of the token.
+     * @return The token.
+     */
+    private static String createToken(long validSeconds) {
+        long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + validSeconds;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+            + encoder.encodeToString(("{\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    /**
+     * Creates a stored login of the user <tt>elscha</tt>, whose identity was checked right now.
+     * @param token The token to store.
+     * @return The login to store.
+     */
+    private static TokenStore.Entry createEntry(String token) {
+        return createEntry(token, System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a stored login of the user <tt>elscha</tt>.
+     * @param token The token to store.
+     * @param identityCheckedAt The time the identity was checked.
+     * @return The login to store.
+     */
+    private static TokenStore.Entry createEntry(String token, long identityCheckedAt) {
+        UserDto user = new UserDto();
+        user.setId("user-id");
+        user.setUsername("elscha");
+        return new TokenStore.Entry("elscha", token, user, identityCheckedAt);
+    }
+
+    /**
+     * Tests that a stored login can be read with the same credentials, but not with other credentials or servers.
+     * @param tokenDir A temporary directory.
+     * @throws IOException If the stored file cannot be read.
+     */
+    @Test
+    public void testLoadRequiresSameCredentials(@TempDir Path tokenDir) throws IOException {
+        String token = createToken(3600);
+        TokenStore store = new TokenStore(tokenDir);
+        store.save(AUTH_URL, MGMT_URL, "elscha", "secret", createEntry(token));
+
+        TokenStore.Entry entry = new TokenStore(tokenDir).load(AUTH_URL, MGMT_URL, "elscha", "secret");
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(token, entry.getToken());
+        Assertions.assertEquals("elscha", entry.getUserName());
+        Assertions.assertEquals("user-id", entry.getUser().getId());
+
+        Assertions.assertNull(store.load(AUTH_URL, MGMT_URL, "elscha", "wrong"));
+        Assertions.assertNull(store.load(AUTH_URL, MGMT_URL, "elscha", null));
+        Assertions.assertNull(store.load(AUTH_URL, "http://other", "elscha", "secret"));
+        Assertions.assertNull(store.load(AUTH_URL, MGMT_URL, "other", "secret"));
+
+        // Neither the token nor the user name are stored in plain text
+        try (Stream<Path> files = Files.list(tokenDir)) {
+            List<Path> tokenFiles = files.collect(Collectors.toList());
+            Assertions.assertEquals(1, tokenFiles.size());
+            String content = Files.readString(tokenFiles.get(0));
+            Assertions.assertFalse(content.contains(token.split("\\.")[1]));
+            Assertions.assertFalse(content.contains("elscha"));
+        }
+
+        store.remove(AUTH_URL, MGMT_URL, "elscha");
+        Assertions.assertNull(store.load(AUTH_URL, MGMT_URL, "elscha", "secret"));
+    }
+
+    /**
+     * Tests that the stored files are only accessible by the owner (on POSIX file systems).
+     * @param tokenDir A temporary directory.
+     * @throws IOException If the permissions cannot be read.
+     */
+    @Test
+    public void testFilesAreOwnerOnly(@TempDir Path tokenDir) throws IOException {
+        Path directory = tokenDir.resolve("tokens");
+        new TokenStore(directory).save(AUTH_URL, MGMT_URL, "elscha", "secret", createEntry(createToken(3600)));
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Assertions.assertEquals("rwx------", PosixFilePermissions.toString(
+                Files.getPosixFilePermissions(directory)));
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Assertions.assertEquals("rw-------", PosixFilePermissions.toString(
+                        Files.getPosixFilePermissions(file)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link TokenUtils} class.
+ *
+ * @author agent
+ *
+ */
+public class TokenUtilsUnitTests {
+
+    private static final long NOW = TimeUnit.SECONDS.toMillis(1600000000);
+
+    /**
+     * Creates an (unsigned) JSON Web Token with the specified claims.
+     * @param claims The claims as JSON object.
+     * @return The token.
+     */
+    private static String createToken(String claims) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8)) + "."
+            + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    /**
+     * Tests that the expiration time is read from JSON Web Tokens.
+     */
+    @Test
+    public void testGetExpiration() {
+        String token = createToken("{\"sub\":\"elscha\",\"exp\":1600003600}");
+        Assertions.assertEquals(TimeUnit.SECONDS.toMillis(1600003600), TokenUtils.getExpirationMillis(token));
+    }
+
+    /**
+     * Tests that tokens without (valid) expiration time are handled gracefully.
+     */
+    @Test
+    public void testUnknownExpiration() {
+        Assertions.assertEquals(-1, TokenUtils.getExpirationMillis(null));
+        Assertions.assertEquals(-1, TokenUtils.getExpirationMillis("opaque-token"));
+        Assertions.assertEquals(-1, TokenUtils.getExpirationMillis("a.b%.c"));
+        Assertions.assertEquals(-1, TokenUtils.getExpirationMillis(createToken("{\"sub\":\"elscha\"}")));
+        Assertions.assertEquals(-1, TokenUtils.getExpirationMillis(createToken("{\"exp\":{}}")));
+        Assertions.assertEquals(-1, TokenUtils.getExpirationMillis(createToken("[1, 2]")));
+    }
+
+    /**
+     * Tests that the subject is read from JSON Web Tokens and that other tokens have no subject.
+     */
+    @Test
+    public void testGetSubject() {
+        Assertions.assertEquals("elscha", TokenUtils.getSubject(createToken("{\"sub\":\"elscha\",\"exp\":1}")));
+        Assertions.assertNull(TokenUtils.getSubject(createToken("{\"exp\":1600003600}")));
+        Assertions.assertNull(TokenUtils.getSubject(createToken("{\"sub\":{}}")));
+        Assertions.assertNull(TokenUtils.getSubject("opaque-token"));
+        Assertions.assertNull(TokenUtils.getSubject(null));
+    }
+
+    /**
+     * Tests the computation of the refresh delay.
+     */
+    @Test
+    public void testRefreshDelay() {
+        long margin = TimeUnit.MINUTES.toMillis(1);
+        // Valid for one hour -> refresh one minute before expiration
+        String token = createToken("{\"exp\":" + (TimeUnit.MILLISECONDS.toSeconds(NOW) + 3600) + "}");
+        Assertions.assertEquals(TimeUnit.MINUTES.toMillis(59), TokenUtils.getRefreshDelayMillis(token, margin, NOW));
+
+        // Valid for less than the margin -> refresh after half of the lifetime
+        token = createToken("{\"exp\":" + (TimeUnit.MILLISECONDS.toSeconds(NOW) + 40) + "}");
+        Assertions.assertEquals(TimeUnit.SECONDS.toMillis(20), TokenUtils.getRefreshDelayMillis(token, margin, NOW));
+
+        // Expired or unknown -> no refresh
+        token = createToken("{\"exp\":" + (TimeUnit.MILLISECONDS.toSeconds(NOW) - 1) + "}");
+        Assertions.assertEquals(-1, TokenUtils.getRefreshDelayMillis(token, margin, NOW));
+        Assertions.assertEquals(-1, TokenUtils.getRefreshDelayMillis("opaque-token", margin, NOW));
+    }
+}
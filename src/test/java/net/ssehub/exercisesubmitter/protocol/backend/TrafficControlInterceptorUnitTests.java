@@ -0,0 +1,194 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link TrafficControlInterceptor} and {@link TrafficClass} classes.
+ *
+ * @author agent
+ *
+ */
+public class TrafficControlInterceptorUnitTests {
+
+    private HttpServer server;
+    private String url;
+    private CountDownLatch release = new CountDownLatch(1);
+    private AtomicInteger slowRequests = new AtomicInteger();
+
+    private HttpClientFactory factory;
+    private OkHttpClient client;
+
+    /**
+     * Starts the stand-in server and creates a client.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+        factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5);
+        client = factory.newClient();
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    /**
+     * Tests that nested traffic classes are restored and that {@link TrafficClass#INTERACTIVE} is the default.
+     */
+    @Test
+    public void testTrafficClassScopes() {
+        Assertions.assertSame(TrafficClass.INTERACTIVE, TrafficClass.current());
+        try (TrafficClass.Scope outer = TrafficClass.BACKGROUND.activate()) {
+            try (TrafficClass.Scope inner = TrafficClass.INTERACTIVE.activate()) {
+                Assertions.assertSame(TrafficClass.INTERACTIVE, TrafficClass.current());
+            }
+            Assertions.assertSame(TrafficClass.BACKGROUND, TrafficClass.current());
+        }
+        Assertions.assertSame(TrafficClass.INTERACTIVE, TrafficClass.current());
+    }
+
+    /**
+     * Tests that interactive requests do not queue behind background requests, which exhausted their bulkhead.
+     * @throws Exception Must not occur, only a local server is used.
+     */
+    @Test
+    public void testInteractiveRequestsBypassBackgroundBulkhead() throws Exception {
+        factory.getTrafficControl().setLimits(TrafficClass.BACKGROUND, new TrafficControlInterceptor.Limits(0, 1, 1));
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> get("slow", TrafficClass.BACKGROUND));
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() -> get("slow", TrafficClass.BACKGROUND));
+        long start = System.currentTimeMillis();
+        while (slowRequests.get() < 1 && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+
+        // Background bulkhead is full, but interactive requests are served
+        Assertions.assertEquals(200, get("fast", TrafficClass.INTERACTIVE));
+        Assertions.assertEquals(1, slowRequests.get(), "Second background request must wait for a free slot");
+        Assertions.assertFalse(first.isDone() || second.isDone());
+
+        release.countDown();
+        Assertions.assertEquals(200, first.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(200, second.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, slowRequests.get());
+    }
+
+    /**
+     * Tests that requests, which give up waiting for a slot, are rejected locally: They are neither retried nor
+     * counted by the circuit breaker, so that interactive requests are still served.
+     * @throws Exception Must not occur, only a local server is used.
+     */
+    @Test
+    public void testRejectedRequestsDoNotOpenCircuit() throws Exception {
+        factory.getTrafficControl().setLimits(TrafficClass.BACKGROUND, new TrafficControlInterceptor.Limits(0, 1, 1));
+        factory.getTrafficControl().setMaxQueueTime(50, TimeUnit.MILLISECONDS);
+        factory.getRetry().setCircuitBreaker(1, 1, TimeUnit.MINUTES);
+
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> get("slow", TrafficClass.BACKGROUND));
+        long start = System.currentTimeMillis();
+        while (slowRequests.get() < 1 && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+
+        IOException exc = Assertions.assertThrows(IOException.class, () -> {
+            try (TrafficClass.Scope scope = TrafficClass.BACKGROUND.activate()) {
+                client.newCall(new Request.Builder().url(url + "fast").build()).execute();
+            }
+        });
+        RequestThrottledException throttled = (RequestThrottledException) exc.getCause();
+        Assertions.assertEquals(TrafficClass.BACKGROUND, throttled.getTrafficClass());
+        Assertions.assertEquals(0, factory.getRetry().getNumberOfRetries(), "Local rejections must not be retried");
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, factory.getRetry().getCircuitBreakers().get(0).getState());
+        Assertions.assertEquals(200, get("fast", TrafficClass.INTERACTIVE));
+
+        release.countDown();
+        Assertions.assertEquals(200, first.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that the rate of background requests is limited, while interactive requests are not affected.
+     */
+    @Test
+    public void testBackgroundRateLimit() {
+        factory.getTrafficControl().setLimits(TrafficClass.BACKGROUND, new TrafficControlInterceptor.Limits(20, 1, 0));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(200, get("fast", TrafficClass.BACKGROUND));
+        }
+        long background = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assertions.assertTrue(background >= 180, "4 requests must wait for 50 ms each, took " + background + " ms");
+
+        start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(200, get("fast", TrafficClass.INTERACTIVE));
+        }
+        long interactive = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assertions.assertTrue(interactive < background, "Interactive requests are not rate limited");
+    }
+
+    /**
+     * Sends a GET request in the specified traffic class.
+     * @param path The path relative to the stand-in server.
+     * @param trafficClass The traffic class of the request.
+     * @return The status code of the response.
+     */
+    private int get(String path, TrafficClass trafficClass) {
+        int code;
+        try (TrafficClass.Scope scope = trafficClass.activate()) {
+            code = client.newCall(new Request.Builder().url(url + path).build()).execute().code();
+        } catch (IOException e) {
+            code = -1;
+        }
+        return code;
+    }
+
+    /**
+     * Handles requests of the stand-in server, requests to <tt>/slow</tt> are answered after the test releases them.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        if ("/slow".equals(exchange.getRequestURI().getPath())) {
+            slowRequests.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exchange.sendResponseHeaders(200, 2);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write("OK".getBytes());
+        }
+        exchange.close();
+    }
+}
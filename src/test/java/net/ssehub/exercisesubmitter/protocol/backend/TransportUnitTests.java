@@ -0,0 +1,183 @@
+package net.ssehub.exercisesubmitter.protocol.backend;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class declares <b>unit</b> tests for the {@link Transport} implementations.
+ * Both transports are tested against the same local stand-in server (HTTP/1.1 only, the {@link JdkHttpTransport}
+ * falls back to HTTP/1.1 like for servers without HTTP/2 support).
+ *
+ * @author agent
+ *
+ */
+public class TransportUnitTests {
+
+    private static final String ETAG = "\"v1\"";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private HttpServer server;
+    private String url;
+    private AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    /**
+     * Starts the stand-in server.
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Stops the stand-in server.
+     */
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Tests GET, POST, and error responses via the {@link OkHttpTransport}.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testOkHttpTransport() throws IOException {
+        assertRequests(new OkHttpTransport(new OkHttpClient()));
+    }
+
+    /**
+     * Tests GET, POST, and error responses via the {@link JdkHttpTransport}.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testJdkHttpTransport() throws IOException {
+        assertRequests(new JdkHttpTransport());
+    }
+
+    /**
+     * Tests that the {@link ConditionalRequestCache} works on top of the {@link OkHttpTransport}.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testCacheWithOkHttpTransport() throws IOException {
+        assertRevalidation(new OkHttpTransport(new OkHttpClient()));
+    }
+
+    /**
+     * Tests that the {@link ConditionalRequestCache} works on top of the {@link JdkHttpTransport}.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    @Test
+    public void testCacheWithJdkHttpTransport() throws IOException {
+        assertRevalidation(new JdkHttpTransport());
+    }
+
+    /**
+     * Sends a GET, a POST, and a request for an unknown resource via a client of a factory using the transport.
+     * @param transport The tested transport.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    private void assertRequests(Transport transport) throws IOException {
+        OkHttpClient client = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5, transport).newClient();
+
+        Response get = client.newCall(new Request.Builder().url(url + "courses").build()).execute();
+        Assertions.assertEquals(200, get.code());
+        Assertions.assertEquals("[]", get.body().string());
+        Assertions.assertEquals("application/json", get.body().contentType().type() + "/"
+            + get.body().contentType().subtype());
+
+        Request postRequest = new Request.Builder()
+            .url(url + "echo")
+            .header("Authorization", "Bearer token")
+            .post(RequestBody.create(JSON, "{\"name\":\"Exercise01\"}"))
+            .build();
+        Response post = client.newCall(postRequest).execute();
+        Assertions.assertEquals(200, post.code());
+        Assertions.assertEquals("Bearer token application/json; charset=utf-8 {\"name\":\"Exercise01\"}",
+            post.body().string());
+
+        Response missing = client.newCall(new Request.Builder().url(url + "missing").build()).execute();
+        Assertions.assertEquals(404, missing.code());
+        Assertions.assertFalse(missing.isSuccessful());
+        missing.body().close();
+    }
+
+    /**
+     * Sends the same GET request twice via a caching client, the second response must be replayed from the cache.
+     * @param transport The tested transport.
+     * @throws IOException Must not occur, only a local server is used.
+     */
+    private void assertRevalidation(Transport transport) throws IOException {
+        HttpClientFactory factory = new HttpClientFactory(5, 1, TimeUnit.MINUTES, 5, transport);
+        CachingApiClient client = new CachingApiClient(factory, new ConditionalRequestCache(10, 1024));
+        Request request = new Request.Builder().url(url + "courses").header("Authorization", "Bearer token").build();
+
+        Assertions.assertEquals("[]", client.getHttpClient().newCall(request).execute().body().string());
+        Response second = client.getHttpClient().newCall(request).execute();
+        Assertions.assertEquals(200, second.code());
+        Assertions.assertEquals("[]", second.body().string());
+        Assertions.assertEquals(1, notModifiedResponses.get());
+    }
+
+    /**
+     * Handles requests of the stand-in server.
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int code = 200;
+        String body;
+        if ("/courses".equals(path)) {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            body = "[]";
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                code = 304;
+            }
+        } else if ("/echo".equals(path)) {
+            try (InputStream in = exchange.getRequestBody()) {
+                body = exchange.getRequestHeaders().getFirst("Authorization") + " "
+                    + exchange.getRequestHeaders().getFirst("Content-Type") + " "
+                    + new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } else {
+            code = 404;
+            body = "Not found";
+        }
+
+        if (code == 304) {
+            exchange.sendResponseHeaders(code, -1);
+        } else {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+}
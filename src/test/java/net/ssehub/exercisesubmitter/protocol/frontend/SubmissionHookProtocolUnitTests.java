@@ -0,0 +1,67 @@
+package net.ssehub.exercisesubmitter.protocol.frontend;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException;
+import net.ssehub.exercisesubmitter.protocol.backend.DataNotFoundException.DataType;
+import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
+import net.ssehub.exercisesubmitter.protocol.backend.ParticipantDirectory;
+import net.ssehub.exercisesubmitter.protocol.backend.ReviewerProtocol;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.CollaborationEnum;
+import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
+
+/**
+ * Tests the {@link SubmissionHookProtocol} <b>without</b> querying the REST server.
+ * @author agent
+ *
+ */
+public class SubmissionHookProtocolUnitTests {
+
+    /**
+     * Tests that submitters, which are not registered, are answered locally until the participants are downloaded
+     * again.
+     * @throws NetworkException Must not occur, network is not used.
+     */
+    @Test
+    public void testUnknownSubmitterIsRemembered() throws NetworkException {
+        // Test data
+        AssignmentDto dto = new AssignmentDto();
+        dto.setId("001");
+        dto.setName("Exercise01");
+        dto.setCollaboration(CollaborationEnum.SINGLE);
+        dto.setState(StateEnum.IN_REVIEW);
+        dto.setPoints(new BigDecimal(10));
+        Assignment assignment = new Assignment(dto);
+
+        // Mock of REST calls
+        ParticipantDirectory directoryMock = Mockito.mock(ParticipantDirectory.class);
+        Mockito.when(directoryMock.getGeneration("java")).thenReturn(1L);
+        ReviewerProtocol protocolMock = Mockito.mock(ReviewerProtocol.class);
+        Mockito.when(protocolMock.getCourseID()).thenReturn("java");
+        Mockito.when(protocolMock.getParticipantDirectory()).thenReturn(directoryMock);
+        Mockito.when(protocolMock.getAssessments(Mockito.any(), Mockito.any())).thenReturn(new ArrayList<>());
+        Mockito.when(protocolMock.getStudentByName(Mockito.any())).thenReturn(null);
+        SubmissionHookProtocol hook = new SubmissionHookProtocol(null, null, null, "a_url");
+        hook.setNetworkComponents(null, protocolMock);
+
+        // Test: Second miss is answered locally
+        for (int i = 0; i < 2; i++) {
+            DataNotFoundException exc = Assertions.assertThrows(DataNotFoundException.class,
+                () -> hook.loadAssessmentByName(assignment, "unknown"));
+            Assertions.assertSame(DataType.USER_NOT_FOUND, exc.getType());
+        }
+        Mockito.verify(protocolMock, Mockito.times(1)).getStudentByName("unknown");
+        Mockito.verify(protocolMock, Mockito.times(1)).getAssessments("001", "unknown");
+
+        // Test: Refreshed participants invalidate remembered submitters
+        Mockito.when(directoryMock.getGeneration("java")).thenReturn(2L);
+        Assertions.assertThrows(DataNotFoundException.class, () -> hook.loadAssessmentByName(assignment, "unknown"));
+        Mockito.verify(protocolMock, Mockito.times(2)).getStudentByName("unknown");
+    }
+}
@@ -1,16 +1,30 @@
 package net.ssehub.exercisesubmitter.protocol.frontend;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import net.ssehub.exercisesubmitter.protocol.backend.Deadline;
+import net.ssehub.exercisesubmitter.protocol.backend.DeadlineExceededException;
 import net.ssehub.exercisesubmitter.protocol.backend.LoginComponent;
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkException;
 import net.ssehub.exercisesubmitter.protocol.backend.NetworkProtocol;
+import net.ssehub.exercisesubmitter.protocol.backend.UnauthorizedException;
+import net.ssehub.exercisesubmitter.protocol.backend.UnknownCredentialsException;
 import net.ssehub.studentmgmt.backend_api.model.AssignmentDto;
 import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.CollaborationEnum;
 import net.ssehub.studentmgmt.backend_api.model.AssignmentDto.StateEnum;
@@ -159,4 +173,188 @@ public class SubmitterProtocolUnitTests {
         Assertions.assertEquals(expectedExercise, assignments.get(0).getName());
     }
 
+    /**
+     * Tests that concurrent requests, which are rejected with the same (expired) token, share one re-login.
+     * @throws NetworkException Must not occur, network is not used.
+     * @throws InterruptedException If the test is interrupted.
+     * @throws ExecutionException If a request failed.
+     * @throws TimeoutException If the requests are not finished in time.
+     */
+    @Test
+    public void testConcurrentReLoginIsCoalesced() throws NetworkException, InterruptedException,
+        ExecutionException, TimeoutException {
+        
+        int nThreads = 8;
+        CountDownLatch allRejected = new CountDownLatch(nThreads);
+        AtomicReference<String> token = new AtomicReference<>();
+        
+        // Mock of REST calls: Old token is rejected, re-login waits until all requests were rejected
+        LoginComponent loginMock = Mockito.mock(LoginComponent.class);
+        Mockito.when(loginMock.login("user", "pw")).thenReturn(true);
+        Mockito.when(loginMock.getManagementToken()).thenReturn("old");
+        Mockito.when(loginMock.reLogin()).thenAnswer(invocation -> {
+            allRejected.await(5, TimeUnit.SECONDS);
+            return "new";
+        });
+        NetworkProtocol networkMock = Mockito.mock(NetworkProtocol.class);
+        Mockito.doAnswer(invocation -> {
+            token.set(invocation.getArgument(0));
+            return null;
+        }).when(networkMock).setAccessToken(Mockito.anyString());
+        Mockito.when(networkMock.getAssignments(Mockito.any())).thenAnswer(invocation -> {
+            if ("old".equals(token.get())) {
+                allRejected.countDown();
+                throw new UnauthorizedException("Simulated time out occured.");
+            }
+            return new ArrayList<Assignment>();
+        });
+        SubmitterProtocol protocol = new SubmitterProtocol(null, null, null, "a_url");
+        protocol.setNetworkComponents(loginMock, networkMock);
+        Assertions.assertTrue(protocol.login("user", "pw"));
+        
+        // Test: All requests succeed after a single re-login
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        List<CompletableFuture<List<Assignment>>> requests = new ArrayList<>();
+        for (int i = 0; i < nThreads; i++) {
+            requests.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return protocol.getOpenAssignments();
+                } catch (NetworkException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor));
+        }
+        for (CompletableFuture<List<Assignment>> request : requests) {
+            Assertions.assertNotNull(request.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        Mockito.verify(loginMock, Mockito.times(1)).reLogin();
+        Assertions.assertEquals("new", token.get());
+    }
+    
+    /**
+     * Tests that the rejection is passed to the caller if no new token can be obtained and that no further re-login
+     * is tried afterwards.
+     * @throws NetworkException Must not occur, network is not used.
+     */
+    @Test
+    public void testFailedReLoginThrowsRejection() throws NetworkException {
+        // Mock of REST calls
+        LoginComponent loginMock = Mockito.mock(LoginComponent.class);
+        Mockito.when(loginMock.login("user", "pw")).thenReturn(true);
+        Mockito.when(loginMock.getManagementToken()).thenReturn(null);
+        Mockito.when(loginMock.reLogin()).thenReturn(null);
+        NetworkProtocol networkMock = Mockito.mock(NetworkProtocol.class);
+        Mockito.when(networkMock.getAssignments(Mockito.any()))
+            .thenThrow(new UnauthorizedException("Simulated time out occured."));
+        SubmitterProtocol protocol = new SubmitterProtocol(null, null, null, "a_url");
+        protocol.setNetworkComponents(loginMock, networkMock);
+        Assertions.assertTrue(protocol.login("user", "pw"));
+        
+        // Test: No NullPointerException for a missing token, the rejection is passed to the caller
+        Assertions.assertThrows(UnauthorizedException.class, () -> protocol.getOpenAssignments());
+        Assertions.assertThrows(UnauthorizedException.class, () -> protocol.getOpenAssignments());
+        Mockito.verify(loginMock, Mockito.times(1)).reLogin();
+    }
+    
+    /**
+     * Tests that no re-login is tried after the {@link Deadline} is exceeded and that the exception names the server,
+     * which would have been contacted.
+     * @throws NetworkException Must not occur, network is not used.
+     */
+    @Test
+    public void testExceededDeadlineNamesServer() throws NetworkException {
+        // Mock of REST calls
+        LoginComponent loginMock = Mockito.mock(LoginComponent.class);
+        Mockito.when(loginMock.login("user", "pw")).thenReturn(true);
+        Mockito.when(loginMock.getAuthenticationURL()).thenReturn("http://auth.example.org");
+        NetworkProtocol networkMock = Mockito.mock(NetworkProtocol.class);
+        Mockito.when(networkMock.getAssignments(Mockito.any()))
+            .thenThrow(new UnauthorizedException("Simulated time out occured."));
+        SubmitterProtocol protocol = new SubmitterProtocol(null, null, null, "a_url");
+        protocol.setNetworkComponents(loginMock, networkMock);
+        Assertions.assertTrue(protocol.login("user", "pw"));
+        
+        // Test: Time budget is exhausted -> no re-login
+        try (Deadline.Scope scope = Deadline.after(0, TimeUnit.MILLISECONDS).activate()) {
+            DeadlineExceededException exc = Assertions.assertThrows(DeadlineExceededException.class,
+                () -> protocol.getOpenAssignments());
+            Assertions.assertEquals("http://auth.example.org", exc.getURL());
+        }
+        Mockito.verify(loginMock, Mockito.never()).reLogin();
+    }
+    
+    /**
+     * Tests that the pipelined login starts the download of the assignments while the login is still running and
+     * that the assignments are queried with the new token.
+     * @throws NetworkException Must not occur, network is not used.
+     */
+    @Test
+    public void testPrefetchOnLogin() throws NetworkException {
+        CountDownLatch prefetchStarted = new CountDownLatch(1);
+        AtomicReference<String> token = new AtomicReference<>();
+        
+        // Mock of REST calls: Login finishes only after the prefetch was started
+        LoginComponent loginMock = Mockito.mock(LoginComponent.class);
+        Mockito.when(loginMock.login(Mockito.eq("user"), Mockito.eq("pw"), Mockito.any())).thenAnswer(invocation -> {
+            Consumer<String> tokenListener = invocation.getArgument(2);
+            tokenListener.accept("token");
+            return prefetchStarted.await(5, TimeUnit.SECONDS);
+        });
+        Mockito.when(loginMock.getManagementToken()).thenReturn("token");
+        NetworkProtocol networkMock = Mockito.mock(NetworkProtocol.class);
+        Mockito.doAnswer(invocation -> {
+            token.set(invocation.getArgument(0));
+            return null;
+        }).when(networkMock).setAccessToken(Mockito.anyString());
+        Mockito.when(networkMock.getAssignmentsAsync()).thenAnswer(invocation -> {
+            Assertions.assertEquals("token", token.get());
+            prefetchStarted.countDown();
+            return CompletableFuture.completedFuture(new ArrayList<Assignment>());
+        });
+        SubmitterProtocol protocol = new SubmitterProtocol(null, null, null, "a_url");
+        protocol.setNetworkComponents(loginMock, networkMock);
+        protocol.setPrefetchOnLogin(true);
+        
+        // Test: Prefetch is started during the login
+        Assertions.assertTrue(protocol.login("user", "pw"));
+        Mockito.verify(networkMock).getAssignmentsAsync();
+        Mockito.verify(loginMock, Mockito.never()).login("user", "pw");
+        Mockito.verify(networkMock, Mockito.times(1)).setAccessToken("token");
+    }
+    
+    /**
+     * Tests that a failed pipelined login cancels the prefetch and removes the unconfirmed token from the low-level
+     * protocol.
+     * @throws NetworkException Must not occur, network is not used.
+     */
+    @Test
+    public void testFailedPrefetchLoginResetsToken() throws NetworkException {
+        AtomicReference<String> token = new AtomicReference<>();
+        CompletableFuture<List<Assignment>> download = new CompletableFuture<>();
+        
+        // Mock of REST calls: Token is received, but the identity of the user cannot be queried
+        LoginComponent loginMock = Mockito.mock(LoginComponent.class);
+        Mockito.when(loginMock.login(Mockito.eq("user"), Mockito.eq("pw"), Mockito.any())).thenAnswer(invocation -> {
+            Consumer<String> tokenListener = invocation.getArgument(2);
+            tokenListener.accept("unconfirmed");
+            throw new UnknownCredentialsException("Simulated unknown user");
+        });
+        Mockito.when(loginMock.getManagementToken()).thenReturn(null);
+        NetworkProtocol networkMock = Mockito.mock(NetworkProtocol.class);
+        Mockito.doAnswer(invocation -> {
+            token.set(invocation.getArgument(0));
+            return null;
+        }).when(networkMock).setAccessToken(Mockito.any());
+        Mockito.when(networkMock.getAssignmentsAsync()).thenReturn(download);
+        SubmitterProtocol protocol = new SubmitterProtocol(null, null, null, "a_url");
+        protocol.setNetworkComponents(loginMock, networkMock);
+        protocol.setPrefetchOnLogin(true);
+        
+        // Test: Prefetch is cancelled and the token is removed
+        Assertions.assertThrows(UnknownCredentialsException.class, () -> protocol.login("user", "pw"));
+        Assertions.assertTrue(download.isCancelled());
+        Assertions.assertNull(token.get());
+    }
+
 }